@@ -0,0 +1,34 @@
+// Load comparison for the list/get endpoints
+//
+// Run once against the default profile and once with SPRING_PROFILES_ACTIVE=virtual-threads
+// (Java 21+ runtime), keeping everything else identical, and compare http_reqs/s and
+// http_req_duration p95 from the k6 summaries:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e TOKEN=<jwt> loadtest/list-investments.js
+//
+// VUS defaults to 400 - well above Tomcat's default 200 worker threads, which is where
+// blocking handlers start queueing.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TOKEN = __ENV.TOKEN;
+
+export const options = {
+    scenarios: {
+        list: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 400),
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export default function () {
+    const params = { headers: { Authorization: `Bearer ${TOKEN}` } };
+    const res = http.get(`${BASE_URL}/api/investments?page=0&size=20`, params);
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,53 @@
+package com.Investment.Investment.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acquires per second across 8 threads, each taking a permit for a random one of
+ * {@code clients} keys under a limit high enough that every acquire succeeds
+ * (what RateLimitFilter does per request, minus reading the client address)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    @Param({ "10000" })
+    private int clients;
+
+    private RateLimiter rateLimiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new RateLimiter(1_000_000, TimeUnit.SECONDS.toNanos(1));
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "10." + ((i >> 16) & 255) + "." + ((i >> 8) & 255) + "." + (i & 255);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+        return rateLimiter.tryAcquire(key, System.nanoTime());
+    }
+}
@@ -0,0 +1,70 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory filter loop of getAllInvestmentsPaginated when a name is given: every
+ * document of the (influencer-scoped) collection is matched, then page 0 is sliced off
+ * Documents are decoded up front, so this measures the filter itself; decoding is covered
+ * by {@link InvestmentMappingBenchmark}. "ah" matches roughly half of the synthetic names,
+ * "nofal" about one in twelve, INF003 one registration in eleven.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InvestmentFilterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int documents;
+
+    @Param({"ah", "nofal", "ah|INF003", "|INF003"})
+    private String filter;
+
+    private List<InvestmentResponse> investments;
+    private List<String> influencerIds;
+    private InvestmentFilter investmentFilter;
+
+    @Setup
+    public void setUp() {
+        Map<String, Map<String, Object>> data = SyntheticInvestments.data(documents, 42);
+        investments = new ArrayList<>(documents);
+        influencerIds = new ArrayList<>(documents);
+        for (Map.Entry<String, Map<String, Object>> entry : data.entrySet()) {
+            investments.add(InvestmentMapper.mapToInvestmentResponse(entry.getKey(), entry.getValue()));
+            influencerIds.add((String) entry.getValue().get("influencerId"));
+        }
+        String[] nameAndInfluencer = filter.split("\\|", -1);
+        investmentFilter = InvestmentFilter.of(nameAndInfluencer[0], nameAndInfluencer.length > 1 ? nameAndInfluencer[1] : null);
+    }
+
+    @Benchmark
+    public List<InvestmentResponse> firstPage() {
+        List<InvestmentResponse> matched = new ArrayList<>();
+        for (int i = 0; i < investments.size(); i++) {
+            InvestmentResponse response = investments.get(i);
+            if (investmentFilter.matches(response, influencerIds.get(i))) {
+                matched.add(response);
+            }
+        }
+        return matched.subList(0, Math.min(10, matched.size()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.Investment.Investment.service;
+
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one Firestore document into an InvestmentResponse
+ * - document: all fields through the per-field decoders (list and detail endpoints)
+ * - documentProjected: fields=firstName,lastName,emailAddress
+ * - documentGetData: the generic path - materialize getData(), then walk the map
+ * - dataMap: a map that is already decoded (read model, import)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class InvestmentMappingBenchmark {
+
+    private static final int DOCUMENTS = 1000;
+
+    private List<QueryDocumentSnapshot> snapshots;
+    private List<Map.Entry<String, Map<String, Object>>> dataMaps;
+    private InvestmentField[] projectedFields;
+
+    @Setup
+    public void setUp() {
+        Map<String, Map<String, Object>> data = SyntheticInvestments.data(DOCUMENTS, 42);
+        snapshots = SyntheticInvestments.snapshots(data);
+        dataMaps = new ArrayList<>(data.entrySet());
+        projectedFields = FieldProjection.parse("firstName,lastName,emailAddress")
+                .decodedFields(InvestmentFilter.of(null, null));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public void document(Blackhole blackhole) {
+        for (QueryDocumentSnapshot snapshot : snapshots) {
+            blackhole.consume(InvestmentMapper.mapToInvestmentResponse(snapshot));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public void documentProjected(Blackhole blackhole) {
+        for (QueryDocumentSnapshot snapshot : snapshots) {
+            blackhole.consume(InvestmentMapper.mapToInvestmentResponse(snapshot, projectedFields));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public void documentGetData(Blackhole blackhole) {
+        for (QueryDocumentSnapshot snapshot : snapshots) {
+            blackhole.consume(InvestmentMapper.mapToInvestmentResponse(snapshot.getId(), snapshot.getData()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public void dataMap(Blackhole blackhole) {
+        for (Map.Entry<String, Map<String, Object>> entry : dataMaps) {
+            blackhole.consume(InvestmentMapper.mapToInvestmentResponse(entry.getKey(), entry.getValue()));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the GET /api/investments body the way InvestmentController builds it,
+ * with the Jackson 3 mapper Spring MVC uses
+ * "all" emits every property; "projected" is fields=firstName,lastName,emailAddress,createdAt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ListResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int size;
+
+    @Param({"all", "projected"})
+    private String fields;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private List<InvestmentResponse> page;
+    private FieldProjection projection;
+
+    @Setup
+    public void setUp() {
+        page = new ArrayList<>(size);
+        for (Map.Entry<String, Map<String, Object>> entry : SyntheticInvestments.data(size, 42).entrySet()) {
+            page.add(InvestmentMapper.mapToInvestmentResponse(entry.getKey(), entry.getValue()));
+        }
+        projection = fields.equals("all")
+                ? FieldProjection.ALL
+                : FieldProjection.parse("firstName,lastName,emailAddress,createdAt");
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", projection.project(page));
+        response.put("pagination", Map.of(
+                "page", 0,
+                "size", size,
+                "totalElements", 10_000L,
+                "totalPages", 10_000 / size,
+                "hasNext", true,
+                "hasPrevious", false
+        ));
+        return jsonMapper.writeValueAsBytes(response);
+    }
+}
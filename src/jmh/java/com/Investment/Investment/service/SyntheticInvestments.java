@@ -0,0 +1,151 @@
+package com.Investment.Investment.service;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.firestore.v1.ArrayValue;
+import com.google.firestore.v1.Document;
+import com.google.firestore.v1.Value;
+import com.google.protobuf.NullValue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic investment documents for the benchmarks, shaped like the ones
+ * FirebaseService.toInvestmentData stores
+ * Documents are real QueryDocumentSnapshots, built the way the Firestore client builds them
+ * from an RPC response (protobuf fields decoded on access), so decoding costs what it does in
+ * production - without a network or credentials.
+ */
+final class SyntheticInvestments {
+
+    private static final String[] FIRST_NAMES = {
+            "Ahmed", "Mohamed", "Mahmoud", "Omar", "Youssef", "Mostafa", "Karim", "Hassan",
+            "Fatma", "Nour", "Mariam", "Salma", "Aya", "Hana", "Farah", "Laila"};
+    private static final String[] LAST_NAMES = {
+            "Hassan", "Ibrahim", "Mostafa", "Abdelrahman", "Nofal", "Saleh", "Fawzy", "Mansour",
+            "Kamel", "Sherif", "Gamal", "Tawfik"};
+    private static final String[] PROFESSIONS = {"Engineer", "Doctor", "Teacher", "Student", "Accountant", "Other"};
+    private static final String[] INVESTMENTS = {"Stocks", "Gold", "Real Estate", "Certificates", "Crypto"};
+    private static final String[] INTERESTS = {"Stocks", "Mutual Funds", "Bonds", "Gold"};
+    // 10 influencers plus the default; CCG registrations carry no influencerId
+    private static final int INFLUENCERS = 10;
+
+    private static final String DOCUMENT_PREFIX = "projects/benchmark/databases/(default)/documents/investments/";
+    private static final long START_MILLIS = 1_735_689_600_000L;
+
+    private SyntheticInvestments() {
+    }
+
+    /**
+     * Stored field maps keyed by document ID, newest first
+     */
+    static Map<String, Map<String, Object>> data(int count, long seed) {
+        Random random = new Random(seed);
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        for (int i = count - 1; i >= 0; i--) {
+            Map<String, Object> data = new HashMap<>();
+            String firstName = pick(random, FIRST_NAMES);
+            String lastName = pick(random, LAST_NAMES);
+            data.put("firstName", firstName);
+            data.put("middleName", random.nextInt(3) == 0 ? null : pick(random, FIRST_NAMES));
+            data.put("lastName", lastName);
+            data.put("age", String.valueOf(21 + random.nextInt(45)));
+            data.put("mobileNumber", "+2010" + (10_000_000 + random.nextInt(89_999_999)));
+            data.put("emailAddress", firstName.toLowerCase() + "." + lastName.toLowerCase() + i + "@example.com");
+            String profession = pick(random, PROFESSIONS);
+            data.put("profession", profession);
+            if (profession.equals("Other")) {
+                data.put("professionOther", "Freelancer");
+            }
+            List<String> currentInvestments = new ArrayList<>();
+            for (String investment : INVESTMENTS) {
+                if (random.nextInt(3) == 0) {
+                    currentInvestments.add(investment);
+                }
+            }
+            data.put("currentInvestments", currentInvestments);
+            data.put("mostInterestedIn", pick(random, INTERESTS));
+            long createdAt = START_MILLIS + i * 60_000L;
+            data.put("createdAt", createdAt);
+            data.put("updatedAt", createdAt);
+            int influencer = random.nextInt(INFLUENCERS + 1);
+            if (influencer < INFLUENCERS) {
+                data.put("influencerId", influencerId(influencer));
+                data.put("referredBy", "Influencer " + influencer);
+            } else {
+                data.put("referredBy", InfluencerRegistry.DEFAULT_INFLUENCER);
+            }
+            documents.put(String.format("inv%08d", i), data);
+        }
+        return documents;
+    }
+
+    static String influencerId(int index) {
+        return String.format("INF%03d", index + 1);
+    }
+
+    /**
+     * The same data as Firestore query results
+     */
+    static List<QueryDocumentSnapshot> snapshots(Map<String, Map<String, Object>> data) {
+        try (Firestore firestore = FirestoreOptions.newBuilder()
+                .setProjectId("benchmark")
+                .setCredentials(NoCredentials.getInstance())
+                .build()
+                .getService()) {
+            // Package-private factory the client uses for RunQuery responses
+            Method fromDocument = QueryDocumentSnapshot.class.getDeclaredMethod("fromDocument",
+                    Class.forName("com.google.cloud.firestore.FirestoreRpcContext"), Timestamp.class, Document.class);
+            fromDocument.setAccessible(true);
+
+            Timestamp readTime = Timestamp.now();
+            List<QueryDocumentSnapshot> snapshots = new ArrayList<>(data.size());
+            for (Map.Entry<String, Map<String, Object>> entry : data.entrySet()) {
+                Document.Builder document = Document.newBuilder()
+                        .setName(DOCUMENT_PREFIX + entry.getKey())
+                        .setCreateTime(readTime.toProto())
+                        .setUpdateTime(readTime.toProto());
+                for (Map.Entry<String, Object> field : entry.getValue().entrySet()) {
+                    document.putFields(field.getKey(), encode(field.getValue()));
+                }
+                snapshots.add((QueryDocumentSnapshot) fromDocument.invoke(null, firestore, readTime, document.build()));
+            }
+            return snapshots;
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't build synthetic snapshots", e);
+        }
+    }
+
+    private static Value encode(Object value) {
+        if (value == null) {
+            return Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+        }
+        if (value instanceof String) {
+            return Value.newBuilder().setStringValue((String) value).build();
+        }
+        if (value instanceof Long) {
+            return Value.newBuilder().setIntegerValue((Long) value).build();
+        }
+        if (value instanceof List) {
+            ArrayValue.Builder array = ArrayValue.newBuilder();
+            for (Object item : (List<?>) value) {
+                array.addValues(encode(item));
+            }
+            return Value.newBuilder().setArrayValue(array).build();
+        }
+        throw new IllegalArgumentException("Unsupported value: " + value.getClass());
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
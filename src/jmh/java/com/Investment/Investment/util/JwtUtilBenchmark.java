@@ -0,0 +1,78 @@
+package com.Investment.Investment.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification
+ * - verifyCached: a client polling with the same token (served from the verified-token cache)
+ * - verifyUncached: HMAC check and claims parsing every time (two tokens through a one-entry cache)
+ * - verifyTampered: a forged signature, which is never cached
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long-for-hmac";
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil evictingJwtUtil;
+    private String token;
+    private String otherToken;
+    private String tamperedToken;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = jwtUtil(1000);
+        evictingJwtUtil = jwtUtil(1);
+        token = cachingJwtUtil.generateToken("admin");
+        otherToken = cachingJwtUtil.generateToken("operator");
+        tamperedToken = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+    }
+
+    private static JwtUtil jwtUtil(int cacheMaxEntries) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", cacheMaxEntries);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String generate() {
+        return cachingJwtUtil.generateToken("admin");
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken verifyCached() {
+        return cachingJwtUtil.parseVerified(token);
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken verifyUncached() {
+        flip = !flip;
+        return evictingJwtUtil.parseVerified(flip ? token : otherToken);
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken verifyTampered() {
+        return cachingJwtUtil.parseVerified(tamperedToken);
+    }
+}
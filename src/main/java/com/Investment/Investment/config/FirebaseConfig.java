@@ -1,5 +1,6 @@
 package com.Investment.Investment.config;
 
+import com.Investment.Investment.service.InMemoryInvestmentRepository;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.firestore.Firestore;
 import com.google.firebase.FirebaseApp;
@@ -8,6 +9,7 @@ import com.google.firebase.cloud.FirestoreClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 
 import jakarta.annotation.PostConstruct;
@@ -16,6 +18,7 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 
 @Configuration
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
 public class FirebaseConfig {
 
     @Value("${firebase.credentials.path:}")
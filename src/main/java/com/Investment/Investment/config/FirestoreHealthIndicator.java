@@ -0,0 +1,46 @@
+package com.Investment.Investment.config;
+
+import com.Investment.Investment.service.InMemoryInvestmentRepository;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.health.contributor.AbstractHealthIndicator;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "firestore" health contributor, part of the readiness probe (/actuator/health/readiness)
+ * Reads at most one document ID from the investments collection, so it checks credentials,
+ * network and the database with the cheapest query there is. A Firestore outage takes the
+ * instance out of the load balancer; it is left out of liveness, since a restart won't fix it.
+ */
+@Component
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class FirestoreHealthIndicator extends AbstractHealthIndicator {
+
+    private final Firestore firestore;
+
+    @Value("${health.firestore.timeout-ms:2000}")
+    private long timeoutMs;
+
+    @Autowired
+    public FirestoreHealthIndicator(Firestore firestore) {
+        super("Firestore health check failed");
+        this.firestore = firestore;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        long start = System.nanoTime();
+        firestore.collection("investments")
+                .select(FieldPath.documentId())
+                .limit(1)
+                .get()
+                .get(timeoutMs, TimeUnit.MILLISECONDS);
+        builder.up().withDetail("latencyMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -1,6 +1,8 @@
 package com.Investment.Investment.config;
 
 import com.Investment.Investment.security.JwtAuthenticationFilter;
+import com.Investment.Investment.util.ETagUtil;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,6 +11,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
 @Configuration
@@ -27,14 +32,33 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .headers(headers -> headers
+                .cacheControl(cache -> cache.disable())
+                .addHeaderWriter(cacheControlHeaderWriter()))
             .authorizeHttpRequests(auth -> auth
+                // Async handlers complete on a re-dispatch; the original request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 .requestMatchers("/api/investments").permitAll() // POST endpoint - public
                 .requestMatchers("/api/investments/**").authenticated() // GET endpoints - require token
+                // Liveness/readiness probes are open; metrics and any other endpoint need the admin token
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").authenticated()
                 .anyRequest().permitAll()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
+
+    /**
+     * Security's no-store Cache-Control, except on requests whose handler sets its own
+     * (ETag responses). Async handlers finish after Security wrote its headers, so the
+     * handler's header would otherwise be added as a second one.
+     */
+    public static HeaderWriter cacheControlHeaderWriter() {
+        return new DelegatingRequestMatcherHeaderWriter(
+                request -> request.getAttribute(ETagUtil.CACHE_CONTROL_SET) == null,
+                new CacheControlHeadersWriter());
+    }
 }
 
@@ -1,5 +1,11 @@
 package com.Investment.Investment.controller;
 
+import com.Investment.Investment.service.EmailOutboxService;
+import com.Investment.Investment.service.InvestmentReadModel;
+import com.Investment.Investment.service.NameSearchIndex;
+import com.Investment.Investment.service.RegistrationDedupService;
+import com.Investment.Investment.service.RegistrationFeed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,6 +17,22 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class HealthController {
 
+    // Absent with the in-memory profile
+    @Autowired(required = false)
+    private InvestmentReadModel readModel;
+
+    @Autowired(required = false)
+    private NameSearchIndex nameIndex;
+
+    @Autowired(required = false)
+    private EmailOutboxService emailOutbox;
+
+    @Autowired(required = false)
+    private RegistrationDedupService registrationDedup;
+
+    @Autowired(required = false)
+    private RegistrationFeed registrationFeed;
+
     @GetMapping("/ping")
     public ResponseEntity<Map<String, Object>> ping() {
         Map<String, Object> response = new HashMap<>();
@@ -27,6 +49,49 @@ public class HealthController {
         response.put("status", "UP");
         response.put("message", "Investment API is healthy");
         response.put("timestamp", System.currentTimeMillis());
+
+        if (readModel != null && readModel.isEnabled()) {
+            Map<String, Object> readModelStatus = new HashMap<>();
+            readModelStatus.put("ready", readModel.isReady());
+            readModelStatus.put("documents", readModel.size());
+            readModelStatus.put("stalenessMillis", readModel.getStalenessMillis());
+            response.put("readModel", readModelStatus);
+        }
+
+        if (nameIndex != null && nameIndex.isEnabled()) {
+            Map<String, Object> nameIndexStatus = new HashMap<>();
+            nameIndexStatus.put("ready", nameIndex.isReady());
+            nameIndexStatus.put("documents", nameIndex.documentCount());
+            nameIndexStatus.put("trigrams", nameIndex.gramCount());
+            nameIndexStatus.put("estimatedMemoryBytes", nameIndex.estimatedMemoryBytes());
+            response.put("nameIndex", nameIndexStatus);
+        }
+
+        if (registrationDedup != null && registrationDedup.isEnabled()) {
+            Map<String, Object> dedupStatus = new HashMap<>();
+            dedupStatus.put("warm", registrationDedup.isWarm());
+            dedupStatus.put("approximateKeys", registrationDedup.getApproximateKeyCount());
+            response.put("registrationDedup", dedupStatus);
+        }
+
+        if (emailOutbox != null) {
+            Map<String, Object> emailOutboxStatus = new HashMap<>();
+            emailOutboxStatus.put("queueDepth", emailOutbox.getQueueDepth());
+            emailOutboxStatus.put("inFlight", emailOutbox.getInFlightCount());
+            emailOutboxStatus.put("sent", emailOutbox.getSentCount());
+            emailOutboxStatus.put("failedAttempts", emailOutbox.getFailedAttempts());
+            emailOutboxStatus.put("dead", emailOutbox.getDeadCount());
+            emailOutboxStatus.put("lastSendMillis", emailOutbox.getLastSendMillis());
+            emailOutboxStatus.put("averageSendMillis", emailOutbox.getAverageSendMillis());
+            response.put("emailOutbox", emailOutboxStatus);
+        }
+
+        if (registrationFeed != null) {
+            Map<String, Object> feedStatus = new HashMap<>();
+            feedStatus.put("subscribers", registrationFeed.getSubscriberCount());
+            feedStatus.put("dropped", registrationFeed.getDroppedCount());
+            response.put("registrationFeed", feedStatus);
+        }
         
         return ResponseEntity.ok(response);
     }
@@ -1,18 +1,55 @@
 package com.Investment.Investment.controller;
 
+import com.Investment.Investment.dto.BulkDeleteRequest;
 import com.Investment.Investment.dto.InvestmentRequest;
 import com.Investment.Investment.dto.InvestmentResponse;
 import com.Investment.Investment.dto.PaginatedResponse;
-import com.Investment.Investment.service.FirebaseService;
-import com.Investment.Investment.service.EmailService;
+import com.Investment.Investment.service.BulkDeleteJob;
+import com.Investment.Investment.service.BulkDeleteService;
+import com.Investment.Investment.service.FieldProjection;
+import com.Investment.Investment.dto.ImportReport;
+import com.Investment.Investment.service.InfluencerRegistry;
+import com.Investment.Investment.service.InvestmentExportService;
+import com.Investment.Investment.service.InvestmentFilter;
+import com.Investment.Investment.service.InvestmentImportService;
+import com.Investment.Investment.service.InvestmentPatch;
+import com.Investment.Investment.service.InvestmentRepository;
+import com.Investment.Investment.service.InvestmentRules;
+import com.Investment.Investment.service.RegistrationFeed;
+import com.Investment.Investment.service.RegistrationStatsService;
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.Investment.Investment.util.ETagUtil;
+import com.Investment.Investment.util.TimeRangeUtil;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/investments")
@@ -20,10 +57,39 @@ import java.util.Map;
 public class InvestmentController {
 
     @Autowired
-    private FirebaseService firebaseService;
+    private InvestmentRepository investmentRepository;
 
     @Autowired
-    private EmailService emailService;
+    private InfluencerRegistry influencerRegistry;
+
+    // Stats, import and bulk delete need Firestore and are absent with the in-memory profile
+    @Autowired(required = false)
+    private RegistrationStatsService registrationStats;
+
+    @Autowired
+    private InvestmentExportService exportService;
+
+    @Autowired(required = false)
+    private InvestmentImportService importService;
+
+    @Autowired(required = false)
+    private BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private RegistrationFeed registrationFeed;
+
+    // from/to given as plain dates start at midnight in the same zone as the day counters
+    @Value("${stats.counters.zone:Africa/Cairo}")
+    private String statsZone;
+
+    @Value("${investments.export.timeout-ms:900000}")
+    private long exportTimeoutMs;
 
     /**
      * Create a new investment registration
@@ -33,62 +99,102 @@ public class InvestmentController {
      *            This tracks which influencer referred the user.
      *            If not provided, defaults to CCG.
      *            If provided but invalid, returns 400 Bad Request.
+     * @param idempotencyKey Optional client-generated key; a retry with the same key (or the same
+     *                       email and mobile number) returns 200 with the original id instead of 201
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createInvestment(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createInvestment(
             @Valid @RequestBody InvestmentRequest request,
-            @RequestParam(required = false) String ref) {
+            @RequestParam(required = false) String ref,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             // Validate referral code if provided
             if (ref != null && !ref.trim().isEmpty()) {
-                if (!firebaseService.isValidInfluencerId(ref.trim())) {
+                if (!influencerRegistry.isValid(ref.trim())) {
                     Map<String, Object> errorResponse = new HashMap<>();
                     errorResponse.put("success", false);
                     errorResponse.put("error", "Invalid referral code");
                     errorResponse.put("message", "The referral code '" + ref + "' is not valid");
-                    return ResponseEntity.badRequest().body(errorResponse);
+                    return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
                 }
             }
 
-            if ("Other".equalsIgnoreCase(request.getProfession()) && 
-                (request.getProfessionOther() == null || request.getProfessionOther().trim().isEmpty())) {
+            InvestmentRules.Violation violation = InvestmentRules.checkOtherFields(request);
+            if (violation != null) {
                 Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("error", "professionOther is required when profession is 'Other'");
-                errorResponse.put("message", "If profession is 'Other', you must provide a value for professionOther");
-                return ResponseEntity.badRequest().body(errorResponse);
+                errorResponse.put("error", violation.getError());
+                errorResponse.put("message", violation.getMessage());
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
             }
 
-            if (request.getCurrentInvestments() != null && 
-                request.getCurrentInvestments().stream().anyMatch(inv -> "Other".equalsIgnoreCase(inv)) &&
-                (request.getCurrentInvestmentsOther() == null || request.getCurrentInvestmentsOther().trim().isEmpty())) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("error", "currentInvestmentsOther is required when currentInvestments contains 'Other'");
-                errorResponse.put("message", "If currentInvestments contains 'Other', you must provide a value for currentInvestmentsOther");
-                return ResponseEntity.badRequest().body(errorResponse);
-            }
+            // The confirmation email is queued in the outbox and sent after we respond;
+            // a retried submission gets the original ID back and no second email
+            return investmentRepository.registerInvestmentAsync(request, ref, true, idempotencyKey)
+                    .<ResponseEntity<Map<String, Object>>>thenApply(registration -> {
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("success", true);
+                        response.put("message", "Investment data saved successfully");
+                        response.put("id", registration.getId());
 
-            String id = firebaseService.saveInvestment(request, ref);
-            
-            // Send email notification to the user
-            try {
-                emailService.sendReservationEmail(request.getEmailAddress(),request.getFirstName());
-            } catch (Exception e) {
-                // Log error but don't fail the request if email fails
-                System.err.println("Email sending failed: " + e.getMessage());
-            }
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Investment data saved successfully");
-            response.put("id", id);
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+                        if (registration.isReplayed()) {
+                            response.put("duplicate", true);
+                            return ResponseEntity.ok().header("Idempotent-Replayed", "true").body(response);
+                        }
+                        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+                    })
+                    .exceptionally(e -> serverError("Failed to save investment data", e));
         } catch (Exception e) {
+            return CompletableFuture.completedFuture(serverError("Failed to save investment data", e));
+        }
+    }
+
+    /**
+     * Bulk-import registrations (e.g. collected offline by a partner) from the request body
+     * Every line is validated like POST /api/investments; the response reports each line's outcome.
+     * An upload cut off mid-way still gets the report of the lines read, marked truncated.
+     *
+     * @param format ndjson (one InvestmentRequest JSON object per line) or csv (header row
+     *               with the export's column names, currentInvestments separated by ';')
+     * @param ref Optional referral code for lines that don't carry their own "ref"
+     * @param sendEmail Whether to send confirmation emails for the created registrations
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importInvestments(
+            InputStream body,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String ref,
+            @RequestParam(defaultValue = "false") boolean sendEmail) {
+        if (importService == null) {
+            return notImplemented("Import");
+        }
+        InvestmentImportService.Format importFormat;
+        try {
+            importFormat = InvestmentImportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
-            errorResponse.put("error", "Failed to save investment data");
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            errorResponse.put("error", "Invalid format");
+            errorResponse.put("message", "The format '" + format + "' is not supported, use ndjson or csv");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        if (ref != null && !ref.trim().isEmpty() && !influencerRegistry.isValid(ref.trim())) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Invalid referral code");
+            errorResponse.put("message", "The referral code '" + ref + "' is not valid");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        try {
+            ImportReport report = importService.importInvestments(body, importFormat, ref, sendEmail);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", report.getFailed() == 0 && report.getInvalid() == 0 && !report.isTruncated());
+            response.put("data", report);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return serverError("Failed to import investments", e);
         }
     }
 
@@ -99,99 +205,585 @@ public class InvestmentController {
      * @param size Page size (max 100)
      * @param name Optional filter by name (searches firstName, lastName, middleName)
      * @param influencer Optional filter by influencer ID (e.g., INF001, INF002, etc.)
+     * @param cursor Optional keyset cursor. When present (even empty, for the first page) the
+     *               endpoint switches to cursor mode: page is ignored and the response carries
+     *               a nextCursor to pass back for the following page.
+     * @param fields Optional comma-separated properties to return (e.g. firstName,lastName,createdAt);
+     *               only those are read from Firestore and emitted
+     * @param from Optional createdAt lower bound, inclusive (epoch millis, ISO date-time, or yyyy-MM-dd)
+     * @param to Optional createdAt upper bound, exclusive (same formats as from)
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllInvestments(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getAllInvestments(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String influencer,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request) {
+        // Validate pagination parameters
+        if (page < 0) {
+            page = 0;
+        }
+        if (size < 1) {
+            size = 10;
+        }
+        if (size > 100) {
+            size = 100; // Max page size
+        }
+
+        FieldProjection projection;
+        try {
+            projection = FieldProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Invalid fields");
+            errorResponse.put("message", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
+        }
+
+        InvestmentFilter filter;
+        try {
+            filter = filter(name, influencer, from, to);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(invalidRange(e));
+        }
+        request.setAttribute(ETagUtil.CACHE_CONTROL_SET, true);
+
+        // Unchanged collection and same query: answer without touching the data
+        String version = investmentRepository.getInvestmentsVersion();
+        String etag = version != null ? ETagUtil.forQuery(version, cursor != null ? -1 : page, size, name, influencer, cursor, fields,
+                filter.getFrom(), filter.getTo()) : null;
+        if (ETagUtil.matches(ifNoneMatch, etag)) {
+            return CompletableFuture.completedFuture(notModified(etag));
+        }
+
+        if (cursor != null) {
+            return getInvestmentsByCursor(cursor, size, filter, projection, etag)
+                    .thenApply(InvestmentController::withDefaultCacheControl);
+        }
+
+        return investmentRepository.getAllInvestmentsPaginatedAsync(page, size, filter, projection)
+                .<ResponseEntity<Map<String, Object>>>thenApply(paginatedResponse -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("data", projection.project(paginatedResponse.getData()));
+                    response.put("pagination", Map.of(
+                        "page", paginatedResponse.getPage(),
+                        "size", paginatedResponse.getSize(),
+                        "totalElements", paginatedResponse.getTotalElements(),
+                        "totalPages", paginatedResponse.getTotalPages(),
+                        "hasNext", paginatedResponse.isHasNext(),
+                        "hasPrevious", paginatedResponse.isHasPrevious()
+                    ));
+
+                    return withETag(ResponseEntity.ok(), etag).body(response);
+                })
+                .exceptionally(e -> serverError("Failed to fetch investments", e))
+                .thenApply(InvestmentController::withDefaultCacheControl);
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> getInvestmentsByCursor(String cursor, int size, InvestmentFilter filter,
+                                                                                         FieldProjection projection, String etag) {
+        return investmentRepository.getInvestmentsByCursorAsync(cursor, size, filter, projection)
+                .<ResponseEntity<Map<String, Object>>>thenApply(paginatedResponse -> {
+                    // nextCursor is null on the last page, which Map.of does not allow
+                    Map<String, Object> pagination = new HashMap<>();
+                    pagination.put("size", paginatedResponse.getSize());
+                    pagination.put("hasNext", paginatedResponse.isHasNext());
+                    pagination.put("hasPrevious", paginatedResponse.isHasPrevious());
+                    pagination.put("nextCursor", paginatedResponse.getNextCursor());
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("data", projection.project(paginatedResponse.getData()));
+                    response.put("pagination", pagination);
+
+                    return withETag(ResponseEntity.ok(), etag).body(response);
+                })
+                .exceptionally(e -> {
+                    if (unwrap(e) instanceof IllegalArgumentException) {
+                        Map<String, Object> errorResponse = new HashMap<>();
+                        errorResponse.put("success", false);
+                        errorResponse.put("error", "Invalid cursor");
+                        errorResponse.put("message", "The cursor '" + cursor + "' is not valid");
+                        return ResponseEntity.badRequest().body(errorResponse);
+                    }
+                    return serverError("Failed to fetch investments", e);
+                });
+    }
+
+    /**
+     * Live feed of new registrations as Server-Sent Events, for the admin dashboard
+     * Each registration is a "registration" event whose data is the investment as JSON and
+     * whose id is the investment ID. Returns 503 when too many clients are connected.
+     *
+     * @param name Optional filter by name (same as the list endpoint)
+     * @param influencer Optional filter by influencer (same as the list endpoint)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRegistrations(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String influencer) {
         try {
-            // Validate pagination parameters
-            if (page < 0) {
-                page = 0;
-            }
-            if (size < 1) {
-                size = 10;
-            }
-            if (size > 100) {
-                size = 100; // Max page size
-            }
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                    // Disables response buffering in nginx, which would hold events back
+                    .header("X-Accel-Buffering", "no")
+                    .body(registrationFeed.subscribe(InvestmentFilter.of(name, influencer)));
+        } catch (IllegalStateException e) {
+            // A streamed response can't carry the usual JSON error body
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+    }
 
-            PaginatedResponse<InvestmentResponse> paginatedResponse = firebaseService.getAllInvestmentsPaginated(page, size, name, influencer);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", paginatedResponse.getData());
-            response.put("pagination", Map.of(
-                "page", paginatedResponse.getPage(),
-                "size", paginatedResponse.getSize(),
-                "totalElements", paginatedResponse.getTotalElements(),
-                "totalPages", paginatedResponse.getTotalPages(),
-                "hasNext", paginatedResponse.isHasNext(),
-                "hasPrevious", paginatedResponse.isHasPrevious()
-            ));
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
+    /**
+     * Registration counts per influencer (leaderboard), in total and for one day
+     *
+     * @param day Optional day as yyyy-MM-dd (defaults to today)
+     */
+    @GetMapping("/stats")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStats(@RequestParam(required = false) String day) {
+        if (registrationStats == null) {
+            return CompletableFuture.completedFuture(notImplemented("Stats"));
+        }
+        try {
+            return registrationStats.getStatsAsync(day)
+                    .<ResponseEntity<Map<String, Object>>>thenApply(stats -> {
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("success", true);
+                        response.put("data", stats);
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> serverError("Failed to fetch stats", e));
+        } catch (DateTimeParseException e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
-            errorResponse.put("error", "Failed to fetch investments");
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            errorResponse.put("error", "Invalid day");
+            errorResponse.put("message", "The day '" + day + "' is not a valid yyyy-MM-dd date");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
         }
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getInvestmentById(@PathVariable String id) {
+    /**
+     * Registration counts per hour or day, from the counters rather than the investments
+     *
+     * @param bucket hour or day
+     * @param from Optional start, inclusive (same formats as the list endpoint); defaults to
+     *             24 hours (hour buckets) or 30 days (day buckets) before to
+     * @param to Optional end, exclusive; defaults to now
+     * @param influencer Optional filter by influencer (same as the list endpoint)
+     */
+    @GetMapping("/stats/histogram")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getHistogram(
+            @RequestParam(defaultValue = "hour") String bucket,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String influencer) {
+        if (registrationStats == null) {
+            return CompletableFuture.completedFuture(notImplemented("Stats"));
+        }
+        RegistrationStatsService.Bucket histogramBucket;
         try {
-            InvestmentResponse investment = firebaseService.getInvestmentById(id);
-            
-            if (investment == null) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("success", false);
-                errorResponse.put("error", "Investment not found");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
-            }
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", investment);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
+            histogramBucket = RegistrationStatsService.Bucket.parse(bucket);
+        } catch (IllegalArgumentException e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
-            errorResponse.put("error", "Failed to fetch investment");
+            errorResponse.put("error", "Invalid bucket");
             errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
+        }
+        try {
+            ZoneId zone = ZoneId.of(statsZone);
+            Long toMillis = TimeRangeUtil.parse(to, zone);
+            long end = toMillis != null ? toMillis : System.currentTimeMillis();
+            Long fromMillis = TimeRangeUtil.parse(from, zone);
+            long start = fromMillis != null ? fromMillis
+                    : end - (histogramBucket == RegistrationStatsService.Bucket.HOUR ? Duration.ofHours(24) : Duration.ofDays(30)).toMillis();
+            TimeRangeUtil.requireOrdered(start, end);
+
+            return registrationStats.getHistogramAsync(histogramBucket, start, end, influencer)
+                    .<ResponseEntity<Map<String, Object>>>thenApply(histogram -> {
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("success", true);
+                        response.put("data", histogram);
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> serverError("Failed to fetch histogram", e));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(invalidRange(e));
         }
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteInvestment(@PathVariable String id) {
+    /**
+     * Stream all investments matching the list filters as a file download
+     * Rows are written as they are read from Firestore, gzip-compressed when the client accepts it.
+     *
+     * @param format csv or ndjson
+     * @param name Optional filter by name (same as the list endpoint)
+     * @param influencer Optional filter by influencer (same as the list endpoint)
+     * @param from Optional createdAt lower bound, inclusive (same as the list endpoint)
+     * @param to Optional createdAt upper bound, exclusive (same as the list endpoint)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInvestments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String influencer,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request) {
+        InvestmentExportService.Format exportFormat;
         try {
-            boolean deleted = firebaseService.deleteInvestment(id);
-            
-            if (!deleted) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("success", false);
-                errorResponse.put("error", "Investment not found");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            exportFormat = InvestmentExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Invalid format");
+            errorResponse.put("message", "The format '" + format + "' is not supported, use csv or ndjson");
+            // Declared as a streamed body too, so Spring picks the streaming handler for the export
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> jsonMapper.writeValue(out, errorResponse));
+        }
+        InvestmentFilter filter;
+        try {
+            filter = filter(name, influencer, from, to);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = invalidRange(e).getBody();
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> jsonMapper.writeValue(out, errorResponse));
+        }
+
+        // A full export outlives spring.mvc.async.request-timeout, which is kept short for the other handlers
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(exportTimeoutMs);
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            try {
+                if (gzip) {
+                    // Sync flush so every chunk reaches the client as soon as it is written
+                    GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192, true);
+                    exportService.export(gzipOut, exportFormat, filter);
+                    gzipOut.finish();
+                } else {
+                    exportService.export(out, exportFormat, filter);
+                }
+            } catch (Exception e) {
+                // The status is already sent - all we can do is log and cut the stream short
+                System.err.println("Export failed: " + e.getMessage());
+                throw e;
             }
-            
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"investments-" + LocalDate.now() + "." + exportFormat.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Start a background bulk delete
+     * Takes either an explicit list of ids, or an influencer and/or a createdAt range
+     * (from inclusive, to exclusive, epoch millis). Returns 202 with the job to poll.
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<Map<String, Object>> startBulkDelete(@RequestBody BulkDeleteRequest request) {
+        if (bulkDeleteService == null) {
+            return notImplemented("Bulk delete");
+        }
+        try {
+            BulkDeleteJob job = bulkDeleteService.submit(request);
+
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Investment deleted successfully");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
+            response.put("data", job);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
-            errorResponse.put("error", "Failed to delete investment");
+            errorResponse.put("error", "Invalid bulk delete criteria");
             errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return ResponseEntity.badRequest().body(errorResponse);
         }
     }
-}
 
+    @GetMapping("/bulk-delete")
+    public ResponseEntity<Map<String, Object>> getBulkDeleteJobs() {
+        if (bulkDeleteService == null) {
+            return notImplemented("Bulk delete");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", bulkDeleteService.getJobs());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/bulk-delete/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBulkDeleteJob(@PathVariable String jobId) {
+        if (bulkDeleteService == null) {
+            return notImplemented("Bulk delete");
+        }
+        return bulkDeleteJobResponse(bulkDeleteService.getJob(jobId));
+    }
+
+    /**
+     * Cancel a bulk delete; deletes already handed to Firestore still complete
+     */
+    @DeleteMapping("/bulk-delete/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelBulkDelete(@PathVariable String jobId) {
+        if (bulkDeleteService == null) {
+            return notImplemented("Bulk delete");
+        }
+        return bulkDeleteJobResponse(bulkDeleteService.cancel(jobId));
+    }
+
+    private static ResponseEntity<Map<String, Object>> bulkDeleteJobResponse(BulkDeleteJob job) {
+        if (job == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Bulk delete job not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", job);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get one investment
+     * The ETag is the document's update time (the same one PATCH accepts in If-Match); with a
+     * matching If-None-Match the response is 304 without a body, and with the read model
+     * enabled without a Firestore read.
+     */
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getInvestmentById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request) {
+        request.setAttribute(ETagUtil.CACHE_CONTROL_SET, true);
+        return investmentRepository.getInvestmentVersionAsync(id)
+                .<ResponseEntity<Map<String, Object>>>thenApply(version -> {
+                    if (version == null) {
+                        Map<String, Object> errorResponse = new HashMap<>();
+                        errorResponse.put("success", false);
+                        errorResponse.put("error", "Investment not found");
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+                    }
+
+                    String etag = version.getUpdateTime() != null ? ETagUtil.fromUpdateTime(version.getUpdateTime()) : null;
+                    if (ETagUtil.matches(ifNoneMatch, etag)) {
+                        return notModified(etag);
+                    }
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("data", version.getInvestment());
+
+                    return withETag(ResponseEntity.ok(), etag).body(response);
+                })
+                .exceptionally(e -> serverError("Failed to fetch investment", e))
+                .thenApply(InvestmentController::withDefaultCacheControl);
+    }
+
+    /**
+     * Update some fields of a registration
+     * Only the fields in the body are written. If-Match is required (428 without it): the ETag
+     * of a GET or a previous PATCH rejects the update with 412 if the registration changed
+     * since, so concurrent edits don't overwrite each other; "*" explicitly updates whatever
+     * version is stored.
+     */
+    @PatchMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> updateInvestment(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> body,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        InvestmentPatch patch = InvestmentPatch.of(body, validator);
+        if (!patch.isValid()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Validation failed");
+            errorResponse.put("message", String.join(", ", patch.getErrors()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
+        }
+
+        if (ifMatch == null || ifMatch.isBlank()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "If-Match required");
+            errorResponse.put("message", "Send the investment's ETag in If-Match, or * to overwrite any version");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(errorResponse));
+        }
+
+        Timestamp expectedUpdateTime = null;
+        if (!ifMatch.trim().equals("*")) {
+            try {
+                expectedUpdateTime = ETagUtil.toUpdateTime(ifMatch);
+            } catch (IllegalArgumentException e) {
+                // Can't be the current version of anything we issued
+                return CompletableFuture.completedFuture(preconditionFailed());
+            }
+        }
+
+        return investmentRepository.updateInvestmentAsync(id, patch.getChanges(), expectedUpdateTime)
+                .<ResponseEntity<Map<String, Object>>>thenApply(updateTime -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Investment updated successfully");
+                    response.put("updatedFields", patch.getChanges().keySet());
+
+                    return ResponseEntity.ok()
+                            .eTag(ETagUtil.fromUpdateTime(updateTime))
+                            .body(response);
+                })
+                .exceptionally(e -> {
+                    if (ApiFutureUtil.hasStatus(e, StatusCode.Code.FAILED_PRECONDITION)) {
+                        return preconditionFailed();
+                    }
+                    if (ApiFutureUtil.hasStatus(e, StatusCode.Code.ALREADY_EXISTS)) {
+                        Map<String, Object> errorResponse = new HashMap<>();
+                        errorResponse.put("success", false);
+                        errorResponse.put("error", "Duplicate registration");
+                        errorResponse.put("message", "Another registration has this email address and mobile number");
+                        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+                    }
+                    if (ApiFutureUtil.hasStatus(e, StatusCode.Code.NOT_FOUND)) {
+                        Map<String, Object> errorResponse = new HashMap<>();
+                        errorResponse.put("success", false);
+                        errorResponse.put("error", "Investment not found");
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+                    }
+                    return serverError("Failed to update investment", e);
+                });
+    }
+
+    private static ResponseEntity<Map<String, Object>> preconditionFailed() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("error", "Investment has changed");
+        errorResponse.put("message", "The investment was modified since it was read; fetch it again and retry");
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(errorResponse);
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> deleteInvestment(@PathVariable String id) {
+        return investmentRepository.deleteInvestmentAsync(id)
+                .<ResponseEntity<Map<String, Object>>>thenApply(deleted -> {
+                    if (!deleted) {
+                        Map<String, Object> errorResponse = new HashMap<>();
+                        errorResponse.put("success", false);
+                        errorResponse.put("error", "Investment not found");
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+                    }
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Investment deleted successfully");
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> serverError("Failed to delete investment", e));
+    }
+
+    /**
+     * Clients may cache the response but must revalidate it (with If-None-Match) before reuse
+     */
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, String etag) {
+        if (etag == null) {
+            return builder;
+        }
+        return builder.eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+    }
+
+    private static ResponseEntity<Map<String, Object>> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
+    /**
+     * Spring Security's no-store headers, for the responses of a handler that marked the request
+     * with {@link ETagUtil#CACHE_CONTROL_SET} but did not send an ETag (errors, no version)
+     */
+    private static ResponseEntity<Map<String, Object>> withDefaultCacheControl(ResponseEntity<Map<String, Object>> response) {
+        if (response.getHeaders().getCacheControl() != null) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, max-age=0, must-revalidate")
+                .header(HttpHeaders.PRAGMA, "no-cache")
+                .header(HttpHeaders.EXPIRES, "0")
+                .body(response.getBody());
+    }
+
+    /**
+     * List filters plus the createdAt range, with the bounds parsed in the stats zone
+     *
+     * @throws IllegalArgumentException if a bound is malformed or the range is empty
+     */
+    private InvestmentFilter filter(String name, String influencer, String from, String to) {
+        ZoneId zone = ZoneId.of(statsZone);
+        Long fromMillis = TimeRangeUtil.parse(from, zone);
+        Long toMillis = TimeRangeUtil.parse(to, zone);
+        TimeRangeUtil.requireOrdered(fromMillis, toMillis);
+        return InvestmentFilter.of(name, influencer).createdBetween(fromMillis, toMillis);
+    }
+
+    private static ResponseEntity<Map<String, Object>> invalidRange(IllegalArgumentException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("error", "Invalid range");
+        errorResponse.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    /**
+     * The feature depends on Firestore, and this instance runs with another repository
+     */
+    private static ResponseEntity<Map<String, Object>> notImplemented(String feature) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("error", feature + " not available");
+        errorResponse.put("message", feature + " requires the Firestore repository");
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(errorResponse);
+    }
+
+    private static ResponseEntity<Map<String, Object>> serverError(String error, Throwable e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("error", error);
+        errorResponse.put("message", unwrap(e).getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+
+    /**
+     * Futures wrap the original exception; report the underlying one
+     */
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
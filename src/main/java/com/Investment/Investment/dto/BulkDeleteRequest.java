@@ -0,0 +1,17 @@
+package com.Investment.Investment.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkDeleteRequest {
+
+    private String influencer; // Influencer ID, influencer name or "CCG" - same as the list filter
+
+    private Long from; // createdAt >= from (epoch millis)
+
+    private Long to; // createdAt < to (epoch millis)
+
+    private List<String> ids; // Explicit investment IDs; can't be combined with the filters above
+}
@@ -0,0 +1,16 @@
+package com.Investment.Investment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistogramBucket {
+    private String start; // ISO-8601 with the zone's offset
+    private long startMillis;
+    private long count;
+}
@@ -0,0 +1,19 @@
+package com.Investment.Investment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportLineResult {
+    private long line;
+    private String status; // created, invalid or failed
+    private String id; // Only set when created
+    private List<String> errors;
+}
@@ -0,0 +1,22 @@
+package com.Investment.Investment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+    private long total;
+    private long created;
+    private long invalid;
+    private long failed;
+    private boolean truncated; // Lines beyond investments.import.max-lines, or after a read error, were not read
+    private String error; // Why the upload stopped being read, if it failed mid-way
+    private List<ImportLineResult> results;
+}
@@ -0,0 +1,17 @@
+package com.Investment.Investment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InfluencerStats {
+    private String influencer; // Influencer ID, or the referredBy name for CCG
+    private String name;
+    private long total;
+    private long day; // Registrations on the requested day
+}
@@ -19,5 +19,6 @@ public class PaginatedResponse<T> {
     private int totalPages;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor; // Only set in cursor mode
 }
 
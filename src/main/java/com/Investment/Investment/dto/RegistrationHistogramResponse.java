@@ -0,0 +1,22 @@
+package com.Investment.Investment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationHistogramResponse {
+    private String bucket; // hour or day
+    private String zone; // Zone of the bucket starts and of the day boundaries
+    private String influencer; // Counter key the histogram is restricted to, or null for all
+    private long from; // Start of the first bucket, epoch millis
+    private long to; // End of the last bucket (exclusive), epoch millis
+    private long total;
+    private List<HistogramBucket> buckets; // Oldest first, empty buckets included
+}
@@ -0,0 +1,19 @@
+package com.Investment.Investment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationStatsResponse {
+    private String day; // yyyy-MM-dd in the counters' time zone
+    private long totalRegistrations;
+    private long dayRegistrations;
+    private List<InfluencerStats> influencers; // Leaderboard, highest total first
+}
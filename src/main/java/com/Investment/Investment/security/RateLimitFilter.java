@@ -0,0 +1,195 @@
+package com.Investment.Investment.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client rate limits on selected routes, answered with 429 and Retry-After
+ * Routes are configured in rate-limit.routes as a comma-separated list of
+ * "METHOD pattern=permits/unit" (unit: second, minute or hour), e.g.
+ * "POST /api/investments=20/minute". Each client gets a bucket of that many permits per
+ * route, refilled evenly over the unit; the first matching route applies.
+ *
+ * Clients are identified by the connection's IP. Behind a proxy, set rate-limit.forwarded-for-hops
+ * to take the address from X-Forwarded-For instead, counting that many entries from the right
+ * (the ones appended by our own proxies) - entries further left are supplied by the client
+ * and can't be trusted.
+ * Runs ahead of Spring Security so throttled calls cost as little as possible.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.routes:POST /api/investments=20/minute,POST /api/auth/token=10/minute}")
+    private String routesConfig;
+
+    // 0 = use the connection's address; 1 = the last X-Forwarded-For entry (one proxy in front), ...
+    @Value("${rate-limit.forwarded-for-hops:0}")
+    private int forwardedForHops;
+
+    @Value("${rate-limit.eviction-interval-ms:60000}")
+    private long evictionIntervalMs;
+
+    private final List<Route> routes = new ArrayList<>();
+    private ScheduledExecutorService evictor;
+
+    @PostConstruct
+    public void init() {
+        routes.clear();
+        routes.addAll(parseRoutes(routesConfig));
+        if (!enabled || routes.isEmpty()) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            long now = System.nanoTime();
+            for (Route route : routes) {
+                route.limiter.evictIdle(now);
+            }
+        }, evictionIntervalMs, evictionIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Route route = match(request.getMethod(), request.getRequestURI());
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = route.limiter.tryAcquire(clientAddress(request), System.nanoTime());
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"success\":false,\"error\":\"Too many requests\",\"message\":\"Retry after "
+                + retryAfterSeconds + " seconds\"}");
+    }
+
+    private Route match(String method, String path) {
+        for (Route route : routes) {
+            if (route.method.equalsIgnoreCase(method) && PATH_MATCHER.match(route.pattern, path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    String clientAddress(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedForHops > 0 && forwardedFor != null && !forwardedFor.isBlank()) {
+            String[] addresses = forwardedFor.split(",");
+            // Fewer entries than proxies means the header didn't come through all of them, and
+            // its first entry is whatever the client sent
+            if (addresses.length >= forwardedForHops) {
+                String address = addresses[addresses.length - forwardedForHops].trim();
+                if (!address.isEmpty()) {
+                    return address;
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * @throws IllegalArgumentException If an entry isn't "METHOD pattern=permits/unit"
+     */
+    static List<Route> parseRoutes(String config) {
+        List<Route> parsed = new ArrayList<>();
+        if (config == null || config.isBlank()) {
+            return parsed;
+        }
+        for (String entry : config.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] routeAndLimit = entry.trim().split("=");
+            String[] methodAndPattern = routeAndLimit[0].trim().split("\\s+");
+            String[] permitsAndUnit = routeAndLimit.length == 2 ? routeAndLimit[1].trim().split("/") : new String[0];
+            if (methodAndPattern.length != 2 || permitsAndUnit.length != 2) {
+                throw new IllegalArgumentException("Invalid rate-limit route: " + entry);
+            }
+            int permits = Integer.parseInt(permitsAndUnit[0].trim());
+            long periodNanos = switch (permitsAndUnit[1].trim().toLowerCase()) {
+                case "second" -> TimeUnit.SECONDS.toNanos(1);
+                case "minute" -> TimeUnit.MINUTES.toNanos(1);
+                case "hour" -> TimeUnit.HOURS.toNanos(1);
+                default -> throw new IllegalArgumentException("Invalid rate-limit unit: " + entry);
+            };
+            parsed.add(new Route(methodAndPattern[0], methodAndPattern[1], new RateLimiter(permits, periodNanos)));
+        }
+        return parsed;
+    }
+
+    static final class Route {
+        private final String method;
+        private final String pattern;
+        private final RateLimiter limiter;
+
+        Route(String method, String pattern, RateLimiter limiter) {
+            this.method = method;
+            this.pattern = pattern;
+            this.limiter = limiter;
+        }
+
+        String getMethod() {
+            return method;
+        }
+
+        String getPattern() {
+            return pattern;
+        }
+
+        RateLimiter getLimiter() {
+            return limiter;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.Investment.Investment.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets, one per key
+ * Implemented as GCRA: each bucket is a single AtomicLong holding the time at which it will
+ * be full again, which behaves exactly like a bucket of {@code permits} tokens refilled
+ * evenly over {@code periodNanos}. Acquiring is one CAS on the caller's own bucket, and the
+ * buckets live in a ConcurrentHashMap, so clients never contend with each other.
+ *
+ * Full buckets carry no information and are dropped by {@link #evictIdle(long)}.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param permits Bucket capacity, also the number of permits refilled per period
+     * @param periodNanos Refill period
+     */
+    public RateLimiter(int permits, long periodNanos) {
+        if (permits < 1 || periodNanos < 1) {
+            throw new IllegalArgumentException("permits and period must be positive");
+        }
+        this.intervalNanos = Math.max(1, periodNanos / permits);
+        this.burstNanos = intervalNanos * (permits - 1);
+    }
+
+    /**
+     * Take a permit from the key's bucket
+     *
+     * @param now Current {@link System#nanoTime()}
+     * @return 0 if a permit was taken, otherwise nanoseconds until the next one is available
+     */
+    public long tryAcquire(String key, long now) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            if (start - now > burstNanos) {
+                return start - now - burstNanos;
+            }
+            if (bucket.compareAndSet(fullAt, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely
+     * A request racing with eviction may be counted on the dropped bucket; the worst case is
+     * one extra permit for that client.
+     *
+     * @return Number of buckets removed
+     */
+    public int evictIdle(long now) {
+        int removed = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            if (entry.getValue().get() <= now && buckets.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,113 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.BulkDeleteRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a background bulk delete, as reported by the admin endpoints
+ */
+public class BulkDeleteJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    private final String id;
+    private final BulkDeleteRequest criteria;
+    private final long submittedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean cancelRequested = false;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    BulkDeleteJob(String id, BulkDeleteRequest criteria) {
+        this.id = id;
+        this.criteria = criteria;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public BulkDeleteRequest getCriteria() {
+        return criteria;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Documents found so far and handed to the writer
+     */
+    public long getMatched() {
+        return matched.get();
+    }
+
+    public long getDeleted() {
+        return deleted.get();
+    }
+
+    /**
+     * Deletes that failed, including documents changed after they were matched
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    void markRunning() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void markFinished(Status finalStatus, String finalError) {
+        error = finalError;
+        finishedAt = System.currentTimeMillis();
+        status = finalStatus;
+    }
+
+    void recordMatched() {
+        matched.incrementAndGet();
+    }
+
+    void recordDeleted() {
+        deleted.incrementAndGet();
+    }
+
+    void recordFailed() {
+        failed.incrementAndGet();
+    }
+}
@@ -0,0 +1,277 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.BulkDeleteRequest;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background bulk deletes by influencer, createdAt range or explicit IDs
+ * Matching documents are read a page at a time (projected to the fields the registration
+ * counters need) and streamed into a {@link ThrottledBulkWriter}. Every delete carries an
+ * update-time precondition, so a document changed after it was matched is left alone and
+ * counted as failed. Counters are decremented per influencer and day after every page (for
+ * the deletes confirmed by then) and when the job ends.
+ *
+ * Jobs run one at a time and are kept in memory (the last max-jobs-retained), so their
+ * progress is only visible on the instance that runs them.
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class BulkDeleteService {
+
+    private static final String COLLECTION_NAME = "investments";
+    // All a delete needs to know to decrement the registration counters
+    private static final String[] COUNTER_FIELDS = { "influencerId", "referredBy", "createdAt" };
+
+    private final Firestore firestore;
+    private final FirebaseService firebaseService;
+    private final RegistrationStatsService registrationStats;
+    private final NameSearchIndex nameIndex;
+
+    @Value("${investments.bulk-delete.page-size:500}")
+    private int pageSize;
+
+    @Value("${investments.bulk-delete.max-pending-writes:1000}")
+    private int maxPendingWrites;
+
+    @Value("${investments.bulk-delete.initial-ops-per-second:100}")
+    private int initialOpsPerSecond;
+
+    @Value("${investments.bulk-delete.max-ops-per-second:500}")
+    private int maxOpsPerSecond;
+
+    @Value("${investments.bulk-delete.max-jobs-retained:50}")
+    private int maxJobsRetained;
+
+    private final Map<String, BulkDeleteJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @Autowired
+    public BulkDeleteService(Firestore firestore, FirebaseService firebaseService,
+                             RegistrationStatsService registrationStats, NameSearchIndex nameIndex) {
+        this.firestore = firestore;
+        this.firebaseService = firebaseService;
+        this.registrationStats = registrationStats;
+        this.nameIndex = nameIndex;
+    }
+
+    @PostConstruct
+    public void start() {
+        ThrottledBulkWriter.checkMaxPendingWrites("investments.bulk-delete.max-pending-writes", maxPendingWrites);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "investment-bulk-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (BulkDeleteJob job : jobs.values()) {
+            job.requestCancel();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Queue a bulk delete
+     *
+     * @throws IllegalArgumentException If no criteria are given, or ids are combined with filters
+     */
+    public BulkDeleteJob submit(BulkDeleteRequest request) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasFilter = (request.getInfluencer() != null && !request.getInfluencer().trim().isEmpty())
+                || request.getFrom() != null || request.getTo() != null;
+        if (!hasIds && !hasFilter) {
+            // Deleting the whole collection is never what an empty request means
+            throw new IllegalArgumentException("Provide ids, or at least one of influencer, from and to");
+        }
+        if (hasIds && hasFilter) {
+            throw new IllegalArgumentException("ids can't be combined with influencer, from or to");
+        }
+        if (request.getFrom() != null && request.getTo() != null && request.getFrom() >= request.getTo()) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        BulkDeleteJob job = new BulkDeleteJob(UUID.randomUUID().toString(), request);
+        trimFinishedJobs();
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    public BulkDeleteJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * All retained jobs, newest first
+     */
+    public List<BulkDeleteJob> getJobs() {
+        List<BulkDeleteJob> all = new ArrayList<>(jobs.values());
+        all.sort(Comparator.comparingLong(BulkDeleteJob::getSubmittedAt).reversed());
+        return all;
+    }
+
+    /**
+     * Stop a job after the deletes already handed to the writer
+     *
+     * @return The job, or null if there is no such job
+     */
+    public BulkDeleteJob cancel(String jobId) {
+        BulkDeleteJob job = jobs.get(jobId);
+        if (job != null) {
+            job.requestCancel();
+        }
+        return job;
+    }
+
+    private void run(BulkDeleteJob job) {
+        if (job.isCancelRequested()) {
+            job.markFinished(BulkDeleteJob.Status.CANCELLED, null);
+            return;
+        }
+        job.markRunning();
+
+        String error = null;
+        // Closing waits for every delete and applies the counters not flushed yet
+        try (ThrottledBulkWriter writer = new ThrottledBulkWriter(firestore, registrationStats,
+                initialOpsPerSecond, maxOpsPerSecond, maxPendingWrites, "bulk delete " + job.getId())) {
+            BulkDeleteRequest criteria = job.getCriteria();
+            if (criteria.getIds() != null && !criteria.getIds().isEmpty()) {
+                deleteByIds(job, criteria.getIds(), writer);
+            } else {
+                deleteByQuery(job, criteria, writer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (Exception e) {
+            System.err.println("Bulk delete " + job.getId() + " failed: " + e.getMessage());
+            error = e.getMessage();
+        }
+
+        if (error != null) {
+            job.markFinished(BulkDeleteJob.Status.FAILED, error);
+        } else if (job.isCancelRequested()) {
+            job.markFinished(BulkDeleteJob.Status.CANCELLED, null);
+        } else {
+            job.markFinished(BulkDeleteJob.Status.COMPLETED, null);
+        }
+        System.out.println("Bulk delete " + job.getId() + " " + job.getStatus() + ": "
+                + job.getDeleted() + " deleted, " + job.getFailed() + " failed");
+    }
+
+    private void deleteByQuery(BulkDeleteJob job, BulkDeleteRequest criteria, ThrottledBulkWriter writer) throws Exception {
+        Query baseQuery = firebaseService.applyInfluencerFilter(firestore.collection(COLLECTION_NAME), criteria.getInfluencer());
+        if (criteria.getFrom() != null) {
+            baseQuery = baseQuery.whereGreaterThanOrEqualTo("createdAt", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            baseQuery = baseQuery.whereLessThan("createdAt", criteria.getTo());
+        }
+        baseQuery = baseQuery
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .select(COUNTER_FIELDS)
+                .limit(pageSize);
+
+        Object[] startAfter = null;
+        while (!job.isCancelRequested()) {
+            Query query = startAfter != null ? baseQuery.startAfter(startAfter) : baseQuery;
+            List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                if (job.isCancelRequested()) {
+                    return;
+                }
+                enqueueDelete(job, document, writer);
+            }
+            writer.flushCounters();
+            if (documents.size() < pageSize) {
+                return;
+            }
+            QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+            startAfter = new Object[] { last.get("createdAt"), last.getId() };
+        }
+    }
+
+    private void deleteByIds(BulkDeleteJob job, List<String> ids, ThrottledBulkWriter writer) throws Exception {
+        CollectionReference investmentsRef = firestore.collection(COLLECTION_NAME);
+        for (int start = 0; start < ids.size() && !job.isCancelRequested(); start += pageSize) {
+            List<String> page = ids.subList(start, Math.min(start + pageSize, ids.size()));
+            DocumentReference[] refs = new DocumentReference[page.size()];
+            for (int i = 0; i < page.size(); i++) {
+                refs[i] = investmentsRef.document(page.get(i));
+            }
+            // Read to learn each document's counters (and skip IDs that don't exist)
+            for (DocumentSnapshot document : firestore.getAll(refs, FieldMask.of(COUNTER_FIELDS)).get()) {
+                if (job.isCancelRequested()) {
+                    return;
+                }
+                if (document.exists()) {
+                    enqueueDelete(job, document, writer);
+                }
+            }
+            writer.flushCounters();
+        }
+    }
+
+    private void enqueueDelete(BulkDeleteJob job, DocumentSnapshot document, ThrottledBulkWriter writer) {
+        String id = document.getId();
+        String influencerId = document.getString("influencerId");
+        String referredBy = document.getString("referredBy");
+        Long createdAt = document.getLong("createdAt");
+        Timestamp updateTime = document.getUpdateTime();
+
+        job.recordMatched();
+        writer.submit(bulkWriter -> bulkWriter.delete(document.getReference(), Precondition.updatedAt(updateTime)),
+                (result, error) -> {
+                    if (error != null) {
+                        job.recordFailed();
+                        return;
+                    }
+                    job.recordDeleted();
+                    writer.getTally().add(influencerId, referredBy, createdAt != null ? createdAt : 0L, -1);
+                    nameIndex.remove(id);
+                });
+    }
+
+    private void trimFinishedJobs() {
+        if (jobs.size() < maxJobsRetained) {
+            return;
+        }
+        List<BulkDeleteJob> finished = new ArrayList<>();
+        for (BulkDeleteJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        finished.sort(Comparator.comparingLong(BulkDeleteJob::getSubmittedAt));
+        for (int i = 0; i < finished.size() && jobs.size() >= maxJobsRetained; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+}
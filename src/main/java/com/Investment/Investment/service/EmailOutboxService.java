@@ -0,0 +1,294 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox for reservation confirmation emails
+ * A job document is written to the emailOutbox collection in the same batch as the
+ * investment (same document ID), so it survives a crash. A bounded worker pool sends it
+ * right after the commit; failures are retried with exponential backoff until
+ * max-attempts, after which the job is marked DEAD. A periodic sweep picks up jobs left
+ * PENDING by a crash, a full queue or another instance.
+ *
+ * Delivery is at-least-once: a crash between sending and marking SENT resends the email.
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class EmailOutboxService {
+
+    public static final String OUTBOX_COLLECTION = "emailOutbox";
+
+    static final String STATUS_PENDING = "PENDING";
+    static final String STATUS_SENT = "SENT";
+    static final String STATUS_DEAD = "DEAD";
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final Firestore firestore;
+    private final EmailSender emailSender;
+
+    @Value("${email.outbox.workers:4}")
+    private int workers;
+
+    @Value("${email.outbox.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${email.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    // How long a job dispatched by this instance is hidden from other instances' sweeps
+    @Value("${email.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${email.outbox.sweep-interval-ms:30000}")
+    private long sweepIntervalMs;
+
+    private ThreadPoolExecutor workerPool;
+    private ScheduledExecutorService scheduler;
+
+    // Jobs queued, waiting for a retry or being sent by this instance
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong deadCount = new AtomicLong();
+    private final AtomicLong totalSendMillis = new AtomicLong();
+    private volatile long lastSendMillis = 0;
+
+    @Autowired
+    public EmailOutboxService(Firestore firestore, EmailSender emailSender) {
+        this.firestore = firestore;
+        this.emailSender = emailSender;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workerPool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "email-outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        workerPool.shutdown();
+    }
+
+    public DocumentReference jobRef(String investmentId) {
+        return firestore.collection(OUTBOX_COLLECTION).document(investmentId);
+    }
+
+    /**
+     * Build the job document stored next to a new investment
+     */
+    public Map<String, Object> newJob(String to, String name) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> job = new HashMap<>();
+        job.put("to", to);
+        job.put("name", name);
+        job.put("status", STATUS_PENDING);
+        job.put("attempts", 0);
+        job.put("createdAt", now);
+        // The creating instance dispatches it immediately; sweeps only take over after the lease
+        job.put("nextAttemptAt", now + leaseMs);
+        return job;
+    }
+
+    /**
+     * Hand a committed job to the worker pool
+     * If the queue is full the job stays PENDING and the sweep picks it up later.
+     */
+    public void dispatch(String investmentId, String to, String name) {
+        submit(investmentId, to, name, 0);
+    }
+
+    /**
+     * Write the job document for an already committed investment, then dispatch it
+     * For writers that can't put the job in the investment's own batch (e.g. bulk import).
+     */
+    public CompletableFuture<Void> enqueue(String investmentId, String to, String name) {
+        return ApiFutureUtil.toCompletableFuture(jobRef(investmentId).set(newJob(to, name)))
+                .thenRun(() -> dispatch(investmentId, to, name));
+    }
+
+    private void submit(String jobId, String to, String name, int attempts) {
+        if (!inFlight.add(jobId) && attempts == 0) {
+            return;
+        }
+        queueDepth.incrementAndGet();
+        try {
+            workerPool.execute(() -> attempt(jobId, to, name, attempts));
+        } catch (RejectedExecutionException e) {
+            queueDepth.decrementAndGet();
+            inFlight.remove(jobId);
+        }
+    }
+
+    private void attempt(String jobId, String to, String name, int previousAttempts) {
+        queueDepth.decrementAndGet();
+        int attempts = previousAttempts + 1;
+        long start = System.currentTimeMillis();
+        // Batching senders complete later, so the worker is free again right away
+        emailSender.sendReservationEmailAsync(to, name).whenComplete((ignored, error) -> {
+            if (error != null) {
+                failedAttempts.incrementAndGet();
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                handleFailure(jobId, to, name, attempts, cause);
+                return;
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            lastSendMillis = elapsed;
+            totalSendMillis.addAndGet(elapsed);
+            sentCount.incrementAndGet();
+
+            Map<String, Object> update = new HashMap<>();
+            update.put("status", STATUS_SENT);
+            update.put("attempts", attempts);
+            update.put("sentAt", System.currentTimeMillis());
+            jobRef(jobId).update(update);
+            inFlight.remove(jobId);
+        });
+    }
+
+    private void handleFailure(String jobId, String to, String name, int attempts, Throwable error) {
+        if (error instanceof EmailSender.ThrottledException) {
+            // Rate limited before the email was looked at: wait as asked, without using up an attempt
+            retry(jobId, to, name, attempts - 1, error,
+                    Math.max(initialBackoffMs, ((EmailSender.ThrottledException) error).getRetryAfterMillis()));
+            return;
+        }
+        Map<String, Object> update = new HashMap<>();
+        update.put("attempts", attempts);
+        update.put("lastError", String.valueOf(error.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            System.err.println("Email outbox: giving up on job " + jobId + " after " + attempts + " attempts: " + error.getMessage());
+            update.put("status", STATUS_DEAD);
+            deadCount.incrementAndGet();
+            jobRef(jobId).update(update);
+            inFlight.remove(jobId);
+            return;
+        }
+
+        // Exponential backoff: initial, 2x, 4x, ...
+        retry(jobId, to, name, attempts, error, initialBackoffMs * (1L << (attempts - 1)));
+    }
+
+    private void retry(String jobId, String to, String name, int attempts, Throwable error, long backoff) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("attempts", attempts);
+        update.put("lastError", String.valueOf(error.getMessage()));
+        update.put("status", STATUS_PENDING);
+        update.put("nextAttemptAt", System.currentTimeMillis() + backoff + leaseMs);
+        jobRef(jobId).update(update);
+        try {
+            scheduler.schedule(() -> submit(jobId, to, name, attempts), backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(jobId);
+        }
+    }
+
+    /**
+     * Claim and dispatch PENDING jobs whose lease has expired
+     * Each job is claimed with an update-time precondition so only one instance takes it.
+     */
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            QuerySnapshot snapshot = firestore.collection(OUTBOX_COLLECTION)
+                    .whereEqualTo("status", STATUS_PENDING)
+                    .whereLessThanOrEqualTo("nextAttemptAt", now)
+                    .limit(SWEEP_BATCH_SIZE)
+                    .get().get();
+
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                if (inFlight.contains(document.getId()) || workerPool.getQueue().remainingCapacity() == 0) {
+                    continue;
+                }
+                try {
+                    document.getReference()
+                            .update(Map.of("nextAttemptAt", now + leaseMs), Precondition.updatedAt(document.getUpdateTime()))
+                            .get();
+                } catch (Exception e) {
+                    // Claimed by another instance in the meantime
+                    continue;
+                }
+                Long attempts = document.getLong("attempts");
+                submit(document.getId(), document.getString("to"), document.getString("name"),
+                        attempts != null ? attempts.intValue() : 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Email outbox sweep failed: " + e.getMessage());
+        }
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getFailedAttempts() {
+        return failedAttempts.get();
+    }
+
+    public long getDeadCount() {
+        return deadCount.get();
+    }
+
+    public long getLastSendMillis() {
+        return lastSendMillis;
+    }
+
+    public double getAverageSendMillis() {
+        long sent = sentCount.get();
+        return sent == 0 ? 0 : (double) totalSendMillis.get() / sent;
+    }
+}
@@ -0,0 +1,41 @@
+package com.Investment.Investment.service;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers the reservation confirmation email
+ * Selected with email.sender: "sendgrid" (default) or "stub" for offline runs.
+ */
+public interface EmailSender {
+
+    void sendReservationEmail(String to, String name) throws IOException;
+
+    /**
+     * Send without holding the caller's thread; senders that batch override this
+     */
+    default CompletableFuture<Void> sendReservationEmailAsync(String to, String name) {
+        try {
+            sendReservationEmail(to, name);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The provider is rate limiting us; retry no sooner than {@link #getRetryAfterMillis()} from now
+     */
+    class ThrottledException extends IOException {
+        private final long retryAfterMillis;
+
+        public ThrottledException(String message, long retryAfterMillis) {
+            super(message);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+}
@@ -13,59 +13,287 @@ import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+/**
+ * SendGrid delivery of the reservation confirmation email
+ * One SendGrid client (and its HTTP connection pool) is reused, and the static part of the
+ * mail/send payload is serialized once. Async sends arriving within email.sendgrid.batch-window-ms
+ * are packed into a single mail/send call with one personalization per recipient.
+ *
+ * A 400 is a rejected recipient, so a rejected batch is retried one recipient at a time. A 429
+ * fails the whole batch with a {@link ThrottledException} carrying Retry-After, and further sends
+ * fail fast until then; other errors fail the batch as is, for the outbox to retry later.
+ */
 @Service
-public class EmailService {
+@ConditionalOnProperty(name = "email.sender", havingValue = "sendgrid", matchIfMissing = true)
+public class EmailService implements EmailSender {
 
-    public void sendReservationEmail(String to, String name) throws IOException{
-        Email fromEmail = new Email("register@egxmoneymadesimplebyccg.com");
-        Email toEmail = new Email(to);
-        String subject = "Registration Confirmation - Money Made Simple";
-        String body = """
-                Thank you for your interest in Money Made Simple, organized by  the Egyptian Exchange (EGX) and Cairo Capital Group.
+    // SendGrid's limit of personalizations per mail/send request
+    static final int MAX_PERSONALIZATIONS = 1000;
 
-                We have received your registration. Due to high demand, attendance is subject to a waiting list. Please keep an eye on your email and WhatsApp for confirmation and further details.
+    // Pause after a 429 without a usable Retry-After or X-RateLimit-Reset header
+    private static final long DEFAULT_THROTTLE_MS = 60_000;
 
-                Best regards,
-                EGX & Cairo Capital Group Team
+    private static final String FROM_ADDRESS = "register@egxmoneymadesimplebyccg.com";
+    private static final String SUBJECT = "Registration Confirmation - Money Made Simple";
+    private static final String BODY = """
+            Thank you for your interest in Money Made Simple, organized by  the Egyptian Exchange (EGX) and Cairo Capital Group.
 
-                شكرًا لاهتمامكم بفعالية “Money Made Simple”، التي تنظمها البورصة المصرية (EGX) ومجموعة كايرو كابيتال.
+            We have received your registration. Due to high demand, attendance is subject to a waiting list. Please keep an eye on your email and WhatsApp for confirmation and further details.
 
-                نود إعلامكم بأنه تم استلام تسجيلكم. ونظرًا للإقبال الكبير، فإن الحضور يخضع لقائمة انتظار. يُرجى متابعة بريدكم الإلكتروني وتطبيق واتساب للحصول على تأكيد الحضور وكافة التفاصيل لاحقًا.
+            Best regards,
+            EGX & Cairo Capital Group Team
 
-                مع خالص التحية،
-                فريق البورصة المصرية (EGX) ومجموعة كايرو كابيتال
-                """;
+            شكرًا لاهتمامكم بفعالية “Money Made Simple”، التي تنظمها البورصة المصرية (EGX) ومجموعة كايرو كابيتال.
 
+            نود إعلامكم بأنه تم استلام تسجيلكم. ونظرًا للإقبال الكبير، فإن الحضور يخضع لقائمة انتظار. يُرجى متابعة بريدكم الإلكتروني وتطبيق واتساب للحصول على تأكيد الحضور وكافة التفاصيل لاحقًا.
 
-        Content content = new Content("text/plain", body);
-        Mail mail = new Mail(fromEmail, subject, toEmail, content);
+            مع خالص التحية،
+            فريق البورصة المصرية (EGX) ومجموعة كايرو كابيتال
+            """;
 
+    @Autowired
+    private InvestmentMetrics metrics;
+
+    @Value("${email.sendgrid.batch-window-ms:500}")
+    private long batchWindowMs;
+
+    private SendGrid sendGrid;
+    private String payloadPrefix;
+    private final LinkedBlockingQueue<PendingEmail> pending = new LinkedBlockingQueue<>();
+    private ScheduledExecutorService flusher;
+    // No mail/send calls before this time (epoch millis), after a 429
+    private volatile long throttledUntil;
+
+    @PostConstruct
+    public void initialize() throws IOException {
         // SendGrid client uses the API key from the environment variable
         String apiKey = System.getenv("SENDGRID_API_KEY");
-        System.out.println("SENDGRID_API_KEY exists? " + (apiKey != null));
+        if (apiKey != null && !apiKey.isBlank()) {
+            sendGrid = new SendGrid(apiKey);
+        } else {
+            System.err.println("SENDGRID_API_KEY is NOT set in environment variables");
+        }
 
-        if (apiKey == null || apiKey.isBlank()) {
-            throw new IllegalStateException("SENDGRID_API_KEY is NOT set in environment variables");
+        // from/subject/content never change - serialize them once and only append recipients
+        Mail template = new Mail();
+        template.setFrom(new Email(FROM_ADDRESS));
+        template.setSubject(SUBJECT);
+        template.addContent(new Content("text/plain", BODY));
+        String json = template.build();
+        payloadPrefix = json.substring(0, json.lastIndexOf('}')) + ",\"personalizations\":[";
+
+        if (batchWindowMs > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sendgrid-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, batchWindowMs, batchWindowMs, TimeUnit.MILLISECONDS);
         }
+    }
 
-        SendGrid sg = new SendGrid(apiKey);
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            // Don't strand callers waiting on a batch
+            flush();
+        }
+    }
+
+    @Override
+    public void sendReservationEmail(String to, String name) throws IOException {
+        sendBatch(List.of(to));
+    }
+
+    /**
+     * Queue the email for the next batch; the future completes when that batch is accepted
+     */
+    @Override
+    public CompletableFuture<Void> sendReservationEmailAsync(String to, String name) {
+        if (flusher == null) {
+            return EmailSender.super.sendReservationEmailAsync(to, name);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        pending.add(new PendingEmail(to, future));
+        if (pending.size() >= MAX_PERSONALIZATIONS) {
+            flusher.execute(this::flush);
+        }
+        return future;
+    }
+
+    private void flush() {
+        List<PendingEmail> batch = new ArrayList<>(MAX_PERSONALIZATIONS);
+        while (pending.drainTo(batch, MAX_PERSONALIZATIONS) > 0) {
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<PendingEmail> batch) {
+        List<String> recipients = new ArrayList<>(batch.size());
+        for (PendingEmail email : batch) {
+            recipients.add(email.to);
+        }
+        try {
+            sendBatch(recipients);
+            for (PendingEmail email : batch) {
+                email.future.complete(null);
+            }
+        } catch (SendGridRejectedException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // One bad address fails the whole request - retry one by one so the rest still go out.
+            // Should SendGrid start throttling meanwhile, the rest fail fast without a call each.
+            for (PendingEmail email : batch) {
+                deliver(List.of(email));
+            }
+        } catch (Exception e) {
+            for (PendingEmail email : batch) {
+                email.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Send the reservation email to up to {@link #MAX_PERSONALIZATIONS} recipients in one call
+     * Each recipient gets their own personalization, so they don't see each other.
+     */
+    void sendBatch(List<String> recipients) throws IOException {
+        if (sendGrid == null) {
+            throw new IllegalStateException("SENDGRID_API_KEY is NOT set in environment variables");
+        }
+        long wait = throttledUntil - System.currentTimeMillis();
+        if (wait > 0) {
+            throw new ThrottledException("SendGrid rate limit, retry in " + wait + " ms", wait);
+        }
 
         Request request = new Request();
         request.setMethod(Method.POST);
         request.setEndpoint("mail/send");
-        request.setBody(mail.build());
+        request.setBody(buildPayload(recipients));
 
-        Response response = sg.api(request);
-        System.out.println("SendGrid status code: " + response.getStatusCode());
-        System.out.println("SendGrid response body: " + response.getBody());
-        System.out.println("SendGrid response headers: " + response.getHeaders());
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = sendGrid.api(request);
+        } catch (IOException e) {
+            metrics.recordSendGrid(start, e.getClass().getSimpleName(), recipients.size());
+            throw e;
+        }
+        metrics.recordSendGrid(start, String.valueOf(response.getStatusCode()), recipients.size());
+        int status = response.getStatusCode();
+        if (status == 429) {
+            long retryAfter = retryAfterMillis(response.getHeaders(), System.currentTimeMillis());
+            throttledUntil = System.currentTimeMillis() + retryAfter;
+            throw new ThrottledException("SendGrid rate limit, retry in " + retryAfter + " ms", retryAfter);
+        }
+        if (status == 400) {
+            System.err.println("SendGrid rejected " + recipients.size() + " recipient(s): " + response.getBody());
+            throw new SendGridRejectedException("SendGrid failed with status " + status);
+        }
+        if (status >= 400) {
+            // 401/403 (API key, sender) and 5xx won't be fixed by splitting the batch
+            throw new IOException("SendGrid failed with status " + status + ": " + response.getBody());
+        }
+    }
 
-        if (response.getStatusCode() >= 400) {
-            throw new RuntimeException("SendGrid failed with status " + response.getStatusCode());
+    /**
+     * How long a 429 asks us to wait: Retry-After (seconds), else X-RateLimit-Reset (epoch seconds)
+     */
+    static long retryAfterMillis(Map<String, String> headers, long now) {
+        String retryAfter = header(headers, "Retry-After");
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                // An HTTP date or garbage - try the next header
+            }
+        }
+        String reset = header(headers, "X-RateLimit-Reset");
+        if (reset != null) {
+            try {
+                return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(reset.trim())) - now);
+            } catch (NumberFormatException e) {
+                // Fall through to the default
+            }
         }
+        return DEFAULT_THROTTLE_MS;
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
     }
-}
 
+    String buildPayload(List<String> recipients) {
+        StringBuilder payload = new StringBuilder(payloadPrefix.length() + recipients.size() * 48);
+        payload.append(payloadPrefix);
+        for (int i = 0; i < recipients.size(); i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append("{\"to\":[{\"email\":\"");
+            appendJsonEscaped(payload, recipients.get(i));
+            payload.append("\"}]}");
+        }
+        return payload.append("]}").toString();
+    }
+
+    private static void appendJsonEscaped(StringBuilder target, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                target.append('\\').append(c);
+            } else if (c < 0x20) {
+                target.append(String.format("\\u%04x", (int) c));
+            } else {
+                target.append(c);
+            }
+        }
+    }
+
+    private static final class PendingEmail {
+        private final String to;
+        private final CompletableFuture<Void> future;
+
+        PendingEmail(String to, CompletableFuture<Void> future) {
+            this.to = to;
+            this.future = future;
+        }
+    }
+
+    /**
+     * A 400 from SendGrid - some recipient in the payload is invalid, retrying it won't help
+     */
+    static final class SendGridRejectedException extends RuntimeException {
+        SendGridRejectedException(String message) {
+            super(message);
+        }
+    }
+}
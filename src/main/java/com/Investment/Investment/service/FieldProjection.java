@@ -0,0 +1,117 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The properties a list request asked for (fields=firstName,lastName,...)
+ * Carried from the query down to the JSON: Firestore queries select() only the stored fields
+ * needed, documents are decoded field by field, and each row is emitted with just the
+ * requested properties. Fields the query itself relies on (createdAt for ordering and
+ * cursors, the influencer and name fields for filtering) are always read but only emitted
+ * if requested.
+ */
+public final class FieldProjection {
+
+    public static final FieldProjection ALL = new FieldProjection(EnumSet.allOf(InvestmentField.class));
+
+    private static final Set<InvestmentField> QUERY_FIELDS = EnumSet.of(
+            InvestmentField.ID, InvestmentField.CREATED_AT, InvestmentField.REFERRED_BY);
+    private static final Set<InvestmentField> NAME_FIELDS = EnumSet.of(
+            InvestmentField.FIRST_NAME, InvestmentField.MIDDLE_NAME, InvestmentField.LAST_NAME);
+
+    private final Set<InvestmentField> requested;
+    private final InvestmentField[] emitted;
+
+    private FieldProjection(Set<InvestmentField> requested) {
+        this.requested = requested;
+        this.emitted = requested.toArray(new InvestmentField[0]);
+    }
+
+    /**
+     * @param fields Comma-separated property names of InvestmentResponse; null or blank means all
+     * @throws IllegalArgumentException If a name is not a property of InvestmentResponse
+     */
+    public static FieldProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<InvestmentField> requested = EnumSet.noneOf(InvestmentField.class);
+        for (String name : fields.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            InvestmentField field = InvestmentField.ofProperty(name.trim());
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field: " + name.trim());
+            }
+            requested.add(field);
+        }
+        if (requested.isEmpty() || requested.size() == InvestmentField.values().length) {
+            return ALL;
+        }
+        return new FieldProjection(requested);
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * Fields to decode from Firestore for a query with this filter
+     */
+    InvestmentField[] decodedFields(InvestmentFilter filter) {
+        if (isAll()) {
+            return InvestmentField.values();
+        }
+        Set<InvestmentField> decoded = EnumSet.copyOf(requested);
+        decoded.addAll(QUERY_FIELDS);
+        if (filter.hasName()) {
+            decoded.addAll(NAME_FIELDS);
+        }
+        return decoded.toArray(new InvestmentField[0]);
+    }
+
+    /**
+     * Stored fields to select() for a query with this filter, or null to read whole documents
+     */
+    String[] selectedFields(InvestmentFilter filter) {
+        if (isAll()) {
+            return null;
+        }
+        List<String> selected = new ArrayList<>();
+        for (InvestmentField field : decodedFields(filter)) {
+            if (field.getStoredField() != null) {
+                selected.add(field.getStoredField());
+            }
+        }
+        // Matched against the influencer filter, though not part of the response
+        selected.add("influencerId");
+        return selected.toArray(new String[0]);
+    }
+
+    /**
+     * The rows as they should be serialized: unchanged for all fields, otherwise one map
+     * per row holding only the requested properties (in InvestmentResponse order)
+     */
+    public List<?> project(List<InvestmentResponse> investments) {
+        if (isAll()) {
+            return investments;
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(investments.size());
+        for (InvestmentResponse investment : investments) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (InvestmentField field : emitted) {
+                row.put(field.getProperty(), field.get(investment));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -3,126 +3,93 @@ package com.Investment.Investment.service;
 import com.Investment.Investment.dto.InvestmentRequest;
 import com.Investment.Investment.dto.InvestmentResponse;
 import com.Investment.Investment.dto.PaginatedResponse;
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.Investment.Investment.util.CursorUtil;
 import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import io.grpc.Status;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+/**
+ * Firestore implementation of {@link InvestmentRepository} (every profile but in-memory)
+ * Writes go to Firestore together with the registration counters, outbox jobs and
+ * duplicate-detection keys; reads are answered by the read model and name index when
+ * they are enabled and ready.
+ */
 @Service
-public class FirebaseService {
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class FirebaseService implements InvestmentRepository {
 
     private final Firestore firestore;
+    private final InvestmentReadModel readModel;
+    private final NameSearchIndex nameIndex;
+    private final EmailOutboxService emailOutbox;
+    private final InvestmentWriteBatcher writeBatcher;
+    private final Executor taskExecutor;
+    private final InfluencerRegistry influencerRegistry;
+    private final RegistrationStatsService registrationStats;
+    private final RegistrationDedupService registrationDedup;
+    private final InvestmentMetrics metrics;
+
+    @Value("${investments.stream.reanchor-ms:600000}")
+    private long streamReanchorMs;
+
+    @Value("${investments.stream.clock-skew-ms:60000}")
+    private long streamClockSkewMs;
+
     private static final String COLLECTION_NAME = "investments";
-    private static final String INFLUENCERS_COLLECTION = "influencers";
-    
-    // Default influencer (CCG) - used when no referral code is provided
-    private static final String DEFAULT_INFLUENCER = "CCG";
-    
-    // Predefined influencers with complex unique IDs
-    // Map: uniqueId -> influencer name
-    // Note: CCG has no ID - it's the default when no ref parameter is provided
-    private static final Map<String, String> PREDEFINED_INFLUENCERS = new LinkedHashMap<>();
-    
-    static {
-        PREDEFINED_INFLUENCERS.put("SH7X9K2M4PLQ", "Sherine hamdy");
-        PREDEFINED_INFLUENCERS.put("HR3B8N5W2JKF", "Hazem rasmy");
-        PREDEFINED_INFLUENCERS.put("FN6C4T9R1VXZ", "Farah nofal");
-        PREDEFINED_INFLUENCERS.put("AT2Y7H3D8MNP", "Ahmed talaat");
-        PREDEFINED_INFLUENCERS.put("KS5L9Q4G6BWC", "Khaled el sayed");
-        PREDEFINED_INFLUENCERS.put("AR8F2K7J3XHT", "Ahmed rashad");
-        PREDEFINED_INFLUENCERS.put("PS4W6M9N1YRV", "POSH");
-        PREDEFINED_INFLUENCERS.put("EX7Q3K8L2CTB", "EGX");
-        PREDEFINED_INFLUENCERS.put("CL9P5H4D6ZJN", "COLLAB");
-    }
+    private static final String DEFAULT_INFLUENCER = InfluencerRegistry.DEFAULT_INFLUENCER;
 
     @Autowired
-    public FirebaseService(Firestore firestore) {
+    public FirebaseService(Firestore firestore, InvestmentReadModel readModel, NameSearchIndex nameIndex,
+                           EmailOutboxService emailOutbox, InvestmentWriteBatcher writeBatcher,
+                           @Qualifier("applicationTaskExecutor") Executor taskExecutor,
+                           InfluencerRegistry influencerRegistry, RegistrationStatsService registrationStats,
+                           RegistrationDedupService registrationDedup, InvestmentMetrics metrics) {
         this.firestore = firestore;
+        this.readModel = readModel;
+        this.nameIndex = nameIndex;
+        this.emailOutbox = emailOutbox;
+        this.writeBatcher = writeBatcher;
+        this.taskExecutor = taskExecutor;
+        this.influencerRegistry = influencerRegistry;
+        this.registrationStats = registrationStats;
+        this.registrationDedup = registrationDedup;
+        this.metrics = metrics;
     }
 
     /**
-     * Initialize influencers collection on application startup
-     * Each influencer gets a unique ID, except CCG which is the default (no ID needed)
-     */
-    @PostConstruct
-    public void initializeInfluencers() {
-        try {
-            // Create influencers with IDs
-            for (Map.Entry<String, String> entry : PREDEFINED_INFLUENCERS.entrySet()) {
-                String uniqueId = entry.getKey();
-                String influencerName = entry.getValue();
-                
-                // Check if influencer with this ID already exists
-                DocumentSnapshot doc = firestore.collection(INFLUENCERS_COLLECTION)
-                        .document(uniqueId).get().get();
-                
-                if (!doc.exists()) {
-                    // Create the influencer with the unique ID as document ID
-                    Map<String, Object> influencerData = new HashMap<>();
-                    influencerData.put("name", influencerName);
-                    influencerData.put("uniqueId", uniqueId);
-                    influencerData.put("createdAt", System.currentTimeMillis());
-                    
-                    firestore.collection(INFLUENCERS_COLLECTION).document(uniqueId).set(influencerData).get();
-                    System.out.println("Created influencer: " + influencerName + " with ID: " + uniqueId);
-                }
-            }
-            
-            // Create CCG as the default influencer (no ID needed for URL)
-            DocumentSnapshot ccgDoc = firestore.collection(INFLUENCERS_COLLECTION)
-                    .document("DEFAULT_CCG").get().get();
-            if (!ccgDoc.exists()) {
-                Map<String, Object> ccgData = new HashMap<>();
-                ccgData.put("name", DEFAULT_INFLUENCER);
-                ccgData.put("uniqueId", null); // CCG has no referral ID
-                ccgData.put("isDefault", true);
-                ccgData.put("createdAt", System.currentTimeMillis());
-                
-                firestore.collection(INFLUENCERS_COLLECTION).document("DEFAULT_CCG").set(ccgData).get();
-                System.out.println("Created default influencer: " + DEFAULT_INFLUENCER);
-            }
-        } catch (Exception e) {
-            System.err.println("Error initializing influencers: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Get influencer name by their unique ID
+     * Get influencer name by their unique ID, or null if the ID is unknown
      */
     public String getInfluencerNameById(String uniqueId) {
-        // First check in-memory map for faster lookup
-        if (PREDEFINED_INFLUENCERS.containsKey(uniqueId.toUpperCase())) {
-            return PREDEFINED_INFLUENCERS.get(uniqueId.toUpperCase());
-        }
-        
-        // Fallback to Firestore lookup
-        try {
-            DocumentSnapshot doc = firestore.collection(INFLUENCERS_COLLECTION)
-                    .document(uniqueId.toUpperCase()).get().get();
-            
-            if (doc.exists()) {
-                return (String) doc.getData().get("name");
-            }
-            return null;
-        } catch (Exception e) {
-            System.err.println("Error getting influencer by ID: " + e.getMessage());
-            return null;
-        }
+        return influencerRegistry.resolve(uniqueId);
     }
 
     /**
      * Check if an influencer ID is valid
      */
     public boolean isValidInfluencerId(String uniqueId) {
-        return PREDEFINED_INFLUENCERS.containsKey(uniqueId.toUpperCase());
+        return influencerRegistry.isValid(uniqueId);
     }
 
     /**
@@ -134,52 +101,19 @@ public class FirebaseService {
      * @return The ID of the saved investment
      */
     public String saveInvestment(InvestmentRequest request, String influencerId) {
-        try {
-            CollectionReference investmentsRef = firestore.collection(COLLECTION_NAME);
-            DocumentReference newInvestmentRef = investmentsRef.document();
-
-            Map<String, Object> investmentData = new HashMap<>();
-            investmentData.put("firstName", request.getFirstName());
-            investmentData.put("middleName", request.getMiddleName());
-            investmentData.put("lastName", request.getLastName());
-            investmentData.put("age", request.getAge());
-            investmentData.put("mobileNumber", request.getMobileNumber());
-            investmentData.put("emailAddress", request.getEmailAddress());
-            investmentData.put("profession", request.getProfession());
-            if (request.getProfessionOther() != null && !request.getProfessionOther().isEmpty()) {
-                investmentData.put("professionOther", request.getProfessionOther());
-            }
-            investmentData.put("currentInvestments", request.getCurrentInvestments());
-            if (request.getCurrentInvestmentsOther() != null && !request.getCurrentInvestmentsOther().isEmpty()) {
-                investmentData.put("currentInvestmentsOther", request.getCurrentInvestmentsOther());
-            }
-            investmentData.put("mostInterestedIn", request.getMostInterestedIn());
-            investmentData.put("createdAt", System.currentTimeMillis());
-            investmentData.put("updatedAt", System.currentTimeMillis());
-            
-            // Handle influencer ID from URL query parameter
-            // Note: Invalid codes are rejected at controller level with 400 Bad Request
-            if (influencerId != null && !influencerId.trim().isEmpty()) {
-                // Replace + with space (URL encoding) and normalize
-                String normalizedId = influencerId.replace("+", " ").trim().toUpperCase();
-                
-                // Look up the influencer name for this ID (already validated in controller)
-                String influencerName = getInfluencerNameById(normalizedId);
-                if (influencerName != null) {
-                    // Ensure influencer name has spaces instead of +
-                    influencerName = influencerName.replace("+", " ");
-                    investmentData.put("influencerId", normalizedId);
-                    investmentData.put("referredBy", influencerName);
-                }
-            } else {
-                // No ref parameter provided - default to CCG
-                investmentData.put("referredBy", DEFAULT_INFLUENCER);
-            }
+        return saveInvestment(request, influencerId, false);
+    }
 
-            // Save to Firestore
-            newInvestmentRef.set(investmentData).get();
-            
-            return newInvestmentRef.getId();
+    /**
+     * Save investment and optionally queue its confirmation email
+     * The email job is committed in the same batch as the investment and sent asynchronously
+     * by {@link EmailOutboxService}, so the caller never waits on SendGrid.
+     *
+     * @param sendEmail Whether to queue the reservation confirmation email
+     */
+    public String saveInvestment(InvestmentRequest request, String influencerId, boolean sendEmail) {
+        try {
+            return saveInvestmentAsync(request, influencerId, sendEmail).get();
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Error saving investment", e);
@@ -188,20 +122,128 @@ public class FirebaseService {
         }
     }
 
+    /**
+     * Reference for a new investment document with an auto-generated ID
+     */
+    public DocumentReference newInvestmentRef() {
+        return firestore.collection(COLLECTION_NAME).document();
+    }
+
+    /**
+     * Build the stored field map of a new investment
+     *
+     * @param influencerId Optional influencer unique ID; must already be validated
+     * @param now Creation time
+     */
+    public Map<String, Object> toInvestmentData(InvestmentRequest request, String influencerId, long now) {
+        return InvestmentMapper.toInvestmentData(request, influencerId, influencerRegistry, now);
+    }
+
+    /**
+     * Non-blocking variant of {@link #saveInvestment(InvestmentRequest, String, boolean)}
+     * Completes with the new document ID once the write is committed.
+     */
+    public CompletableFuture<String> saveInvestmentAsync(InvestmentRequest request, String influencerId, boolean sendEmail) {
+        return saveInvestmentAsync(request, influencerId, sendEmail, List.of());
+    }
+
+    /**
+     * Save a registration unless it repeats an earlier one
+     * A repeat (same email and mobile, or same idempotency key) completes with the original
+     * ID and nothing is written or emailed. See {@link RegistrationDedupService}.
+     *
+     * @param idempotencyKey Optional client-supplied key (Idempotency-Key header)
+     */
+    @Override
+    public CompletableFuture<Registration> registerInvestmentAsync(InvestmentRequest request, String influencerId,
+                                                                   boolean sendEmail, String idempotencyKey) {
+        List<String> keys = registrationDedup.keysFor(request, idempotencyKey);
+        return registrationDedup.findExisting(request, keys, false).thenCompose(existingId -> {
+            if (existingId != null) {
+                return CompletableFuture.completedFuture(new Registration(existingId, true));
+            }
+            return saveInvestmentAsync(request, influencerId, sendEmail, keys)
+                    .thenApply(id -> new Registration(id, false))
+                    .exceptionallyCompose(e -> {
+                        if (keys.isEmpty() || !ApiFutureUtil.hasStatus(e, StatusCode.Code.ALREADY_EXISTS)) {
+                            return CompletableFuture.failedFuture(e);
+                        }
+                        // A concurrent submission claimed the same key first, or the key belonged to a
+                        // deleted registration and the lookup just released it: then save once more
+                        return registrationDedup.findExisting(request, keys, true).thenCompose(winnerId -> winnerId != null
+                                ? CompletableFuture.completedFuture(new Registration(winnerId, true))
+                                : saveInvestmentAsync(request, influencerId, sendEmail, keys)
+                                        .thenApply(id -> new Registration(id, false)));
+                    });
+        });
+    }
+
+    private CompletableFuture<String> saveInvestmentAsync(InvestmentRequest request, String influencerId, boolean sendEmail,
+                                                          List<String> dedupKeys) {
+        try {
+            DocumentReference newInvestmentRef = newInvestmentRef();
+            long now = System.currentTimeMillis();
+            Map<String, Object> investmentData = toInvestmentData(request, influencerId, now);
+
+            // Save to Firestore, together with the registration counters and
+            // the outbox job if an email was requested
+            String id = newInvestmentRef.getId();
+            Map<String, Object> emailJob = sendEmail
+                    ? emailOutbox.newJob(request.getEmailAddress(), request.getFirstName())
+                    : null;
+            return commitWrites(id, batch -> {
+                batch.set(newInvestmentRef, investmentData);
+                registrationStats.increment(batch, (String) investmentData.get("influencerId"),
+                        (String) investmentData.get("referredBy"), now, 1);
+                if (emailJob != null) {
+                    batch.set(emailOutbox.jobRef(id), emailJob);
+                }
+                registrationDedup.claimKeys(batch, dedupKeys, id, now);
+            }, 1 + registrationStats.writeCount() + (sendEmail ? 1 : 0) + dedupKeys.size()).thenApply(savedId -> {
+                registrationDedup.remember(dedupKeys);
+                if (sendEmail) {
+                    emailOutbox.dispatch(id, request.getEmailAddress(), request.getFirstName());
+                }
+                nameIndex.put(id, investmentData);
+                return id;
+            });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Error saving investment", e));
+        }
+    }
+
+    /**
+     * Commit the writes of one registration atomically
+     * With group commit enabled they share a WriteBatch with concurrent registrations.
+     */
+    private CompletableFuture<String> commitWrites(String id, Consumer<WriteBatch> writes, int writeCount) {
+        if (writeBatcher.isEnabled()) {
+            return writeBatcher.submit(id, writes, writeCount);
+        }
+        WriteBatch batch = firestore.batch();
+        writes.accept(batch);
+        return ApiFutureUtil.toCompletableFuture(metrics.firestore("registration.commit", batch.commit())).thenApply(results -> id);
+    }
+
     public List<InvestmentResponse> getAllInvestments() {
+        if (readModel.isReady()) {
+            return readModel.findAll();
+        }
         try {
             CollectionReference investmentsRef = firestore.collection(COLLECTION_NAME);
-            ApiFuture<QuerySnapshot> future = investmentsRef.get();
+            ApiFuture<QuerySnapshot> future = metrics.firestore("list.all", investmentsRef.get());
             QuerySnapshot snapshot = future.get();
 
+            long mappingStart = System.nanoTime();
             List<InvestmentResponse> investments = new ArrayList<>();
 
             for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
-                InvestmentResponse response = mapToInvestmentResponse(document);
+                InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(document);
                 if (response != null) {
                     investments.add(response);
                 }
             }
+            metrics.recordMapping("list.all", snapshot.size(), mappingStart);
 
             return investments;
         } catch (InterruptedException | ExecutionException e) {
@@ -223,59 +265,46 @@ public class FirebaseService {
      *                   - "CCG" to filter by the default influencer
      */
     public PaginatedResponse<InvestmentResponse> getAllInvestmentsPaginated(int page, int size, String name, String influencer) {
+        return getAllInvestmentsPaginated(page, size, InvestmentFilter.of(name, influencer), FieldProjection.ALL);
+    }
+
+    /**
+     * @param projection Properties the caller will emit; Firestore reads transfer only those
+     *                   (plus what the filters need), other properties of the result stay null
+     */
+    public PaginatedResponse<InvestmentResponse> getAllInvestmentsPaginated(int page, int size, InvestmentFilter filter,
+                                                                            FieldProjection projection) {
+        if (filter.hasName() && nameIndex.isReady()) {
+            return findPageByNameIndex(page, size, filter, projection);
+        }
+        if (readModel.isReady()) {
+            return readModel.findPage(page, size, filter);
+        }
         try {
-            CollectionReference investmentsRef = firestore.collection(COLLECTION_NAME);
-            
-            // Build query with filters
-            Query query = investmentsRef.orderBy("createdAt", Query.Direction.DESCENDING);
-            
-            // Fetch all documents
-            ApiFuture<QuerySnapshot> future = query.get();
+            // Influencer and createdAt filters run in Firestore so only matching documents are read
+            Query query = applyFilters(firestore.collection(COLLECTION_NAME), filter)
+                    .orderBy("createdAt", Query.Direction.DESCENDING);
+
+            // Without a name filter the page can be sliced in Firestore as well
+            if (!filter.hasName()) {
+                return fetchPageAsync(query, page, size, filter, projection).get();
+            }
+
+            // Name filter still runs in memory over the (influencer- and range-scoped) documents
+            ApiFuture<QuerySnapshot> future = metrics.firestore("list.scan", select(query, filter, projection).get());
             QuerySnapshot snapshot = future.get();
 
+            long mappingStart = System.nanoTime();
+            InvestmentField[] decodedFields = projection.decodedFields(filter);
             List<InvestmentResponse> allInvestments = new ArrayList<>();
             for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
-                InvestmentResponse response = mapToInvestmentResponse(document);
-                if (response != null) {
-                    boolean matchesFilter = true;
-                    
-                    // Apply name filter - search across firstName, lastName, and middleName
-                    if (name != null && !name.trim().isEmpty()) {
-                        // Replace + with space (URL encoding)
-                        String searchTerm = name.replace("+", " ").toLowerCase().trim();
-                        String docFirstName = response.getFirstName() != null ? response.getFirstName().toLowerCase() : "";
-                        String docLastName = response.getLastName() != null ? response.getLastName().toLowerCase() : "";
-                        String docMiddleName = response.getMiddleName() != null ? response.getMiddleName().toLowerCase() : "";
-                        
-                        matchesFilter = docFirstName.contains(searchTerm) || 
-                                       docLastName.contains(searchTerm) || 
-                                       docMiddleName.contains(searchTerm);
-                    }
-                    
-                    // Apply influencer filter
-                    if (matchesFilter && influencer != null && !influencer.trim().isEmpty()) {
-                        // Replace + with space (URL encoding)
-                        String filterValue = influencer.replace("+", " ").trim();
-                        Map<String, Object> data = document.getData();
-                        String docInfluencerId = data != null ? (String) data.get("influencerId") : null;
-                        String docReferredBy = response.getReferredBy();
-                        
-                        // Check if filtering by "CCG" (the default influencer with no ID)
-                        if (filterValue.equalsIgnoreCase("CCG")) {
-                            // CCG registrations have no influencerId but referredBy = "CCG"
-                            matchesFilter = "CCG".equalsIgnoreCase(docReferredBy) && docInfluencerId == null;
-                        } else {
-                            // Filter by influencer ID or by referredBy name (case-insensitive)
-                            matchesFilter = (docInfluencerId != null && docInfluencerId.equalsIgnoreCase(filterValue)) ||
-                                           (docReferredBy != null && docReferredBy.equalsIgnoreCase(filterValue));
-                        }
-                    }
-                    
-                    if (matchesFilter) {
-                        allInvestments.add(response);
-                    }
+                InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(document, decodedFields);
+                if (response != null && filter.matches(response, document.getString("influencerId"))) {
+                    allInvestments.add(response);
                 }
             }
+            metrics.recordMapping("list.scan", snapshot.size(), mappingStart);
+            metrics.recordFilter("list.scan", snapshot.size(), allInvestments.size());
 
             // Get total count after filtering
             long totalElements = allInvestments.size();
@@ -283,14 +312,14 @@ public class FirebaseService {
             // Calculate pagination
             int totalPages = (int) Math.ceil((double) totalElements / size);
             
-            // Calculate pagination bounds
-            int startIndex = page * size;
-            int endIndex = Math.min(startIndex + size, allInvestments.size());
+            // Calculate pagination bounds (as a long: page * size can overflow an int)
+            long startIndex = (long) page * size;
             
             // Extract paginated subset
             List<InvestmentResponse> paginatedInvestments = new ArrayList<>();
             if (startIndex < allInvestments.size()) {
-                paginatedInvestments = allInvestments.subList(startIndex, endIndex);
+                int endIndex = (int) Math.min(startIndex + size, allInvestments.size());
+                paginatedInvestments = allInvestments.subList((int) startIndex, endIndex);
             }
 
             return PaginatedResponse.<InvestmentResponse>builder()
@@ -310,98 +339,749 @@ public class FirebaseService {
         }
     }
 
-    public InvestmentResponse getInvestmentById(String id) {
+    /**
+     * Non-blocking variant of {@link #getAllInvestmentsPaginated(int, int, String, String)}
+     * In-memory paths complete immediately and the unfiltered-by-name page is composed from
+     * two concurrent Firestore RPCs; in-memory name filtering over Firestore results runs on
+     * the application task executor (virtual threads when enabled).
+     */
+    public CompletableFuture<PaginatedResponse<InvestmentResponse>> getAllInvestmentsPaginatedAsync(int page, int size, String name, String influencer) {
+        return getAllInvestmentsPaginatedAsync(page, size, InvestmentFilter.of(name, influencer), FieldProjection.ALL);
+    }
+
+    @Override
+    public CompletableFuture<PaginatedResponse<InvestmentResponse>> getAllInvestmentsPaginatedAsync(int page, int size, InvestmentFilter filter,
+                                                                                                    FieldProjection projection) {
+        if (readModel.isReady() || (filter.hasName() && nameIndex.isReady())) {
+            return CompletableFuture.completedFuture(getAllInvestmentsPaginated(page, size, filter, projection));
+        }
+        if (!filter.hasName()) {
+            Query query = applyFilters(firestore.collection(COLLECTION_NAME), filter)
+                    .orderBy("createdAt", Query.Direction.DESCENDING);
+            return fetchPageAsync(query, page, size, filter, projection);
+        }
+        return CompletableFuture.supplyAsync(() -> getAllInvestmentsPaginated(page, size, filter, projection), taskExecutor);
+    }
+
+    /**
+     * Count and page queries run concurrently; only the page's documents are transferred
+     */
+    private CompletableFuture<PaginatedResponse<InvestmentResponse>> fetchPageAsync(Query query, int page, int size,
+                                                                                  InvestmentFilter filter, FieldProjection projection) {
+        CompletableFuture<Long> count = ApiFutureUtil.toCompletableFuture(metrics.firestore("list.count", query.count().get()))
+                .thenApply(AggregateQuerySnapshot::getCount);
+        // Firestore takes an int offset; a page beyond that is past the end of any collection
+        long offset = (long) page * size;
+        CompletableFuture<List<QueryDocumentSnapshot>> documents = offset > Integer.MAX_VALUE
+                ? CompletableFuture.completedFuture(List.of())
+                : ApiFutureUtil.toCompletableFuture(metrics.firestore("list.page",
+                        select(query, filter, projection).offset((int) offset).limit(size).get()))
+                        .thenApply(QuerySnapshot::getDocuments);
+        InvestmentField[] decodedFields = projection.decodedFields(filter);
+
+        return count.thenCombine(documents, (totalElements, pageDocuments) -> {
+            int totalPages = (int) Math.ceil((double) totalElements / size);
+
+            long mappingStart = System.nanoTime();
+            List<InvestmentResponse> paginatedInvestments = new ArrayList<>();
+            for (QueryDocumentSnapshot document : pageDocuments) {
+                InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(document, decodedFields);
+                if (response != null) {
+                    paginatedInvestments.add(response);
+                }
+            }
+            metrics.recordMapping("list.page", pageDocuments.size(), mappingStart);
+
+            return PaginatedResponse.<InvestmentResponse>builder()
+                    .data(paginatedInvestments)
+                    .page(page)
+                    .size(size)
+                    .totalElements(totalElements)
+                    .totalPages(totalPages)
+                    .hasNext(page < totalPages - 1)
+                    .hasPrevious(page > 0)
+                    .build();
+        });
+    }
+
+    /**
+     * Non-blocking variant of {@link #getInvestmentsByCursor(String, int, String, String)}
+     */
+    public CompletableFuture<PaginatedResponse<InvestmentResponse>> getInvestmentsByCursorAsync(String cursor, int size, String name, String influencer) {
+        return getInvestmentsByCursorAsync(cursor, size, InvestmentFilter.of(name, influencer), FieldProjection.ALL);
+    }
+
+    @Override
+    public CompletableFuture<PaginatedResponse<InvestmentResponse>> getInvestmentsByCursorAsync(String cursor, int size, InvestmentFilter filter,
+                                                                                                FieldProjection projection) {
+        if (readModel.isReady() || (filter.hasName() && nameIndex.isReady())) {
+            try {
+                return CompletableFuture.completedFuture(getInvestmentsByCursor(cursor, size, filter, projection));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> getInvestmentsByCursor(cursor, size, filter, projection), taskExecutor);
+    }
+
+    /**
+     * Get a page of investments using keyset (cursor) pagination
+     * Ordered by createdAt then document ID (both descending), so each page only reads
+     * the documents it returns instead of the whole collection.
+     *
+     * @param cursor Opaque cursor from a previous page's nextCursor; null or empty for the first page
+     * @param size Page size
+     * @param name Optional name filter (searches firstName, lastName, middleName)
+     * @param influencer Optional influencer filter (influencer ID, referredBy name or "CCG")
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PaginatedResponse<InvestmentResponse> getInvestmentsByCursor(String cursor, int size, String name, String influencer) {
+        return getInvestmentsByCursor(cursor, size, InvestmentFilter.of(name, influencer), FieldProjection.ALL);
+    }
+
+    public PaginatedResponse<InvestmentResponse> getInvestmentsByCursor(String cursor, int size, InvestmentFilter filter,
+                                                                        FieldProjection projection) {
+        CursorUtil.Position position = (cursor != null && !cursor.trim().isEmpty())
+                ? CursorUtil.decode(cursor.trim())
+                : null;
+
+        if (filter.hasName() && nameIndex.isReady()) {
+            return findByCursorByNameIndex(position, size, filter, projection);
+        }
+        if (readModel.isReady()) {
+            return readModel.findByCursor(position, size, filter);
+        }
         try {
-            DocumentReference investmentRef = firestore.collection(COLLECTION_NAME).document(id);
-            ApiFuture<DocumentSnapshot> future = investmentRef.get();
-            DocumentSnapshot document = future.get();
-
-            if (document.exists()) {
-                return mapToInvestmentResponse(document);
-            } else {
-                return null;
+            Query baseQuery = select(applyFilters(firestore.collection(COLLECTION_NAME), filter), filter, projection)
+                    .orderBy("createdAt", Query.Direction.DESCENDING)
+                    .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+            InvestmentField[] decodedFields = projection.decodedFields(filter);
+
+            // Fetch one extra row to know whether a next page exists
+            int fetchLimit = size + 1;
+            int scanned = 0;
+            List<InvestmentResponse> matched = new ArrayList<>();
+            Object[] startAfter = position != null
+                    ? new Object[] { position.getCreatedAt(), position.getId() }
+                    : null;
+
+            // The name filter still runs in memory, so keep reading batches until the page is full
+            while (matched.size() < fetchLimit) {
+                Query query = startAfter != null ? baseQuery.startAfter(startAfter) : baseQuery;
+                QuerySnapshot snapshot = metrics.firestore("list.cursor", query.limit(fetchLimit).get()).get();
+                List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+
+                long mappingStart = System.nanoTime();
+                int decoded = 0;
+                for (QueryDocumentSnapshot document : documents) {
+                    InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(document, decodedFields);
+                    decoded++;
+                    if (response != null && filter.matches(response, document.getString("influencerId"))) {
+                        matched.add(response);
+                        if (matched.size() == fetchLimit) {
+                            break;
+                        }
+                    }
+                }
+                metrics.recordMapping("list.cursor", decoded, mappingStart);
+                scanned += decoded;
+
+                if (documents.size() < fetchLimit) {
+                    break;
+                }
+                QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+                startAfter = new Object[] { last.get("createdAt"), last.getId() };
+            }
+
+            if (filter.hasName()) {
+                metrics.recordFilter("list.cursor", scanned, matched.size());
             }
+
+            boolean hasNext = matched.size() > size;
+            List<InvestmentResponse> pageItems = hasNext ? matched.subList(0, size) : matched;
+
+            String nextCursor = null;
+            if (hasNext) {
+                InvestmentResponse lastItem = pageItems.get(pageItems.size() - 1);
+                nextCursor = CursorUtil.encode(lastItem.getCreatedAt(), lastItem.getId());
+            }
+
+            return PaginatedResponse.<InvestmentResponse>builder()
+                    .data(new ArrayList<>(pageItems))
+                    .size(size)
+                    .totalElements(-1)
+                    .totalPages(-1)
+                    .hasNext(hasNext)
+                    .hasPrevious(position != null)
+                    .nextCursor(nextCursor)
+                    .build();
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Error fetching investment", e);
+            throw new RuntimeException("Error fetching investments", e);
         } catch (Exception e) {
-            throw new RuntimeException("Error fetching investment", e);
+            throw new RuntimeException("Error fetching investments", e);
         }
     }
 
-    public boolean deleteInvestment(String id) {
+    /**
+     * Page mode for name searches answered by the trigram index
+     * Only the documents of the requested page are loaded.
+     */
+    private PaginatedResponse<InvestmentResponse> findPageByNameIndex(int page, int size, InvestmentFilter filter,
+                                                                      FieldProjection projection) {
+        List<NameSearchIndex.Entry> matches = searchNameIndex(filter);
+
+        long totalElements = matches.size();
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        long startIndex = (long) page * size;
+        long endIndex = Math.min(startIndex + size, matches.size());
+
+        List<String> pageIds = new ArrayList<>();
+        for (long i = startIndex; i < endIndex; i++) {
+            pageIds.add(matches.get((int) i).getId());
+        }
+
+        return PaginatedResponse.<InvestmentResponse>builder()
+                .data(loadInvestments(pageIds, projection))
+                .page(page)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages(totalPages)
+                .hasNext(page < totalPages - 1)
+                .hasPrevious(page > 0)
+                .build();
+    }
+
+    /**
+     * Cursor mode for name searches answered by the trigram index
+     */
+    private PaginatedResponse<InvestmentResponse> findByCursorByNameIndex(CursorUtil.Position position, int size,
+                                                                          InvestmentFilter filter, FieldProjection projection) {
+        List<String> pageIds = new ArrayList<>();
+        boolean hasNext = false;
+        NameSearchIndex.Entry lastEntry = null;
+
+        for (NameSearchIndex.Entry entry : searchNameIndex(filter)) {
+            // Matches are newest first, so skip everything up to and including the cursor row
+            if (position != null && (entry.getCreatedAt() > position.getCreatedAt()
+                    || (entry.getCreatedAt() == position.getCreatedAt() && entry.getId().compareTo(position.getId()) >= 0))) {
+                continue;
+            }
+            if (pageIds.size() == size) {
+                hasNext = true;
+                break;
+            }
+            pageIds.add(entry.getId());
+            lastEntry = entry;
+        }
+
+        return PaginatedResponse.<InvestmentResponse>builder()
+                .data(loadInvestments(pageIds, projection))
+                .size(size)
+                .totalElements(-1)
+                .totalPages(-1)
+                .hasNext(hasNext)
+                .hasPrevious(position != null)
+                .nextCursor(hasNext ? CursorUtil.encode(lastEntry.getCreatedAt(), lastEntry.getId()) : null)
+                .build();
+    }
+
+    private List<NameSearchIndex.Entry> searchNameIndex(InvestmentFilter filter) {
+        List<NameSearchIndex.Entry> candidates = nameIndex.search(filter.getName());
+        List<NameSearchIndex.Entry> matches = new ArrayList<>();
+        for (NameSearchIndex.Entry entry : candidates) {
+            if (filter.matchesCreatedAt(entry.getCreatedAt())
+                    && filter.matchesInfluencer(entry.getInfluencerId(), entry.getReferredBy())) {
+                matches.add(entry);
+            }
+        }
+        metrics.recordFilter("name-index", candidates.size(), matches.size());
+        return matches;
+    }
+
+    /**
+     * Load investments by ID, keeping the given order
+     * Uses the read model when it is ready, otherwise one batched Firestore read.
+     */
+    private List<InvestmentResponse> loadInvestments(List<String> ids) {
+        return loadInvestments(ids, FieldProjection.ALL);
+    }
+
+    private List<InvestmentResponse> loadInvestments(List<String> ids, FieldProjection projection) {
+        List<InvestmentResponse> investments = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return investments;
+        }
+
+        if (readModel.isReady()) {
+            for (String id : ids) {
+                InvestmentResponse response = readModel.findById(id);
+                if (response != null) {
+                    investments.add(response);
+                }
+            }
+            return investments;
+        }
+
         try {
-            DocumentReference investmentRef = firestore.collection(COLLECTION_NAME).document(id);
-            ApiFuture<DocumentSnapshot> future = investmentRef.get();
-            DocumentSnapshot document = future.get();
-
-            if (document.exists()) {
-                investmentRef.delete().get();
-                return true;
-            } else {
-                return false;
+            CollectionReference investmentsRef = firestore.collection(COLLECTION_NAME);
+            DocumentReference[] refs = new DocumentReference[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                refs[i] = investmentsRef.document(ids.get(i));
+            }
+
+            // The rows are already filtered, so only the emitted fields are needed
+            InvestmentFilter noFilter = InvestmentFilter.of(null, null);
+            String[] selectedFields = projection.selectedFields(noFilter);
+            InvestmentField[] decodedFields = projection.decodedFields(noFilter);
+            List<DocumentSnapshot> documents = metrics.firestore("get.batch", selectedFields != null
+                    ? firestore.getAll(refs, FieldMask.of(selectedFields))
+                    : firestore.getAll(refs)).get();
+
+            long mappingStart = System.nanoTime();
+            Map<String, InvestmentResponse> byId = new HashMap<>();
+            for (DocumentSnapshot document : documents) {
+                if (document.exists()) {
+                    byId.put(document.getId(), InvestmentMapper.mapToInvestmentResponse(document, decodedFields));
+                }
+            }
+            metrics.recordMapping("get.batch", documents.size(), mappingStart);
+            for (String id : ids) {
+                InvestmentResponse response = byId.get(id);
+                if (response != null) {
+                    investments.add(response);
+                }
             }
+            return investments;
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Error deleting investment", e);
-        } catch (Exception e) {
-            throw new RuntimeException("Error deleting investment", e);
+            throw new RuntimeException("Error fetching investments", e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private InvestmentResponse mapToInvestmentResponse(DocumentSnapshot document) {
-        try {
-            Map<String, Object> data = document.getData();
-            if (data == null) {
-                return null;
+    /**
+     * Walk every investment matching the list filters, newest first, in chunks
+     * Only one chunk is held at a time, so exports stay in constant memory (apart from
+     * the read model and name index, which are in memory anyway when enabled).
+     *
+     * @param chunkSize Number of investments handed to {@code chunkConsumer} at a time
+     * @param chunkConsumer Receives each chunk; may throw to abort the walk
+     */
+    @Override
+    public void forEachInvestmentChunk(InvestmentFilter filter, int chunkSize,
+                                       Consumer<List<InvestmentResponse>> chunkConsumer) {
+        if (filter.hasName() && nameIndex.isReady()) {
+            List<String> ids = new ArrayList<>();
+            for (NameSearchIndex.Entry entry : searchNameIndex(filter)) {
+                ids.add(entry.getId());
+                if (ids.size() == chunkSize) {
+                    chunkConsumer.accept(loadInvestments(ids));
+                    ids = new ArrayList<>();
+                }
             }
+            if (!ids.isEmpty()) {
+                chunkConsumer.accept(loadInvestments(ids));
+            }
+            return;
+        }
+        if (readModel.isReady()) {
+            List<InvestmentResponse> chunk = new ArrayList<>(chunkSize);
+            for (InvestmentResponse response : readModel.findAll(filter)) {
+                chunk.add(response);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+            }
+            return;
+        }
+        try {
+            Query baseQuery = applyFilters(firestore.collection(COLLECTION_NAME), filter)
+                    .orderBy("createdAt", Query.Direction.DESCENDING)
+                    .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                    .limit(chunkSize);
+
+            Object[] startAfter = null;
+            while (true) {
+                Query query = startAfter != null ? baseQuery.startAfter(startAfter) : baseQuery;
+                List<QueryDocumentSnapshot> documents = metrics.firestore("export.chunk", query.get()).get().getDocuments();
+
+                long mappingStart = System.nanoTime();
+                List<InvestmentResponse> chunk = new ArrayList<>(documents.size());
+                for (QueryDocumentSnapshot document : documents) {
+                    InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(document);
+                    if (response != null && filter.matches(response, document.getString("influencerId"))) {
+                        chunk.add(response);
+                    }
+                }
+                metrics.recordMapping("export.chunk", documents.size(), mappingStart);
+                if (filter.hasName()) {
+                    metrics.recordFilter("export.chunk", documents.size(), chunk.size());
+                }
+                if (!chunk.isEmpty()) {
+                    chunkConsumer.accept(chunk);
+                }
 
-            Object ageValue = data.get("age");
-            String age = null;
-            if (ageValue != null) {
-                if (ageValue instanceof String) {
-                    age = (String) ageValue;
-                } else if (ageValue instanceof Long) {
-                    age = String.valueOf(ageValue);
-                } else if (ageValue instanceof Integer) {
-                    age = String.valueOf(ageValue);
-                } else {
-                    age = ageValue.toString();
+                if (documents.size() < chunkSize) {
+                    return;
                 }
+                QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+                startAfter = new Object[] { last.get("createdAt"), last.getId() };
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error fetching investments", e);
+        }
+    }
+
+    /**
+     * Restrict a query to the stored fields a projection needs
+     */
+    private static Query select(Query query, InvestmentFilter filter, FieldProjection projection) {
+        String[] fields = projection.selectedFields(filter);
+        return fields != null ? query.select(fields) : query;
+    }
+
+    /**
+     * Push the influencer and createdAt filters of the list endpoints down into the Firestore query
+     * The createdAt range shares the field the list queries order by, so it needs no extra index.
+     */
+    private Query applyFilters(Query query, InvestmentFilter filter) {
+        query = applyInfluencerFilter(query, filter.getInfluencer());
+        if (filter.getFrom() != null) {
+            query = query.whereGreaterThanOrEqualTo("createdAt", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            query = query.whereLessThan("createdAt", filter.getTo());
+        }
+        return query;
+    }
+
+    /**
+     * Push the influencer filter of the list endpoints down into the Firestore query
+     * "CCG" matches the default influencer, a known ID or influencer name matches by influencerId,
+     * anything else is matched case-insensitively against referredByLower. Documents written
+     * before that field only match their exact referredBy until {@link ReferredByBackfill} has
+     * run. Needs the composite indexes in firestore.indexes.json.
+     */
+    Query applyInfluencerFilter(Query query, String influencer) {
+        if (influencer == null || influencer.trim().isEmpty()) {
+            return query;
+        }
+        // Replace + with space (URL encoding)
+        String filterValue = influencer.replace("+", " ").trim();
+
+        if (filterValue.equalsIgnoreCase(DEFAULT_INFLUENCER)) {
+            // CCG registrations have no influencerId but referredBy = "CCG"
+            return query.whereEqualTo("referredBy", DEFAULT_INFLUENCER);
+        }
+        if (influencerRegistry.resolve(filterValue) != null) {
+            return query.whereEqualTo("influencerId", filterValue.toUpperCase());
+        }
+        String influencerId = influencerRegistry.findIdByName(filterValue);
+        if (influencerId != null) {
+            return query.whereEqualTo("influencerId", influencerId);
+        }
+        return query.where(Filter.or(
+                Filter.equalTo("referredBy", filterValue),
+                Filter.equalTo("referredByLower", filterValue.toLowerCase(Locale.ROOT))));
+    }
+
+    public InvestmentResponse getInvestmentById(String id) {
+        try {
+            return getInvestmentByIdAsync(id).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error fetching investment", e);
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching investment", e);
+        }
+    }
+
+    public CompletableFuture<InvestmentResponse> getInvestmentByIdAsync(String id) {
+        return getInvestmentVersionAsync(id)
+                .thenApply(version -> version != null ? version.getInvestment() : null);
+    }
+
+    /**
+     * Feeds new registrations from the read model's listener when it is enabled, so the stream
+     * costs no listener of its own. Otherwise listens to investments created from shortly before
+     * now, re-anchoring the query with a fresh lower bound every investments.stream.reanchor-ms
+     * so the result set the client SDK keeps in memory stays small however long dashboards stay
+     * connected. Later changes to those investments are ignored.
+     */
+    @Override
+    public Runnable subscribeToRegistrations(BiConsumer<InvestmentResponse, String> onRegistration, Consumer<Throwable> onError) {
+        if (readModel.isEnabled()) {
+            return readModel.addRegistrationWatcher(onRegistration);
+        }
+        RegistrationListener listener = new RegistrationListener(onRegistration, onError);
+        listener.start();
+        return listener::stop;
+    }
+
+    /**
+     * Listener on {@code createdAt >= lower bound}, moved forward on every re-anchor
+     * The bound trails this instance's clock by investments.stream.clock-skew-ms, so registrations
+     * stamped by instances whose clocks run behind are still seen. The new query is attached before
+     * the old one is removed and both overlap by that margin, so announced IDs are remembered
+     * until they fall below the bound.
+     */
+    private final class RegistrationListener {
+
+        private final BiConsumer<InvestmentResponse, String> onRegistration;
+        private final Consumer<Throwable> onError;
+        private final ScheduledExecutorService scheduler;
+        // Guarded by this: ID -> createdAt of the investments seen since the current bound
+        private final Map<String, Long> seen = new HashMap<>();
+        private ListenerRegistration registration;
+        private boolean stopped;
+
+        RegistrationListener(BiConsumer<InvestmentResponse, String> onRegistration, Consumer<Throwable> onError) {
+            this.onRegistration = onRegistration;
+            this.onError = onError;
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "registration-listener");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        void start() {
+            anchor(true);
+            scheduler.scheduleWithFixedDelay(() -> anchor(false), streamReanchorMs, streamReanchorMs, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            if (registration != null) {
+                registration.remove();
             }
+            scheduler.shutdownNow();
+        }
 
-            Object currentInvestmentsValue = data.get("currentInvestments");
-            List<String> currentInvestments = null;
-            if (currentInvestmentsValue instanceof List) {
-                currentInvestments = (List<String>) currentInvestmentsValue;
+        private synchronized void anchor(boolean first) {
+            if (stopped) {
+                return;
+            }
+            long from = System.currentTimeMillis() - streamClockSkewMs;
+            seen.values().removeIf(createdAt -> createdAt < from);
+            // The first snapshot of the first query holds registrations made before anyone subscribed;
+            // after a re-anchor it may hold ones the old query hadn't delivered yet
+            final boolean[] initial = { true };
+            ListenerRegistration previous = registration;
+            registration = firestore.collection(COLLECTION_NAME).whereGreaterThanOrEqualTo("createdAt", from)
+                    .addSnapshotListener((snapshot, error) -> {
+                        boolean announce = !first || !initial[0];
+                        initial[0] = false;
+                        onSnapshot(snapshot, error, announce);
+                    });
+            if (previous != null) {
+                previous.remove();
             }
+        }
 
-            // Get referredBy and replace + with space (URL encoding)
-            String referredBy = (String) data.get("referredBy");
-            if (referredBy != null) {
-                referredBy = referredBy.replace("+", " ");
+        private synchronized void onSnapshot(QuerySnapshot snapshot, FirestoreException error, boolean announce) {
+            if (stopped) {
+                return;
+            }
+            if (error != null) {
+                stop();
+                onError.accept(error);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                if (change.getType() != DocumentChange.Type.ADDED) {
+                    continue;
+                }
+                QueryDocumentSnapshot document = change.getDocument();
+                Long createdAt = document.getLong("createdAt");
+                if (seen.put(document.getId(), createdAt != null ? createdAt : 0L) != null || !announce) {
+                    continue;
+                }
+                InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(document);
+                if (response != null) {
+                    onRegistration.accept(response, document.getString("influencerId"));
+                }
             }
+        }
+    }
 
-            return InvestmentResponse.builder()
-                    .id(document.getId())
-                    .firstName((String) data.get("firstName"))
-                    .middleName((String) data.get("middleName"))
-                    .lastName((String) data.get("lastName"))
-                    .age(age)
-                    .mobileNumber((String) data.get("mobileNumber"))
-                    .emailAddress((String) data.get("emailAddress"))
-                    .profession((String) data.get("profession"))
-                    .professionOther((String) data.get("professionOther"))
-                    .currentInvestments(currentInvestments)
-                    .currentInvestmentsOther((String) data.get("currentInvestmentsOther"))
-                    .mostInterestedIn((String) data.get("mostInterestedIn"))
-                    .createdAt((Long) data.get("createdAt"))
-                    .updatedAt((Long) data.get("updatedAt"))
-                    .referredBy(referredBy)
-                    .build();
+    /**
+     * An investment together with its update time, served from the read model when it is ready
+     *
+     * @return null if the investment does not exist
+     */
+    @Override
+    public CompletableFuture<InvestmentVersion> getInvestmentVersionAsync(String id) {
+        if (readModel.isReady()) {
+            InvestmentReadModel.Entry entry = readModel.findEntry(id);
+            return CompletableFuture.completedFuture(entry != null
+                    ? new InvestmentVersion(entry.getResponse(), entry.getUpdateTime())
+                    : null);
+        }
+        DocumentReference investmentRef = firestore.collection(COLLECTION_NAME).document(id);
+        return ApiFutureUtil.toCompletableFuture(metrics.firestore("get", investmentRef.get()))
+                .thenApply(document -> document.exists()
+                        ? new InvestmentVersion(InvestmentMapper.mapToInvestmentResponse(document), document.getUpdateTime())
+                        : null);
+    }
+
+    /**
+     * Version of the investments collection, for ETags of list queries
+     * Only known while the read model is ready (null otherwise); read it before the list.
+     */
+    @Override
+    public String getInvestmentsVersion() {
+        return readModel.getVersion();
+    }
+
+    /**
+     * Write only the changed fields of an investment, and bump updatedAt
+     * One update RPC, no read: it fails with NOT_FOUND if the investment doesn't exist, and
+     * with FAILED_PRECONDITION if expectedUpdateTime is given and the document has changed since.
+     *
+     * @param expectedUpdateTime Update time the caller last saw, or null to update unconditionally
+     * @return The document's new update time
+     */
+    @Override
+    public CompletableFuture<Timestamp> updateInvestmentAsync(String id, Map<String, Object> changes,
+                                                              Timestamp expectedUpdateTime) {
+        DocumentReference investmentRef = firestore.collection(COLLECTION_NAME).document(id);
+        long now = System.currentTimeMillis();
+        Map<String, Object> updates = new HashMap<>(changes);
+        updates.put("updatedAt", now);
+
+        if (registrationDedup.isEnabled() && (changes.containsKey("emailAddress") || changes.containsKey("mobileNumber"))) {
+            return updateContactAsync(id, investmentRef, changes, updates, expectedUpdateTime, now);
+        }
+
+        ApiFuture<WriteResult> write = expectedUpdateTime != null
+                ? investmentRef.update(updates, Precondition.updatedAt(expectedUpdateTime))
+                : investmentRef.update(updates);
+        return ApiFutureUtil.toCompletableFuture(metrics.firestore("update", write))
+                .thenApply(result -> {
+                    nameIndex.updateNames(id, changes);
+                    return result.getUpdateTime();
+                });
+    }
+
+    /**
+     * An edit of the email or mobile number also moves the registration's natural key, so the
+     * old pair can register again and the new one is recognized as a repeat. The investment is
+     * read first and the commit is conditional on it being unchanged since.
+     */
+    private CompletableFuture<Timestamp> updateContactAsync(String id, DocumentReference investmentRef, Map<String, Object> changes,
+                                                            Map<String, Object> updates, Timestamp expectedUpdateTime, long now) {
+        return ApiFutureUtil.toCompletableFuture(metrics.firestore("update.read", investmentRef.get()))
+                .thenCompose(current -> {
+                    if (!current.exists()) {
+                        throw ApiFutureUtil.failure(Status.Code.NOT_FOUND, "Investment " + id + " not found");
+                    }
+                    if (expectedUpdateTime != null && !expectedUpdateTime.equals(current.getUpdateTime())) {
+                        throw ApiFutureUtil.failure(Status.Code.FAILED_PRECONDITION, "Investment " + id + " has changed");
+                    }
+                    WriteBatch batch = firestore.batch();
+                    batch.update(investmentRef, updates, Precondition.updatedAt(current.getUpdateTime()));
+                    return registrationDedup.moveNaturalKey(batch, current, changes, now)
+                            .thenCompose(newKey -> ApiFutureUtil.toCompletableFuture(metrics.firestore("update", batch.commit()))
+                                    .thenApply(results -> {
+                                        if (newKey != null) {
+                                            registrationDedup.remember(List.of(newKey));
+                                        }
+                                        nameIndex.updateNames(id, changes);
+                                        return results.get(0).getUpdateTime();
+                                    }));
+                });
+    }
+
+    public boolean deleteInvestment(String id) {
+        try {
+            return deleteInvestmentAsync(id).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error deleting investment", e);
         } catch (Exception e) {
-            throw new RuntimeException("Error mapping investment data", e);
+            throw new RuntimeException("Error deleting investment", e);
+        }
+    }
+
+    /**
+     * Completes with false if the investment does not exist
+     */
+    @Override
+    public CompletableFuture<Boolean> deleteInvestmentAsync(String id) {
+        return deleteInvestmentAsync(id, true);
+    }
+
+    private CompletableFuture<Boolean> deleteInvestmentAsync(String id, boolean retryOnConflict) {
+        DocumentReference investmentRef = firestore.collection(COLLECTION_NAME).document(id);
+
+        // When the in-memory indexes know the investment, its counters can be decremented
+        // without reading it first: one commit whose update fails with NOT_FOUND if the
+        // document is already gone, so the delete and the decrement happen at most once
+        WriteBatch oneShot = firestore.batch();
+        if (decrementKnownInvestment(oneShot, id)) {
+            oneShot.update(investmentRef, "updatedAt", System.currentTimeMillis());
+            oneShot.delete(investmentRef);
+            return ApiFutureUtil.toCompletableFuture(metrics.firestore("delete.commit", oneShot.commit()))
+                    .thenApply(result -> {
+                        nameIndex.remove(id);
+                        return true;
+                    })
+                    .exceptionallyCompose(e -> ApiFutureUtil.hasStatus(e, StatusCode.Code.NOT_FOUND)
+                            ? CompletableFuture.completedFuture(false)
+                            : CompletableFuture.failedFuture(e));
+        }
+
+        return ApiFutureUtil.toCompletableFuture(metrics.firestore("delete.read", investmentRef.get())).thenCompose(document -> {
+            if (!document.exists()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            // Delete and decrement the registration counters in one batch. The precondition
+            // keeps a concurrent delete from decrementing twice.
+            WriteBatch batch = firestore.batch();
+            batch.delete(investmentRef, Precondition.updatedAt(document.getUpdateTime()));
+            Long createdAt = document.getLong("createdAt");
+            registrationStats.increment(batch, document.getString("influencerId"), document.getString("referredBy"),
+                    createdAt != null ? createdAt : 0L, -1);
+            return ApiFutureUtil.toCompletableFuture(metrics.firestore("delete.commit", batch.commit()))
+                    .thenApply(result -> {
+                        nameIndex.remove(id);
+                        return true;
+                    })
+                    .exceptionallyCompose(e -> retryOnConflict && ApiFutureUtil.hasStatus(e, StatusCode.Code.FAILED_PRECONDITION)
+                            // Deleted or changed since the read - look again
+                            ? deleteInvestmentAsync(id, false)
+                            : CompletableFuture.failedFuture(e));
+        });
+    }
+
+    /**
+     * Add the counter decrement of an investment the read model or name index knows about
+     *
+     * @return false if neither has it, so it has to be read from Firestore
+     */
+    private boolean decrementKnownInvestment(WriteBatch batch, String id) {
+        InvestmentReadModel.Entry entry = readModel.isReady() ? readModel.findEntry(id) : null;
+        if (entry != null) {
+            InvestmentResponse response = entry.getResponse();
+            registrationStats.increment(batch, entry.getInfluencerId(), response.getReferredBy(),
+                    response.getCreatedAt() != null ? response.getCreatedAt() : 0L, -1);
+            return true;
+        }
+        NameSearchIndex.Entry indexed = nameIndex.isReady() ? nameIndex.get(id) : null;
+        if (indexed != null) {
+            registrationStats.increment(batch, indexed.getInfluencerId(), indexed.getReferredBy(),
+                    indexed.getCreatedAt(), -1);
+            return true;
         }
+        return false;
     }
 }
@@ -0,0 +1,122 @@
+package com.Investment.Investment.service;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Influencers in the influencers collection, one document per influencer keyed by its unique ID
+ * The document ID is the referral code on every path; the default (CCG) document is not a code.
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class FirestoreInfluencerRepository implements InfluencerRepository {
+
+    public static final String INFLUENCERS_COLLECTION = "influencers";
+    public static final String DEFAULT_INFLUENCER_DOC = "DEFAULT_CCG";
+
+    private final Firestore firestore;
+
+    @Autowired
+    public FirestoreInfluencerRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /**
+     * Each influencer gets a unique ID, except CCG which is the default (no ID needed).
+     * One getAll for every document plus one batch of creates for the missing ones; creates
+     * fail if the document exists, so concurrent instances can't overwrite each other.
+     */
+    @Override
+    public void seed(Map<String, String> influencers) {
+        try {
+            List<DocumentReference> refs = new ArrayList<>();
+            for (String uniqueId : influencers.keySet()) {
+                refs.add(firestore.collection(INFLUENCERS_COLLECTION).document(uniqueId));
+            }
+            refs.add(firestore.collection(INFLUENCERS_COLLECTION).document(DEFAULT_INFLUENCER_DOC));
+
+            WriteBatch batch = firestore.batch();
+            List<String> created = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            for (DocumentSnapshot doc : firestore.getAll(refs.toArray(new DocumentReference[0])).get()) {
+                if (doc.exists()) {
+                    continue;
+                }
+                Map<String, Object> influencerData = new HashMap<>();
+                if (DEFAULT_INFLUENCER_DOC.equals(doc.getId())) {
+                    // Create CCG as the default influencer (no ID needed for URL)
+                    influencerData.put("name", InfluencerRegistry.DEFAULT_INFLUENCER);
+                    influencerData.put("uniqueId", null); // CCG has no referral ID
+                    influencerData.put("isDefault", true);
+                } else {
+                    // Create the influencer with the unique ID as document ID
+                    influencerData.put("name", influencers.get(doc.getId()));
+                    influencerData.put("uniqueId", doc.getId());
+                }
+                influencerData.put("createdAt", now);
+                batch.create(doc.getReference(), influencerData);
+                created.add(doc.getId());
+            }
+
+            if (created.isEmpty()) {
+                return;
+            }
+            batch.commit().get();
+            System.out.println("Created influencers: " + created);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error initializing influencers: " + e.getMessage());
+        } catch (Exception e) {
+            // Also reached when another instance seeded the same documents first
+            System.err.println("Error initializing influencers: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Runnable subscribe(Consumer<Map<String, String>> onChange, Consumer<Throwable> onError) {
+        ListenerRegistration registration = firestore.collection(INFLUENCERS_COLLECTION).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                onError.accept(error);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+
+            // The collection is small, so every snapshot carries the whole map
+            Map<String, String> influencers = new LinkedHashMap<>();
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                String name = document.getString("name");
+                if (name != null && !isDefault(document)) {
+                    influencers.put(document.getId().toUpperCase(), name);
+                }
+            }
+            onChange.accept(influencers);
+        });
+        return registration::remove;
+    }
+
+    @Override
+    public String findName(String uniqueId) throws Exception {
+        DocumentSnapshot doc = firestore.collection(INFLUENCERS_COLLECTION).document(uniqueId).get().get();
+        return doc.exists() && !isDefault(doc) ? doc.getString("name") : null;
+    }
+
+    private static boolean isDefault(DocumentSnapshot doc) {
+        return Boolean.TRUE.equals(doc.getBoolean("isDefault")) || DEFAULT_INFLUENCER_DOC.equals(doc.getId());
+    }
+}
@@ -0,0 +1,49 @@
+package com.Investment.Investment.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Influencers kept in this process (in-memory profile)
+ * Starts empty; the registry seeds the predefined influencers on startup as it does with Firestore.
+ */
+@Service
+@Profile(InMemoryInvestmentRepository.PROFILE)
+public class InMemoryInfluencerRepository implements InfluencerRepository {
+
+    // uniqueId -> name
+    private final Map<String, String> influencers = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Consumer<Map<String, String>>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void seed(Map<String, String> seeds) {
+        boolean changed = false;
+        for (Map.Entry<String, String> seed : seeds.entrySet()) {
+            changed |= influencers.putIfAbsent(seed.getKey().toUpperCase(), seed.getValue()) == null;
+        }
+        if (changed) {
+            Map<String, String> snapshot = new LinkedHashMap<>(influencers);
+            for (Consumer<Map<String, String>> subscriber : subscribers) {
+                subscriber.accept(snapshot);
+            }
+        }
+    }
+
+    @Override
+    public Runnable subscribe(Consumer<Map<String, String>> onChange, Consumer<Throwable> onError) {
+        subscribers.add(onChange);
+        onChange.accept(new LinkedHashMap<>(influencers));
+        return () -> subscribers.remove(onChange);
+    }
+
+    @Override
+    public String findName(String uniqueId) {
+        return influencers.get(uniqueId);
+    }
+}
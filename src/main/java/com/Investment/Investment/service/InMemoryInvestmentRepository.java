@@ -0,0 +1,551 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.Investment.Investment.dto.InvestmentResponse;
+import com.Investment.Investment.dto.PaginatedResponse;
+import com.Investment.Investment.service.InvestmentReadModel.SortKey;
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.Investment.Investment.util.CursorUtil;
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.Timestamp;
+import io.grpc.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * In-process implementation of {@link InvestmentRepository}, selected with the in-memory profile
+ * (SPRING_PROFILES_ACTIVE=in-memory) for local performance tests and staging load tests
+ * without Google credentials or network access. Data is lost on restart.
+ *
+ * Investments are kept in a concurrent skip list sorted like the Firestore list queries
+ * (createdAt, then ID, both descending), so pages and cursors are ordered walks. Secondary
+ * skip lists by influencerId and by referredBy serve the influencer filter without a full
+ * scan, and keep their own sizes so unfiltered and influencer-only pages are counted in
+ * O(1). Each investment's writes are serialized on its ID; readers never block.
+ */
+@Service
+@Profile(InMemoryInvestmentRepository.PROFILE)
+public class InMemoryInvestmentRepository implements InvestmentRepository {
+
+    public static final String PROFILE = "in-memory";
+
+    private static final String AUTO_ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int AUTO_ID_LENGTH = 20;
+
+    private final InfluencerRegistry influencerRegistry;
+    private final EmailSender emailSender;
+
+    @Value("${registrations.dedup.enabled:true}")
+    private boolean dedupEnabled;
+
+    @Value("${registrations.idempotency.ttl-hours:24}")
+    private long idempotencyTtlHours;
+
+    private final Map<String, Stored> byId = new ConcurrentHashMap<>();
+    private final NavigableMap<SortKey, Stored> ordered = new ConcurrentSkipListMap<>(InvestmentReadModel.SORT_ORDER);
+    // Upper-cased influencerId -> its investments
+    private final Map<String, Index> byInfluencerId = new ConcurrentHashMap<>();
+    // Lower-cased referredBy -> its investments
+    private final Map<String, Index> byReferredBy = new ConcurrentHashMap<>();
+    // Natural and idempotency keys of registrations -> the investment they created
+    private final Map<String, Claim> registrationKeys = new ConcurrentHashMap<>();
+    private final List<BiConsumer<InvestmentResponse, String>> registrationWatchers = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong modifications = new AtomicLong();
+    private final AtomicLong lastUpdateMicros = new AtomicLong();
+    // Distinguishes the versions of this process's data from those of an earlier run
+    private final long epoch = System.currentTimeMillis();
+
+    @Autowired
+    public InMemoryInvestmentRepository(InfluencerRegistry influencerRegistry, EmailSender emailSender) {
+        this.influencerRegistry = influencerRegistry;
+        this.emailSender = emailSender;
+    }
+
+    /**
+     * Registration keys are claimed before the investment is stored, so of two concurrent
+     * repeats exactly one is stored and the other gets its ID
+     */
+    @Override
+    public CompletableFuture<Registration> registerInvestmentAsync(InvestmentRequest request, String influencerId,
+                                                                   boolean sendEmail, String idempotencyKey) {
+        long now = System.currentTimeMillis();
+        String id = newId();
+        List<String> keys = keysFor(request, idempotencyKey);
+        Map<String, Claim> claimed = new HashMap<>();
+        for (String key : keys) {
+            Claim ours = new Claim(id, key.startsWith(RegistrationDedupService.IDEMPOTENCY_PREFIX)
+                    ? now + TimeUnit.HOURS.toMillis(idempotencyTtlHours)
+                    : Long.MAX_VALUE);
+            String existingId = claim(key, ours, now);
+            if (existingId != null) {
+                claimed.forEach(registrationKeys::remove);
+                return CompletableFuture.completedFuture(new Registration(existingId, true));
+            }
+            claimed.put(key, ours);
+        }
+
+        Map<String, Object> data = InvestmentMapper.toInvestmentData(request, influencerId, influencerRegistry, now);
+        Stored stored = insert(id, data, new ArrayList<>(claimed.keySet()));
+        for (BiConsumer<InvestmentResponse, String> watcher : registrationWatchers) {
+            watcher.accept(stored.response, stored.influencerId);
+        }
+
+        if (sendEmail) {
+            emailSender.sendReservationEmailAsync(request.getEmailAddress(), request.getFirstName())
+                    .exceptionally(e -> {
+                        System.err.println("Failed to send reservation email for " + id + ": " + e.getMessage());
+                        return null;
+                    });
+        }
+        return CompletableFuture.completedFuture(new Registration(id, false));
+    }
+
+    /**
+     * @return The investment the key already belongs to, or null once it is claimed for ours
+     */
+    private String claim(String key, Claim ours, long now) {
+        while (true) {
+            Claim existing = registrationKeys.putIfAbsent(key, ours);
+            if (existing == null) {
+                return null;
+            }
+            if (existing.expiresAt > now) {
+                // Also when that investment is still being stored by a concurrent request
+                return existing.investmentId;
+            }
+            if (registrationKeys.replace(key, existing, ours)) {
+                return null;
+            }
+        }
+    }
+
+    private List<String> keysFor(InvestmentRequest request, String idempotencyKey) {
+        List<String> keys = new ArrayList<>(2);
+        if (!dedupEnabled) {
+            return keys;
+        }
+        String natural = RegistrationDedupService.naturalKey(request.getEmailAddress(), request.getMobileNumber());
+        if (natural != null) {
+            keys.add(natural);
+        }
+        if (idempotencyKey != null && !idempotencyKey.trim().isEmpty()) {
+            keys.add(RegistrationDedupService.IDEMPOTENCY_PREFIX + idempotencyKey.trim());
+        }
+        return keys;
+    }
+
+    private Stored insert(String id, Map<String, Object> data, List<String> keys) {
+        InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(id, data);
+        long createdAt = response.getCreatedAt() != null ? response.getCreatedAt() : 0L;
+        Stored stored = new Stored(data, response, (String) data.get("influencerId"),
+                new SortKey(createdAt, id), nextUpdateTime(), keys);
+
+        byId.compute(id, (key, previous) -> {
+            ordered.put(stored.sortKey, stored);
+            if (stored.influencerId != null) {
+                byInfluencerId.computeIfAbsent(stored.influencerId.toUpperCase(), k -> new Index()).add(stored);
+            }
+            if (response.getReferredBy() != null) {
+                byReferredBy.computeIfAbsent(response.getReferredBy().toLowerCase(), k -> new Index()).add(stored);
+            }
+            return stored;
+        });
+        count.incrementAndGet();
+        // Published after the data, so a reader that sees the new version also sees the investment
+        modifications.incrementAndGet();
+        return stored;
+    }
+
+    @Override
+    public CompletableFuture<PaginatedResponse<InvestmentResponse>> getAllInvestmentsPaginatedAsync(int page, int size, InvestmentFilter filter,
+                                                                                                    FieldProjection projection) {
+        long startIndex = (long) page * size;
+        long knownTotal = knownCount(filter);
+
+        long totalElements = 0;
+        List<InvestmentResponse> pageItems = new ArrayList<>();
+        for (Stored stored : candidates(filter, null)) {
+            if (!filter.matches(stored.response, stored.influencerId)) {
+                continue;
+            }
+            if (totalElements >= startIndex) {
+                if (pageItems.size() == size && knownTotal >= 0) {
+                    break;
+                }
+                if (pageItems.size() < size) {
+                    pageItems.add(stored.response);
+                }
+            }
+            totalElements++;
+        }
+        if (knownTotal >= 0) {
+            totalElements = knownTotal;
+        }
+
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        return CompletableFuture.completedFuture(PaginatedResponse.<InvestmentResponse>builder()
+                .data(pageItems)
+                .page(page)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages(totalPages)
+                .hasNext(page < totalPages - 1)
+                .hasPrevious(page > 0)
+                .build());
+    }
+
+    @Override
+    public CompletableFuture<PaginatedResponse<InvestmentResponse>> getInvestmentsByCursorAsync(String cursor, int size, InvestmentFilter filter,
+                                                                                                FieldProjection projection) {
+        CursorUtil.Position position = (cursor != null && !cursor.trim().isEmpty())
+                ? CursorUtil.decode(cursor.trim())
+                : null;
+        SortKey after = position != null ? new SortKey(position.getCreatedAt(), position.getId()) : null;
+
+        List<InvestmentResponse> pageItems = new ArrayList<>();
+        boolean hasNext = false;
+        for (Stored stored : candidates(filter, after)) {
+            if (filter.matches(stored.response, stored.influencerId)) {
+                if (pageItems.size() == size) {
+                    hasNext = true;
+                    break;
+                }
+                pageItems.add(stored.response);
+            }
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            InvestmentResponse lastItem = pageItems.get(pageItems.size() - 1);
+            nextCursor = CursorUtil.encode(lastItem.getCreatedAt(), lastItem.getId());
+        }
+
+        return CompletableFuture.completedFuture(PaginatedResponse.<InvestmentResponse>builder()
+                .data(pageItems)
+                .size(size)
+                .totalElements(-1)
+                .totalPages(-1)
+                .hasNext(hasNext)
+                .hasPrevious(position != null)
+                .nextCursor(nextCursor)
+                .build());
+    }
+
+    @Override
+    public void forEachInvestmentChunk(InvestmentFilter filter, int chunkSize,
+                                       Consumer<List<InvestmentResponse>> chunkConsumer) {
+        List<InvestmentResponse> chunk = new ArrayList<>(chunkSize);
+        for (Stored stored : candidates(filter, null)) {
+            if (filter.matches(stored.response, stored.influencerId)) {
+                chunk.add(stored.response);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+    }
+
+    /**
+     * Investments that may match the filter, newest first, after the given position
+     * Narrowed to the createdAt range by seeking in the skip lists, and by the secondary
+     * indexes when an influencer is given; still to be checked with {@link InvestmentFilter#matches}.
+     */
+    private Iterable<Stored> candidates(InvestmentFilter filter, SortKey after) {
+        String influencer = filter.getInfluencer();
+        if (influencer == null) {
+            return InvestmentReadModel.slice(ordered, after, filter).values();
+        }
+        if (influencer.equalsIgnoreCase(InfluencerRegistry.DEFAULT_INFLUENCER)) {
+            // CCG registrations have no influencerId but referredBy = "CCG"
+            return InvestmentReadModel.slice(indexMap(byReferredBy.get(influencer.toLowerCase())), after, filter).values();
+        }
+        Iterable<Stored> byId = InvestmentReadModel.slice(indexMap(byInfluencerId.get(influencer.toUpperCase())), after, filter).values();
+        Iterable<Stored> byName = InvestmentReadModel.slice(indexMap(byReferredBy.get(influencer.toLowerCase())), after, filter).values();
+        return () -> new MergingIterator(byId.iterator(), byName.iterator());
+    }
+
+    /**
+     * Number of matches when an index already knows it, otherwise -1
+     */
+    private long knownCount(InvestmentFilter filter) {
+        if (filter.hasName() || filter.hasCreatedRange()) {
+            return -1;
+        }
+        String influencer = filter.getInfluencer();
+        if (influencer == null) {
+            return count.get();
+        }
+        if (influencer.equalsIgnoreCase(InfluencerRegistry.DEFAULT_INFLUENCER)) {
+            return -1;
+        }
+        Index idIndex = byInfluencerId.get(influencer.toUpperCase());
+        Index nameIndex = byReferredBy.get(influencer.toLowerCase());
+        long idCount = idIndex != null ? idIndex.size.get() : 0;
+        long nameCount = nameIndex != null ? nameIndex.size.get() : 0;
+        // Both non-empty means the two can overlap, so the matches have to be counted
+        return idCount == 0 || nameCount == 0 ? idCount + nameCount : -1;
+    }
+
+    private static NavigableMap<SortKey, Stored> indexMap(Index index) {
+        return index != null ? index.entries : Collections.emptyNavigableMap();
+    }
+
+    /**
+     * Watchers are called on the registering thread, after the investment is stored; this
+     * store can't fail, so onError is never called
+     */
+    @Override
+    public Runnable subscribeToRegistrations(BiConsumer<InvestmentResponse, String> onRegistration, Consumer<Throwable> onError) {
+        registrationWatchers.add(onRegistration);
+        return () -> registrationWatchers.remove(onRegistration);
+    }
+
+    @Override
+    public CompletableFuture<InvestmentVersion> getInvestmentVersionAsync(String id) {
+        Stored stored = byId.get(id);
+        return CompletableFuture.completedFuture(stored != null
+                ? new InvestmentVersion(stored.response, stored.updateTime)
+                : null);
+    }
+
+    @Override
+    public String getInvestmentsVersion() {
+        return epoch + "-" + modifications.get();
+    }
+
+    @Override
+    public CompletableFuture<Timestamp> updateInvestmentAsync(String id, Map<String, Object> changes,
+                                                              Timestamp expectedUpdateTime) {
+        try {
+            Stored updated = byId.computeIfPresent(id, (key, current) -> {
+                if (expectedUpdateTime != null && !expectedUpdateTime.equals(current.updateTime)) {
+                    throw ApiFutureUtil.failure(Status.Code.FAILED_PRECONDITION, "Investment " + id + " has changed");
+                }
+                Map<String, Object> data = new HashMap<>(current.data);
+                data.putAll(changes);
+                data.put("updatedAt", System.currentTimeMillis());
+                List<String> keys = moveNaturalKey(id, current, data);
+                // Patches can't change createdAt or the influencer, so the index positions stay put
+                Stored next = new Stored(data, InvestmentMapper.mapToInvestmentResponse(id, data),
+                        current.influencerId, current.sortKey, nextUpdateTime(), keys);
+                ordered.put(next.sortKey, next);
+                replaceIn(byInfluencerId, next.influencerId != null ? next.influencerId.toUpperCase() : null, next);
+                replaceIn(byReferredBy, next.response.getReferredBy() != null ? next.response.getReferredBy().toLowerCase() : null, next);
+                return next;
+            });
+            if (updated == null) {
+                return CompletableFuture.failedFuture(ApiFutureUtil.failure(Status.Code.NOT_FOUND, "Investment " + id + " not found"));
+            }
+            modifications.incrementAndGet();
+            return CompletableFuture.completedFuture(updated.updateTime);
+        } catch (ApiException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteInvestmentAsync(String id) {
+        boolean[] deleted = { false };
+        byId.computeIfPresent(id, (key, current) -> {
+            ordered.remove(current.sortKey);
+            removeFrom(byInfluencerId, current.influencerId != null ? current.influencerId.toUpperCase() : null, current);
+            removeFrom(byReferredBy, current.response.getReferredBy() != null ? current.response.getReferredBy().toLowerCase() : null, current);
+            // Free the keys so the person can register again
+            for (String registrationKey : current.keys) {
+                registrationKeys.computeIfPresent(registrationKey,
+                        (k, claim) -> claim.investmentId.equals(id) ? null : claim);
+            }
+            deleted[0] = true;
+            return null;
+        });
+        if (deleted[0]) {
+            count.decrementAndGet();
+            modifications.incrementAndGet();
+        }
+        return CompletableFuture.completedFuture(deleted[0]);
+    }
+
+    /**
+     * Claim the natural key of an edited email or mobile number and release the old one
+     *
+     * @return The investment's keys after the edit
+     * @throws ApiException ALREADY_EXISTS if another registration has the new email and mobile
+     */
+    private List<String> moveNaturalKey(String id, Stored current, Map<String, Object> data) {
+        String oldKey = RegistrationDedupService.naturalKey((String) current.data.get("emailAddress"),
+                (String) current.data.get("mobileNumber"));
+        String newKey = RegistrationDedupService.naturalKey((String) data.get("emailAddress"), (String) data.get("mobileNumber"));
+        if (!dedupEnabled || Objects.equals(oldKey, newKey)) {
+            return current.keys;
+        }
+        List<String> keys = new ArrayList<>(current.keys);
+        if (newKey != null) {
+            if (claim(newKey, new Claim(id, Long.MAX_VALUE), System.currentTimeMillis()) != null) {
+                throw ApiFutureUtil.failure(Status.Code.ALREADY_EXISTS, "Another registration has this email and mobile");
+            }
+            keys.add(newKey);
+        }
+        if (oldKey != null && keys.remove(oldKey)) {
+            registrationKeys.computeIfPresent(oldKey, (k, claim) -> claim.investmentId.equals(id) ? null : claim);
+        }
+        return keys;
+    }
+
+    private static void replaceIn(Map<String, Index> indexes, String key, Stored stored) {
+        Index index = key != null ? indexes.get(key) : null;
+        if (index != null) {
+            index.entries.put(stored.sortKey, stored);
+        }
+    }
+
+    private static void removeFrom(Map<String, Index> indexes, String key, Stored stored) {
+        Index index = key != null ? indexes.get(key) : null;
+        if (index != null && index.entries.remove(stored.sortKey) != null) {
+            index.size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Strictly increasing update times, so an ETag never repeats within this process
+     */
+    private Timestamp nextUpdateTime() {
+        long nowMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long micros = lastUpdateMicros.updateAndGet(last -> Math.max(nowMicros, last + 1));
+        return Timestamp.ofTimeMicroseconds(micros);
+    }
+
+    /**
+     * A 20-character ID like Firestore's auto-generated document IDs
+     */
+    private String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            StringBuilder id = new StringBuilder(AUTO_ID_LENGTH);
+            for (int i = 0; i < AUTO_ID_LENGTH; i++) {
+                id.append(AUTO_ID_ALPHABET.charAt(random.nextInt(AUTO_ID_ALPHABET.length())));
+            }
+            if (!byId.containsKey(id.toString())) {
+                return id.toString();
+            }
+        }
+    }
+
+    public long size() {
+        return count.get();
+    }
+
+    private static final class Stored {
+        private final Map<String, Object> data;
+        private final InvestmentResponse response;
+        private final String influencerId;
+        private final SortKey sortKey;
+        private final Timestamp updateTime;
+        private final List<String> keys;
+
+        Stored(Map<String, Object> data, InvestmentResponse response, String influencerId, SortKey sortKey,
+               Timestamp updateTime, List<String> keys) {
+            this.data = data;
+            this.response = response;
+            this.influencerId = influencerId;
+            this.sortKey = sortKey;
+            this.updateTime = updateTime;
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Investments sharing one influencerId or referredBy, newest first
+     * ConcurrentSkipListMap.size() walks the whole map, so the size is kept alongside.
+     */
+    private static final class Index {
+        private final NavigableMap<SortKey, Stored> entries = new ConcurrentSkipListMap<>(InvestmentReadModel.SORT_ORDER);
+        private final AtomicLong size = new AtomicLong();
+
+        void add(Stored stored) {
+            if (entries.put(stored.sortKey, stored) == null) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Claim {
+        private final String investmentId;
+        private final long expiresAt;
+
+        Claim(String investmentId, long expiresAt) {
+            this.investmentId = investmentId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Merges two iterators that are both newest first, dropping investments present in both
+     */
+    private static final class MergingIterator implements Iterator<Stored> {
+        private final Iterator<Stored> first;
+        private final Iterator<Stored> second;
+        private Stored nextFirst;
+        private Stored nextSecond;
+
+        MergingIterator(Iterator<Stored> first, Iterator<Stored> second) {
+            this.first = first;
+            this.second = second;
+            this.nextFirst = first.hasNext() ? first.next() : null;
+            this.nextSecond = second.hasNext() ? second.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextFirst != null || nextSecond != null;
+        }
+
+        @Override
+        public Stored next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int order = nextFirst == null ? 1
+                    : nextSecond == null ? -1
+                    : InvestmentReadModel.SORT_ORDER.compare(nextFirst.sortKey, nextSecond.sortKey);
+            Stored result;
+            if (order <= 0) {
+                result = nextFirst;
+                nextFirst = first.hasNext() ? first.next() : null;
+                if (order == 0) {
+                    nextSecond = second.hasNext() ? second.next() : null;
+                }
+            } else {
+                result = nextSecond;
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+            return result;
+        }
+    }
+}
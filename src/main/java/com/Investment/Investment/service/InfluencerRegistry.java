@@ -0,0 +1,248 @@
+package com.Investment.Investment.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory registry of influencer referral codes, backed by an {@link InfluencerRepository}
+ * A subscription keeps the code -> name map current, so influencers added in Firestore
+ * are accepted without a redeploy. Until the first snapshot arrives (or while the listener
+ * is down) the predefined influencers are served, and unknown codes fall back to a single
+ * repository read whose outcome is cached - misses included, so bogus ?ref= values cost at
+ * most one read per negative-ttl-ms.
+ *
+ * Also seeds the collection with the predefined influencers (influencers.seed.mode).
+ */
+@Service
+public class InfluencerRegistry {
+
+    // Default influencer (CCG) - used when no referral code is provided
+    public static final String DEFAULT_INFLUENCER = "CCG";
+
+    // Predefined influencers with complex unique IDs
+    // Map: uniqueId -> influencer name
+    // Note: CCG has no ID - it's the default when no ref parameter is provided
+    static final Map<String, String> PREDEFINED_INFLUENCERS;
+
+    static {
+        Map<String, String> influencers = new LinkedHashMap<>();
+        influencers.put("SH7X9K2M4PLQ", "Sherine hamdy");
+        influencers.put("HR3B8N5W2JKF", "Hazem rasmy");
+        influencers.put("FN6C4T9R1VXZ", "Farah nofal");
+        influencers.put("AT2Y7H3D8MNP", "Ahmed talaat");
+        influencers.put("KS5L9Q4G6BWC", "Khaled el sayed");
+        influencers.put("AR8F2K7J3XHT", "Ahmed rashad");
+        influencers.put("PS4W6M9N1YRV", "POSH");
+        influencers.put("EX7Q3K8L2CTB", "EGX");
+        influencers.put("CL9P5H4D6ZJN", "COLLAB");
+        PREDEFINED_INFLUENCERS = Collections.unmodifiableMap(influencers);
+    }
+
+    // Longer values can't be a referral code and are rejected without a lookup
+    private static final int MAX_CODE_LENGTH = 64;
+    private static final long RESUBSCRIBE_DELAY_MS = 5000;
+
+    private static final String SEED_ON_STARTUP = "startup";
+    private static final String SEED_WHEN_READY = "ready";
+
+    private final InfluencerRepository influencerRepository;
+
+    // "startup" (blocks startup), "ready" (background, after ApplicationReadyEvent) or "none"
+    @Value("${influencers.seed.mode:startup}")
+    private String seedMode;
+
+    @Value("${influencers.registry.listener.enabled:true}")
+    private boolean listenerEnabled;
+
+    @Value("${influencers.registry.negative-ttl-ms:300000}")
+    private long negativeTtlMs;
+
+    @Value("${influencers.registry.negative-max-entries:10000}")
+    private int negativeMaxEntries;
+
+    // uniqueId -> name; replaced wholesale on every snapshot
+    private volatile Map<String, String> influencers = PREDEFINED_INFLUENCERS;
+    // Codes found by direct reads while the listener isn't synced
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+    // Unknown code -> expiry time
+    private final Map<String, Long> unknown = new ConcurrentHashMap<>();
+
+    private volatile boolean synced = false;
+    private volatile Runnable unsubscribe;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public InfluencerRegistry(InfluencerRepository influencerRepository) {
+        this.influencerRepository = influencerRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (SEED_ON_STARTUP.equalsIgnoreCase(seedMode)) {
+            seedInfluencers();
+        }
+        if (!listenerEnabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "influencer-registry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        subscribe();
+    }
+
+    /**
+     * Seed in the background once the app is ready, so startup (and the health check) don't wait on it
+     * Until then the predefined influencers are served from memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedWhenReady() {
+        if (!SEED_WHEN_READY.equalsIgnoreCase(seedMode)) {
+            return;
+        }
+        Thread seeder = new Thread(this::seedInfluencers, "influencer-seed");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+
+    /**
+     * Create the predefined influencers and the default CCG entry if they don't exist yet
+     */
+    public void seedInfluencers() {
+        influencerRepository.seed(PREDEFINED_INFLUENCERS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        synced = false;
+        if (unsubscribe != null) {
+            unsubscribe.run();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void subscribe() {
+        unsubscribe = influencerRepository.subscribe(snapshot -> {
+            // The collection is small, so every snapshot rebuilds the whole map
+            Map<String, String> updated = new LinkedHashMap<>(PREDEFINED_INFLUENCERS);
+            updated.putAll(snapshot);
+            influencers = Collections.unmodifiableMap(updated);
+            resolved.clear();
+            unknown.clear();
+            synced = true;
+        }, error -> {
+            System.err.println("Influencer registry listener failed: " + error.getMessage());
+            synced = false;
+            if (unsubscribe != null) {
+                unsubscribe.run();
+            }
+            scheduler.schedule(this::subscribe, RESUBSCRIBE_DELAY_MS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Resolve a referral code to the influencer's name
+     * Validation and name lookup in one call: null means the code is not valid.
+     */
+    public String resolve(String code) {
+        if (code == null) {
+            return null;
+        }
+        // Replace + with space (URL encoding) and normalize
+        String normalizedId = code.replace("+", " ").trim().toUpperCase();
+        if (normalizedId.isEmpty() || normalizedId.length() > MAX_CODE_LENGTH) {
+            return null;
+        }
+
+        String name = influencers.get(normalizedId);
+        if (name != null || synced) {
+            // A synced listener has every influencer, so a miss is authoritative
+            return name;
+        }
+        name = resolved.get(normalizedId);
+        if (name != null) {
+            return name;
+        }
+        Long expiresAt = unknown.get(normalizedId);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            return null;
+        }
+        return lookup(normalizedId);
+    }
+
+    public boolean isValid(String code) {
+        return resolve(code) != null;
+    }
+
+    /**
+     * Find the referral code of an influencer by name (case-insensitive)
+     */
+    public String findIdByName(String name) {
+        for (Map.Entry<String, String> entry : influencers.entrySet()) {
+            if (entry.getValue().equalsIgnoreCase(name)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Snapshot of all known influencers (uniqueId -> name)
+     */
+    public Map<String, String> getInfluencers() {
+        return new HashMap<>(influencers);
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public int getNegativeCacheSize() {
+        return unknown.size();
+    }
+
+    private String lookup(String normalizedId) {
+        try {
+            String name = influencerRepository.findName(normalizedId);
+            if (name != null) {
+                resolved.put(normalizedId, name);
+            } else {
+                rememberUnknown(normalizedId);
+            }
+            return name;
+        } catch (Exception e) {
+            // Not cached - a transient error shouldn't block the code for the whole TTL
+            System.err.println("Error getting influencer by ID: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void rememberUnknown(String normalizedId) {
+        long now = System.currentTimeMillis();
+        if (unknown.size() >= negativeMaxEntries) {
+            unknown.values().removeIf(expiresAt -> expiresAt <= now);
+            if (unknown.size() >= negativeMaxEntries) {
+                // Under a flood of distinct codes keep memory bounded over cache hits
+                unknown.clear();
+            }
+        }
+        unknown.put(normalizedId, now + negativeTtlMs);
+    }
+}
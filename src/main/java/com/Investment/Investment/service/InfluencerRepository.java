@@ -0,0 +1,32 @@
+package com.Investment.Investment.service;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Storage of the influencers behind {@link InfluencerRegistry}
+ * {@link FirestoreInfluencerRepository} uses the influencers collection (the default);
+ * {@link InMemoryInfluencerRepository} keeps them in this process for the in-memory profile.
+ */
+public interface InfluencerRepository {
+
+    /**
+     * Create the given influencers (uniqueId -> name) and the default CCG entry if they don't exist yet
+     * Existing influencers are never overwritten.
+     */
+    void seed(Map<String, String> influencers);
+
+    /**
+     * Watch the influencers
+     * onChange receives every influencer (uniqueId -> name) first and then after each change;
+     * after onError nothing more is delivered, and the caller may subscribe again.
+     *
+     * @return Stops watching
+     */
+    Runnable subscribe(Consumer<Map<String, String>> onChange, Consumer<Throwable> onError);
+
+    /**
+     * Name of the influencer with this unique ID, or null if there is none
+     */
+    String findName(String uniqueId) throws Exception;
+}
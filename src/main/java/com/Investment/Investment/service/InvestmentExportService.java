@@ -0,0 +1,163 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Streams investments as CSV or NDJSON
+ * Rows are written chunk by chunk as {@link InvestmentRepository#forEachInvestmentChunk} reads them,
+ * and flushed after every chunk, so memory use doesn't grow with the collection.
+ */
+@Service
+public class InvestmentExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException If the format is not csv or ndjson
+         */
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+
+    // e.g. +201001234567, -12, +20 100 123-4567
+    private static final Pattern NUMBER = Pattern.compile("[+-]?\\d[\\d\\s-]*");
+
+    static final String[] CSV_HEADER = {
+            "id", "firstName", "middleName", "lastName", "age", "mobileNumber", "emailAddress",
+            "profession", "professionOther", "currentInvestments", "currentInvestmentsOther",
+            "mostInterestedIn", "referredBy", "createdAt", "updatedAt"
+    };
+
+    private final InvestmentRepository investmentRepository;
+    private final JsonMapper jsonMapper;
+
+    @Value("${investments.export.chunk-size:500}")
+    private int chunkSize;
+
+    @Autowired
+    public InvestmentExportService(InvestmentRepository investmentRepository, JsonMapper jsonMapper) {
+        this.investmentRepository = investmentRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Write every investment matching the list filters to {@code out}, newest first
+     * The stream is flushed but not closed.
+     */
+    public void export(OutputStream out, Format format, InvestmentFilter filter) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (format == Format.CSV) {
+            writeCsvRow(writer, CSV_HEADER);
+        }
+        try {
+            investmentRepository.forEachInvestmentChunk(filter, chunkSize, chunk -> {
+                try {
+                    writeChunk(writer, format, chunk);
+                    writer.flush();
+                } catch (IOException e) {
+                    // Client went away - stop reading investments
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeChunk(Writer writer, Format format, List<InvestmentResponse> chunk) throws IOException {
+        for (InvestmentResponse investment : chunk) {
+            if (format == Format.CSV) {
+                writeCsvRow(writer, toCsvRow(investment));
+            } else {
+                writer.write(jsonMapper.writeValueAsString(investment));
+                writer.write('\n');
+            }
+        }
+    }
+
+    static String[] toCsvRow(InvestmentResponse investment) {
+        return new String[] {
+                investment.getId(),
+                investment.getFirstName(),
+                investment.getMiddleName(),
+                investment.getLastName(),
+                investment.getAge(),
+                investment.getMobileNumber(),
+                investment.getEmailAddress(),
+                investment.getProfession(),
+                investment.getProfessionOther(),
+                investment.getCurrentInvestments() != null ? String.join(";", investment.getCurrentInvestments()) : null,
+                investment.getCurrentInvestmentsOther(),
+                investment.getMostInterestedIn(),
+                investment.getReferredBy(),
+                investment.getCreatedAt() != null ? investment.getCreatedAt().toString() : null,
+                investment.getUpdatedAt() != null ? investment.getUpdatedAt().toString() : null
+        };
+    }
+
+    static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * RFC 4180 quoting, plus a leading quote on values a spreadsheet would run as a formula
+     */
+    static String escapeCsv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        // Signed values are only left alone when the whole value is a number or phone number
+        boolean formula = first == '=' || first == '@' || first == '\t' || first == '\r'
+                || ((first == '+' || first == '-') && !NUMBER.matcher(value).matches());
+        String escaped = formula ? "'" + value : value;
+        if (escaped.indexOf(',') >= 0 || escaped.indexOf('"') >= 0 || escaped.indexOf('\n') >= 0 || escaped.indexOf('\r') >= 0) {
+            return '"' + escaped.replace("\"", "\"\"") + '"';
+        }
+        return escaped;
+    }
+}
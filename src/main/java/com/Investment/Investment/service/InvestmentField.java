@@ -0,0 +1,93 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The properties of {@link InvestmentResponse}, each with its stored Firestore field, a
+ * decoder that reads just that field from a document and an accessor for the JSON output
+ * Decoding field by field avoids converting the whole document to a map first.
+ */
+public enum InvestmentField {
+    ID("id", null, (response, document) -> response.setId(document.getId()), InvestmentResponse::getId),
+    FIRST_NAME("firstName", (response, value) -> response.setFirstName((String) value), InvestmentResponse::getFirstName),
+    MIDDLE_NAME("middleName", (response, value) -> response.setMiddleName((String) value), InvestmentResponse::getMiddleName),
+    LAST_NAME("lastName", (response, value) -> response.setLastName((String) value), InvestmentResponse::getLastName),
+    AGE("age", (response, value) -> response.setAge(InvestmentMapper.ageToString(value)), InvestmentResponse::getAge),
+    MOBILE_NUMBER("mobileNumber", (response, value) -> response.setMobileNumber((String) value), InvestmentResponse::getMobileNumber),
+    EMAIL_ADDRESS("emailAddress", (response, value) -> response.setEmailAddress((String) value), InvestmentResponse::getEmailAddress),
+    PROFESSION("profession", (response, value) -> response.setProfession((String) value), InvestmentResponse::getProfession),
+    PROFESSION_OTHER("professionOther", (response, value) -> response.setProfessionOther((String) value), InvestmentResponse::getProfessionOther),
+    CURRENT_INVESTMENTS("currentInvestments", (response, value) -> response.setCurrentInvestments(InvestmentMapper.toStringList(value)),
+            InvestmentResponse::getCurrentInvestments),
+    CURRENT_INVESTMENTS_OTHER("currentInvestmentsOther", (response, value) -> response.setCurrentInvestmentsOther((String) value),
+            InvestmentResponse::getCurrentInvestmentsOther),
+    MOST_INTERESTED_IN("mostInterestedIn", (response, value) -> response.setMostInterestedIn((String) value), InvestmentResponse::getMostInterestedIn),
+    CREATED_AT("createdAt", (response, value) -> response.setCreatedAt((Long) value), InvestmentResponse::getCreatedAt),
+    UPDATED_AT("updatedAt", (response, value) -> response.setUpdatedAt((Long) value), InvestmentResponse::getUpdatedAt),
+    REFERRED_BY("referredBy", (response, value) -> response.setReferredBy(InvestmentMapper.cleanReferredBy((String) value)),
+            InvestmentResponse::getReferredBy);
+
+    private final String property;
+    private final String storedField;
+    private final BiConsumer<InvestmentResponse, DocumentSnapshot> decoder;
+    private final Function<InvestmentResponse, Object> accessor;
+
+    InvestmentField(String property, String storedField, BiConsumer<InvestmentResponse, DocumentSnapshot> decoder,
+                    Function<InvestmentResponse, Object> accessor) {
+        this.property = property;
+        this.storedField = storedField;
+        this.decoder = decoder;
+        this.accessor = accessor;
+    }
+
+    /**
+     * A property stored under the same name, decoded from that field's value
+     */
+    InvestmentField(String property, BiConsumer<InvestmentResponse, Object> valueDecoder,
+                    Function<InvestmentResponse, Object> accessor) {
+        this(property, property, fieldDecoder(property, valueDecoder), accessor);
+    }
+
+    private static BiConsumer<InvestmentResponse, DocumentSnapshot> fieldDecoder(String field,
+                                                                              BiConsumer<InvestmentResponse, Object> valueDecoder) {
+        // get(String) parses and validates the dotted path on every call; resolve it once
+        FieldPath path = FieldPath.of(field);
+        return (response, document) -> valueDecoder.accept(response, document.get(path));
+    }
+
+    /**
+     * @return The field with this JSON property name, or null
+     */
+    public static InvestmentField ofProperty(String property) {
+        for (InvestmentField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Firestore field holding the value, or null for the document ID
+     */
+    public String getStoredField() {
+        return storedField;
+    }
+
+    void decode(InvestmentResponse response, DocumentSnapshot document) {
+        decoder.accept(response, document);
+    }
+
+    Object get(InvestmentResponse response) {
+        return accessor.apply(response);
+    }
+}
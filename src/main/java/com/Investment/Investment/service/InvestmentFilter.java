@@ -0,0 +1,128 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+
+/**
+ * Name, influencer and createdAt filters of the list endpoints, normalized once per request
+ * so they can be applied to Firestore documents and read-model entries alike.
+ */
+public final class InvestmentFilter {
+
+    private final String name;
+    private final String searchTerm;
+    private final String influencer;
+    // createdAt range in epoch millis, from inclusive, to exclusive; null when open
+    private final Long from;
+    private final Long to;
+
+    private InvestmentFilter(String name, String searchTerm, String influencer, Long from, Long to) {
+        this.name = name;
+        this.searchTerm = searchTerm;
+        this.influencer = influencer;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param name Optional name filter (searches firstName, lastName, middleName)
+     * @param influencer Optional influencer filter - an influencer ID, a referredBy name or "CCG"
+     */
+    public static InvestmentFilter of(String name, String influencer) {
+        // Replace + with space (URL encoding)
+        String searchTerm = (name != null && !name.trim().isEmpty())
+                ? name.replace("+", " ").toLowerCase().trim()
+                : null;
+        String filterValue = (influencer != null && !influencer.trim().isEmpty())
+                ? influencer.replace("+", " ").trim()
+                : null;
+        return new InvestmentFilter(searchTerm != null ? name : null, searchTerm, filterValue, null, null);
+    }
+
+    /**
+     * The same filter restricted to investments created in [from, to)
+     *
+     * @param from Epoch millis, inclusive; null for no lower bound
+     * @param to Epoch millis, exclusive; null for no upper bound
+     */
+    public InvestmentFilter createdBetween(Long from, Long to) {
+        return new InvestmentFilter(name, searchTerm, influencer, from, to);
+    }
+
+    public boolean isEmpty() {
+        return searchTerm == null && influencer == null && !hasCreatedRange();
+    }
+
+    public boolean hasName() {
+        return searchTerm != null;
+    }
+
+    public boolean hasCreatedRange() {
+        return from != null || to != null;
+    }
+
+    /**
+     * The name filter as given, for the trigram index, or null
+     */
+    String getName() {
+        return name;
+    }
+
+    public Long getFrom() {
+        return from;
+    }
+
+    public Long getTo() {
+        return to;
+    }
+
+    /**
+     * The influencer filter as given (URL-decoded and trimmed), or null
+     */
+    String getInfluencer() {
+        return influencer;
+    }
+
+    /**
+     * @param response The mapped investment
+     * @param docInfluencerId The influencerId stored on the document (not part of the response)
+     */
+    public boolean matches(InvestmentResponse response, String docInfluencerId) {
+        // Apply name filter - search across firstName, lastName, and middleName
+        if (searchTerm != null) {
+            String docFirstName = response.getFirstName() != null ? response.getFirstName().toLowerCase() : "";
+            String docLastName = response.getLastName() != null ? response.getLastName().toLowerCase() : "";
+            String docMiddleName = response.getMiddleName() != null ? response.getMiddleName().toLowerCase() : "";
+
+            if (!docFirstName.contains(searchTerm) &&
+                !docLastName.contains(searchTerm) &&
+                !docMiddleName.contains(searchTerm)) {
+                return false;
+            }
+        }
+
+        return matchesCreatedAt(response.getCreatedAt() != null ? response.getCreatedAt() : 0L)
+                && matchesInfluencer(docInfluencerId, response.getReferredBy());
+    }
+
+    public boolean matchesCreatedAt(long createdAt) {
+        return (from == null || createdAt >= from) && (to == null || createdAt < to);
+    }
+
+    /**
+     * Apply only the influencer filter, e.g. to name-index entries
+     */
+    public boolean matchesInfluencer(String docInfluencerId, String docReferredBy) {
+        if (influencer != null) {
+            // Check if filtering by "CCG" (the default influencer with no ID)
+            if (influencer.equalsIgnoreCase("CCG")) {
+                // CCG registrations have no influencerId but referredBy = "CCG"
+                return "CCG".equalsIgnoreCase(docReferredBy) && docInfluencerId == null;
+            }
+            // Filter by influencer ID or by referredBy name (case-insensitive)
+            return (docInfluencerId != null && docInfluencerId.equalsIgnoreCase(influencer)) ||
+                   (docReferredBy != null && docReferredBy.equalsIgnoreCase(influencer));
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,352 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.ImportLineResult;
+import com.Investment.Investment.dto.ImportReport;
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.Investment.Investment.util.CsvReader;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk import of registrations from NDJSON or CSV uploads
+ * Lines are parsed one at a time and validated with the same rules as POST /api/investments
+ * (bean validation on {@link InvestmentRequest}, {@link InvestmentRules} and the referral
+ * code). Valid ones are written through a {@link ThrottledBulkWriter}, which ramps up its
+ * write rate gradually; at most max-pending-writes lines are in flight, so a large upload is
+ * never buffered in memory. Registration counters are updated per influencer every
+ * counter-flush-lines lines and at the end, so a crash mid-import leaves them only slightly short.
+ *
+ * Each line may carry its own "ref"; otherwise the import's default ref (or CCG) applies.
+ * Confirmation emails are optional and go through the email outbox.
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class InvestmentImportService {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * @throws IllegalArgumentException If the format is not ndjson or csv
+         */
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported import format: " + value);
+        }
+    }
+
+    static final String STATUS_CREATED = "created";
+    static final String STATUS_INVALID = "invalid";
+    static final String STATUS_FAILED = "failed";
+
+    private static final String REF_FIELD = "ref";
+
+    private final Firestore firestore;
+    private final FirebaseService firebaseService;
+    private final InfluencerRegistry influencerRegistry;
+    private final RegistrationStatsService registrationStats;
+    private final EmailOutboxService emailOutbox;
+    private final NameSearchIndex nameIndex;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+
+    @Value("${investments.import.max-lines:50000}")
+    private int maxLines;
+
+    @Value("${investments.import.max-pending-writes:1000}")
+    private int maxPendingWrites;
+
+    @Value("${investments.import.counter-flush-lines:1000}")
+    private int counterFlushLines;
+
+    @Value("${investments.import.initial-ops-per-second:500}")
+    private int initialOpsPerSecond;
+
+    @Value("${investments.import.max-ops-per-second:5000}")
+    private int maxOpsPerSecond;
+
+    @Autowired
+    public InvestmentImportService(Firestore firestore, FirebaseService firebaseService,
+                                   InfluencerRegistry influencerRegistry, RegistrationStatsService registrationStats,
+                                   EmailOutboxService emailOutbox, NameSearchIndex nameIndex,
+                                   Validator validator, JsonMapper jsonMapper) {
+        this.firestore = firestore;
+        this.firebaseService = firebaseService;
+        this.influencerRegistry = influencerRegistry;
+        this.registrationStats = registrationStats;
+        this.emailOutbox = emailOutbox;
+        this.nameIndex = nameIndex;
+        this.validator = validator;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    public void checkConfig() {
+        ThrottledBulkWriter.checkMaxPendingWrites("investments.import.max-pending-writes", maxPendingWrites);
+        if (counterFlushLines < 1) {
+            throw new IllegalStateException("investments.import.counter-flush-lines must be positive, was " + counterFlushLines);
+        }
+    }
+
+    /**
+     * Import every line of an upload and report the outcome of each
+     *
+     * @param defaultRef Referral code for lines without their own "ref" (null means CCG)
+     * @param sendEmail Whether to queue a confirmation email for every created registration
+     * @return If the upload can't be read to the end (e.g. the client disconnects), the report of the
+     *         lines read before that, marked truncated and carrying the read error
+     */
+    public ImportReport importInvestments(InputStream in, Format format, String defaultRef, boolean sendEmail) {
+        long now = System.currentTimeMillis();
+        List<ImportLineResult> results = new ArrayList<>();
+        boolean truncated = false;
+        String readError = null;
+
+        try (ThrottledBulkWriter writer = new ThrottledBulkWriter(firestore, registrationStats,
+                initialOpsPerSecond, maxOpsPerSecond, maxPendingWrites, "import")) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            LineSource source = format == Format.CSV ? new CsvSource(reader) : new NdjsonSource(reader);
+
+            ParsedLine parsed;
+            while ((parsed = source.next()) != null) {
+                if (results.size() == maxLines) {
+                    truncated = true;
+                    break;
+                }
+                ImportLineResult result = ImportLineResult.builder().line(parsed.line).build();
+                results.add(result);
+                if (results.size() % counterFlushLines == 0) {
+                    writer.flushCounters();
+                }
+
+                List<String> errors = parsed.error != null ? List.of(parsed.error) : validate(parsed);
+                if (!errors.isEmpty()) {
+                    result.setStatus(STATUS_INVALID);
+                    result.setErrors(errors);
+                    continue;
+                }
+
+                String ref = parsed.ref != null && !parsed.ref.trim().isEmpty() ? parsed.ref : defaultRef;
+                DocumentReference investmentRef = firebaseService.newInvestmentRef();
+                Map<String, Object> investmentData = firebaseService.toInvestmentData(parsed.request, ref, now);
+                InvestmentRequest request = parsed.request;
+
+                writer.submit(bulkWriter -> bulkWriter.create(investmentRef, investmentData), (written, error) -> {
+                    if (error != null) {
+                        result.setStatus(STATUS_FAILED);
+                        result.setErrors(List.of(String.valueOf(error.getMessage())));
+                        return;
+                    }
+                    result.setStatus(STATUS_CREATED);
+                    result.setId(investmentRef.getId());
+                    writer.getTally().add((String) investmentData.get("influencerId"),
+                            (String) investmentData.get("referredBy"), now, 1);
+                    nameIndex.put(investmentRef.getId(), investmentData);
+                    if (sendEmail) {
+                        emailOutbox.enqueue(investmentRef.getId(), request.getEmailAddress(), request.getFirstName())
+                                .exceptionally(e -> {
+                                    System.err.println("Error queueing import email for " + investmentRef.getId() + ": " + e.getMessage());
+                                    return null;
+                                });
+                    }
+                });
+            }
+        } catch (IOException e) {
+            // Lines already read are still written and reported
+            truncated = true;
+            readError = "Failed to read upload after " + results.size() + " lines: " + e.getMessage();
+        }
+
+        return buildReport(results, truncated, readError);
+    }
+
+    private List<String> validate(ParsedLine parsed) {
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<InvestmentRequest> violation : validator.validate(parsed.request)) {
+            errors.add(violation.getMessage());
+        }
+        errors.sort(Comparator.naturalOrder());
+
+        InvestmentRules.Violation violation = InvestmentRules.checkOtherFields(parsed.request);
+        if (violation != null) {
+            errors.add(violation.getError());
+        }
+        if (parsed.ref != null && !parsed.ref.trim().isEmpty() && !influencerRegistry.isValid(parsed.ref.trim())) {
+            errors.add("The referral code '" + parsed.ref + "' is not valid");
+        }
+        return errors;
+    }
+
+    private static ImportReport buildReport(List<ImportLineResult> results, boolean truncated, String error) {
+        long created = 0;
+        long invalid = 0;
+        long failed = 0;
+        for (ImportLineResult result : results) {
+            if (STATUS_CREATED.equals(result.getStatus())) {
+                created++;
+            } else if (STATUS_INVALID.equals(result.getStatus())) {
+                invalid++;
+            } else {
+                failed++;
+            }
+        }
+        return ImportReport.builder()
+                .total(results.size())
+                .created(created)
+                .invalid(invalid)
+                .failed(failed)
+                .truncated(truncated)
+                .error(error)
+                .results(results)
+                .build();
+    }
+
+    private static final class ParsedLine {
+        private final long line;
+        private final InvestmentRequest request;
+        private final String ref;
+        private final String error;
+
+        ParsedLine(long line, InvestmentRequest request, String ref, String error) {
+            this.line = line;
+            this.request = request;
+            this.ref = ref;
+            this.error = error;
+        }
+    }
+
+    private interface LineSource {
+        /**
+         * @return The next non-empty line, or null at end of input
+         */
+        ParsedLine next() throws IOException;
+    }
+
+    private final class NdjsonSource implements LineSource {
+        private final BufferedReader reader;
+        private long line = 0;
+
+        NdjsonSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ParsedLine next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (!text.isBlank()) {
+                    return parse(text);
+                }
+            }
+            return null;
+        }
+
+        private ParsedLine parse(String text) {
+            try {
+                JsonNode node = jsonMapper.readTree(text);
+                if (!(node instanceof ObjectNode)) {
+                    return new ParsedLine(line, null, null, "Line is not a JSON object");
+                }
+                JsonNode ref = ((ObjectNode) node).remove(REF_FIELD);
+                InvestmentRequest request = jsonMapper.treeToValue(node, InvestmentRequest.class);
+                return new ParsedLine(line, request, ref != null && !ref.isNull() ? ref.asString() : null, null);
+            } catch (Exception e) {
+                return new ParsedLine(line, null, null, "Malformed JSON: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * CSV with a header row naming the columns; column names match the export
+     * (currentInvestments separated by ';', optional ref column)
+     */
+    private static final class CsvSource implements LineSource {
+        private final CsvReader reader;
+        private Map<String, Integer> columns;
+
+        CsvSource(BufferedReader reader) {
+            this.reader = new CsvReader(reader);
+        }
+
+        @Override
+        public ParsedLine next() throws IOException {
+            if (columns == null) {
+                List<String> header = reader.readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    // A UTF-8 BOM from spreadsheet exports sticks to the first column name
+                    columns.put(header.get(i).replace("\uFEFF", "").trim(), i);
+                }
+            }
+
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                InvestmentRequest request = new InvestmentRequest();
+                request.setFirstName(column(record, "firstName"));
+                request.setMiddleName(column(record, "middleName"));
+                request.setLastName(column(record, "lastName"));
+                request.setAge(column(record, "age"));
+                request.setMobileNumber(column(record, "mobileNumber"));
+                request.setEmailAddress(column(record, "emailAddress"));
+                request.setProfession(column(record, "profession"));
+                request.setProfessionOther(column(record, "professionOther"));
+                String currentInvestments = column(record, "currentInvestments");
+                if (currentInvestments != null) {
+                    List<String> values = new ArrayList<>();
+                    for (String value : Arrays.asList(currentInvestments.split(";"))) {
+                        if (!value.isBlank()) {
+                            values.add(value.trim());
+                        }
+                    }
+                    request.setCurrentInvestments(values);
+                }
+                request.setCurrentInvestmentsOther(column(record, "currentInvestmentsOther"));
+                request.setMostInterestedIn(column(record, "mostInterestedIn"));
+                return new ParsedLine(reader.getRecordLine(), request, column(record, REF_FIELD), null);
+            }
+            return null;
+        }
+
+        private String column(List<String> record, String name) {
+            Integer index = columns.get(name);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index);
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
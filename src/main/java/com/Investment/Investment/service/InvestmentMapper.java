@@ -0,0 +1,152 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.Investment.Investment.dto.InvestmentResponse;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps registrations to stored investment documents, and those back to {@link InvestmentResponse}
+ * Shared by the direct Firestore reads, the in-memory read model and the in-memory repository.
+ */
+public final class InvestmentMapper {
+
+    private InvestmentMapper() {
+    }
+
+    private static final InvestmentField[] ALL_FIELDS = InvestmentField.values();
+
+    /**
+     * Build the stored field map of a new investment
+     *
+     * @param influencerId Optional influencer unique ID; must already be validated
+     * @param now Creation time
+     */
+    public static Map<String, Object> toInvestmentData(InvestmentRequest request, String influencerId,
+                                                       InfluencerRegistry influencerRegistry, long now) {
+        Map<String, Object> investmentData = new HashMap<>();
+        investmentData.put("firstName", request.getFirstName());
+        investmentData.put("middleName", request.getMiddleName());
+        investmentData.put("lastName", request.getLastName());
+        investmentData.put("age", request.getAge());
+        investmentData.put("mobileNumber", request.getMobileNumber());
+        investmentData.put("emailAddress", request.getEmailAddress());
+        investmentData.put("profession", request.getProfession());
+        if (request.getProfessionOther() != null && !request.getProfessionOther().isEmpty()) {
+            investmentData.put("professionOther", request.getProfessionOther());
+        }
+        investmentData.put("currentInvestments", request.getCurrentInvestments());
+        if (request.getCurrentInvestmentsOther() != null && !request.getCurrentInvestmentsOther().isEmpty()) {
+            investmentData.put("currentInvestmentsOther", request.getCurrentInvestmentsOther());
+        }
+        investmentData.put("mostInterestedIn", request.getMostInterestedIn());
+        investmentData.put("createdAt", now);
+        investmentData.put("updatedAt", now);
+
+        // Handle influencer ID from URL query parameter
+        // Note: Invalid codes are rejected at controller level with 400 Bad Request
+        if (influencerId != null && !influencerId.trim().isEmpty()) {
+            // Replace + with space (URL encoding) and normalize
+            String normalizedId = influencerId.replace("+", " ").trim().toUpperCase();
+
+            // Look up the influencer name for this ID (already validated in controller)
+            String influencerName = influencerRegistry.resolve(normalizedId);
+            if (influencerName != null) {
+                // Ensure influencer name has spaces instead of +
+                influencerName = influencerName.replace("+", " ");
+                investmentData.put("influencerId", normalizedId);
+                investmentData.put("referredBy", influencerName);
+            }
+        } else {
+            // No ref parameter provided - default to CCG
+            investmentData.put("referredBy", InfluencerRegistry.DEFAULT_INFLUENCER);
+        }
+        // Firestore compares strings exactly; the influencer filter matches referredBy case-insensitively
+        String referredBy = (String) investmentData.get("referredBy");
+        if (referredBy != null) {
+            investmentData.put("referredByLower", referredBy.toLowerCase(Locale.ROOT));
+        }
+
+        return investmentData;
+    }
+
+    public static InvestmentResponse mapToInvestmentResponse(DocumentSnapshot document) {
+        return mapToInvestmentResponse(document, ALL_FIELDS);
+    }
+
+    /**
+     * Decode only the given fields of a document; the other properties stay null
+     * Each field is read on its own, so fields outside a query's select() are never touched.
+     */
+    public static InvestmentResponse mapToInvestmentResponse(DocumentSnapshot document, InvestmentField[] fields) {
+        if (!document.exists()) {
+            return null;
+        }
+        try {
+            InvestmentResponse response = new InvestmentResponse();
+            for (InvestmentField field : fields) {
+                field.decode(response, document);
+            }
+            return response;
+        } catch (Exception e) {
+            throw new RuntimeException("Error mapping investment data", e);
+        }
+    }
+
+    public static InvestmentResponse mapToInvestmentResponse(String id, Map<String, Object> data) {
+        try {
+            if (data == null) {
+                return null;
+            }
+
+            return InvestmentResponse.builder()
+                    .id(id)
+                    .firstName((String) data.get("firstName"))
+                    .middleName((String) data.get("middleName"))
+                    .lastName((String) data.get("lastName"))
+                    .age(ageToString(data.get("age")))
+                    .mobileNumber((String) data.get("mobileNumber"))
+                    .emailAddress((String) data.get("emailAddress"))
+                    .profession((String) data.get("profession"))
+                    .professionOther((String) data.get("professionOther"))
+                    .currentInvestments(toStringList(data.get("currentInvestments")))
+                    .currentInvestmentsOther((String) data.get("currentInvestmentsOther"))
+                    .mostInterestedIn((String) data.get("mostInterestedIn"))
+                    .createdAt((Long) data.get("createdAt"))
+                    .updatedAt((Long) data.get("updatedAt"))
+                    .referredBy(cleanReferredBy((String) data.get("referredBy")))
+                    .build();
+        } catch (Exception e) {
+            throw new RuntimeException("Error mapping investment data", e);
+        }
+    }
+
+    /**
+     * Age is a string in the form, but older documents store it as a number
+     */
+    static String ageToString(Object ageValue) {
+        if (ageValue == null) {
+            return null;
+        }
+        if (ageValue instanceof String) {
+            return (String) ageValue;
+        }
+        return ageValue.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> toStringList(Object value) {
+        return value instanceof List ? (List<String>) value : null;
+    }
+
+    /**
+     * referredBy with + replaced by space (URL encoding)
+     */
+    static String cleanReferredBy(String referredBy) {
+        return referredBy != null ? referredBy.replace("+", " ") : null;
+    }
+}
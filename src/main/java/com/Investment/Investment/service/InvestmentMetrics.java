@@ -0,0 +1,138 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and histograms for the hot paths, exported on /actuator/prometheus
+ * - firestore.requests: every Firestore RPC of FirebaseService, by operation and gRPC status
+ * - sendgrid.requests: mail/send calls by HTTP status, plus recipients per call
+ * - investments.mapping: time to decode a page of documents, plus documents decoded
+ * - investments.filter.selectivity: share of scanned documents a filter kept, by path
+ * - jwt.verifications: bearer token checks by outcome
+ * Timers publish percentile histograms so latency quantiles can be aggregated across instances.
+ * Meters are cached per tag combination, so recording is a map lookup and an atomic add.
+ */
+@Service
+public class InvestmentMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InvestmentMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Time a Firestore RPC from now until it completes
+     *
+     * @param operation Low-cardinality name of the call site, e.g. "list.page"
+     * @return The same future, for chaining
+     */
+    public <T> ApiFuture<T> firestore(String operation, ApiFuture<T> call) {
+        long start = System.nanoTime();
+        ApiFutures.addCallback(call, new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(T result) {
+                firestoreTimer(operation, "OK").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                firestoreTimer(operation, ApiFutureUtil.statusName(error)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }, MoreExecutors.directExecutor());
+        return call;
+    }
+
+    private Timer firestoreTimer(String operation, String status) {
+        return timers.computeIfAbsent("firestore|" + operation + "|" + status, key -> Timer.builder("firestore.requests")
+                .description("Firestore RPCs issued by the investments API")
+                .tag("operation", operation)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * @param status HTTP status of the response, or the exception's class name if there was none
+     */
+    public void recordSendGrid(long startNanos, String status, int recipients) {
+        timers.computeIfAbsent("sendgrid|" + status, key -> Timer.builder("sendgrid.requests")
+                        .description("SendGrid mail/send calls")
+                        .tag("status", status)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        summaries.computeIfAbsent("sendgrid.recipients", key -> DistributionSummary.builder("sendgrid.recipients")
+                        .description("Recipients per SendGrid mail/send call")
+                        .register(registry))
+                .record(recipients);
+    }
+
+    /**
+     * Record decoding a batch of Firestore documents into responses
+     *
+     * @param path Low-cardinality name of the read path, e.g. "list.page"
+     */
+    public void recordMapping(String path, int documents, long startNanos) {
+        timers.computeIfAbsent("mapping|" + path, key -> Timer.builder("investments.mapping")
+                        .description("Time to decode a batch of investment documents")
+                        .tag("path", path)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        counters.computeIfAbsent("mapping.documents|" + path, key -> Counter.builder("investments.mapping.documents")
+                        .description("Investment documents decoded")
+                        .tag("path", path)
+                        .register(registry))
+                .increment(documents);
+    }
+
+    /**
+     * Record how many of the documents a filter looked at it kept
+     * A low ratio on a Firestore path means documents are transferred only to be dropped.
+     */
+    public void recordFilter(String path, int scanned, int matched) {
+        if (scanned == 0) {
+            return;
+        }
+        summaries.computeIfAbsent("filter|" + path, key -> DistributionSummary.builder("investments.filter.selectivity")
+                        .description("Share of scanned documents kept by the list filters (0-1)")
+                        .tag("path", path)
+                        .serviceLevelObjectives(0.01, 0.1, 0.25, 0.5, 0.75, 1.0)
+                        .register(registry))
+                .record((double) matched / scanned);
+        counters.computeIfAbsent("filter.scanned|" + path, key -> Counter.builder("investments.filter.scanned")
+                        .description("Documents scanned by the list filters")
+                        .tag("path", path)
+                        .register(registry))
+                .increment(scanned);
+    }
+
+    public void recordJwtVerification(long startNanos, boolean valid) {
+        String outcome = valid ? "valid" : "invalid";
+        timers.computeIfAbsent("jwt|" + outcome, key -> Timer.builder("jwt.verifications")
+                        .description("Bearer token verifications (cached or not)")
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,124 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The validated changes of a PATCH /api/investments/{id} body
+ * Only the registration form's fields can be edited; createdAt and the referral are kept.
+ * Each field is checked against the constraints of {@link InvestmentRequest}, and the
+ * "Other" rules of {@link InvestmentRules} against the fields in the patch - so a patch
+ * that sets profession to "Other" must carry professionOther too. The stored document is
+ * not read, which keeps an edit to a single RPC.
+ */
+public final class InvestmentPatch {
+
+    private static final Set<String> STRING_FIELDS = Set.of(
+            "firstName", "middleName", "lastName", "age", "mobileNumber", "emailAddress",
+            "profession", "professionOther", "currentInvestmentsOther", "mostInterestedIn");
+    private static final String LIST_FIELD = "currentInvestments";
+
+    private final Map<String, Object> changes;
+    private final List<String> errors;
+
+    private InvestmentPatch(Map<String, Object> changes, List<String> errors) {
+        this.changes = changes;
+        this.errors = errors;
+    }
+
+    public static InvestmentPatch of(Map<String, Object> body, Validator validator) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        InvestmentRequest partial = new InvestmentRequest();
+
+        if (body == null || body.isEmpty()) {
+            errors.add("No fields to update");
+            return new InvestmentPatch(changes, errors);
+        }
+
+        for (Map.Entry<String, Object> field : body.entrySet()) {
+            String name = field.getKey();
+            Object value = field.getValue();
+            if (STRING_FIELDS.contains(name)) {
+                if (value != null && !(value instanceof String)) {
+                    errors.add(name + " must be a string");
+                    continue;
+                }
+            } else if (LIST_FIELD.equals(name)) {
+                if (value != null && !isStringList(value)) {
+                    errors.add(name + " must be a list of strings");
+                    continue;
+                }
+            } else {
+                errors.add(name + " can't be updated");
+                continue;
+            }
+
+            for (ConstraintViolation<InvestmentRequest> violation : validator.validateValue(InvestmentRequest.class, name, value)) {
+                errors.add(violation.getMessage());
+            }
+            setField(partial, name, value);
+            changes.put(name, value);
+        }
+
+        if (errors.isEmpty()) {
+            InvestmentRules.Violation violation = InvestmentRules.checkOtherFields(partial);
+            if (violation != null) {
+                errors.add(violation.getError());
+            }
+        }
+        return new InvestmentPatch(changes, errors);
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Field name -> new value (null clears an optional field)
+     */
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+
+    private static boolean isStringList(Object value) {
+        if (!(value instanceof List)) {
+            return false;
+        }
+        for (Object item : (List<?>) value) {
+            if (!(item instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setField(InvestmentRequest request, String name, Object value) {
+        switch (name) {
+            case "firstName" -> request.setFirstName((String) value);
+            case "middleName" -> request.setMiddleName((String) value);
+            case "lastName" -> request.setLastName((String) value);
+            case "age" -> request.setAge((String) value);
+            case "mobileNumber" -> request.setMobileNumber((String) value);
+            case "emailAddress" -> request.setEmailAddress((String) value);
+            case "profession" -> request.setProfession((String) value);
+            case "professionOther" -> request.setProfessionOther((String) value);
+            case "currentInvestments" -> request.setCurrentInvestments((List<String>) value);
+            case "currentInvestmentsOther" -> request.setCurrentInvestmentsOther((String) value);
+            case "mostInterestedIn" -> request.setMostInterestedIn((String) value);
+            default -> throw new IllegalArgumentException("Unknown field: " + name);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import com.Investment.Investment.dto.PaginatedResponse;
+import com.Investment.Investment.util.CursorUtil;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Optional in-memory read model of the investments collection
+ * A single Firestore snapshot listener keeps a concurrent index sorted by createdAt in sync;
+ * its first snapshot is the initial load. Reads must check {@link #isReady()} and fall back
+ * to Firestore until that initial sync has completed (or after the listener fails).
+ *
+ * Enabled with investments.read-model.enabled=true
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class InvestmentReadModel {
+
+    private static final String COLLECTION_NAME = "investments";
+    private static final long RESUBSCRIBE_DELAY_MS = 5000;
+
+    // Newest first, ties broken by document ID - same order as the Firestore list queries
+    static final Comparator<SortKey> SORT_ORDER = Comparator
+            .comparingLong(SortKey::getCreatedAt).reversed()
+            .thenComparing(SortKey::getId, Comparator.reverseOrder());
+
+    private final Firestore firestore;
+    private final NameSearchIndex nameIndex;
+
+    @Value("${investments.read-model.enabled:false}")
+    private boolean enabled;
+
+    private volatile Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private volatile NavigableMap<SortKey, Entry> ordered = new ConcurrentSkipListMap<>(SORT_ORDER);
+
+    private volatile boolean ready = false;
+    private volatile long lastSnapshotAt = 0;
+    // Newest update time seen, only touched by the listener thread
+    private Timestamp maxUpdateTime;
+    private volatile String version;
+    private volatile ListenerRegistration registration;
+    private ScheduledExecutorService scheduler;
+    private final List<BiConsumer<InvestmentResponse, String>> registrationWatchers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public InvestmentReadModel(Firestore firestore, NameSearchIndex nameIndex) {
+        this.firestore = firestore;
+        this.nameIndex = nameIndex;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "investment-read-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+        subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        ready = false;
+        if (registration != null) {
+            registration.remove();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void subscribe() {
+        // The first event of every new subscription carries the full collection
+        final boolean[] initial = { true };
+        registration = firestore.collection(COLLECTION_NAME).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                System.err.println("Investment read model listener failed: " + error.getMessage());
+                ready = false;
+                nameIndex.markStale();
+                if (registration != null) {
+                    registration.remove();
+                }
+                scheduler.schedule(this::subscribe, RESUBSCRIBE_DELAY_MS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+
+            if (initial[0]) {
+                rebuild(snapshot);
+                initial[0] = false;
+                ready = true;
+                System.out.println("Investment read model synced: " + byId.size() + " documents");
+            } else {
+                apply(snapshot);
+            }
+            lastSnapshotAt = System.currentTimeMillis();
+        });
+    }
+
+    private void rebuild(QuerySnapshot snapshot) {
+        // After a resubscribe, documents missing from the old index were added while the listener was down
+        Map<String, Entry> oldById = lastSnapshotAt != 0 ? byId : null;
+        Map<String, Entry> newById = new ConcurrentHashMap<>();
+        NavigableMap<SortKey, Entry> newOrdered = new ConcurrentSkipListMap<>(SORT_ORDER);
+        nameIndex.clear();
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            Entry entry = toEntry(document);
+            if (entry != null) {
+                newById.put(entry.getResponse().getId(), entry);
+                newOrdered.put(entry.getSortKey(), entry);
+                nameIndex.put(document.getId(), document.getData());
+            }
+        }
+        byId = newById;
+        ordered = newOrdered;
+        nameIndex.markReady();
+
+        maxUpdateTime = null;
+        for (Entry entry : newById.values()) {
+            trackUpdateTime(entry.getUpdateTime());
+        }
+        updateVersion();
+
+        if (oldById != null) {
+            for (Entry entry : newById.values()) {
+                if (!oldById.containsKey(entry.getResponse().getId())) {
+                    announce(entry);
+                }
+            }
+        }
+    }
+
+    private void apply(QuerySnapshot snapshot) {
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            String id = change.getDocument().getId();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                Entry removed = byId.remove(id);
+                if (removed != null) {
+                    ordered.remove(removed.getSortKey());
+                }
+                nameIndex.remove(id);
+                continue;
+            }
+
+            // ADDED or MODIFIED
+            Entry entry = toEntry(change.getDocument());
+            if (entry == null) {
+                continue;
+            }
+            Entry previous = byId.put(id, entry);
+            if (previous != null && !previous.getSortKey().equals(entry.getSortKey())) {
+                ordered.remove(previous.getSortKey());
+            }
+            ordered.put(entry.getSortKey(), entry);
+            nameIndex.put(id, change.getDocument().getData());
+            trackUpdateTime(entry.getUpdateTime());
+            if (previous == null && change.getType() == DocumentChange.Type.ADDED) {
+                announce(entry);
+            }
+        }
+        // Published after the data, so a reader that sees the new version also sees the changes
+        updateVersion();
+    }
+
+    private void announce(Entry entry) {
+        for (BiConsumer<InvestmentResponse, String> watcher : registrationWatchers) {
+            watcher.accept(entry.getResponse(), entry.getInfluencerId());
+        }
+    }
+
+    /**
+     * Calls the watcher with every investment the listener sees added after the initial sync,
+     * including those added while it was resubscribing
+     *
+     * @return removes the watcher
+     */
+    public Runnable addRegistrationWatcher(BiConsumer<InvestmentResponse, String> watcher) {
+        registrationWatchers.add(watcher);
+        return () -> registrationWatchers.remove(watcher);
+    }
+
+    private void trackUpdateTime(Timestamp updateTime) {
+        if (updateTime != null && (maxUpdateTime == null || updateTime.compareTo(maxUpdateTime) > 0)) {
+            maxUpdateTime = updateTime;
+        }
+    }
+
+    /**
+     * Every write raises the newest update time and every delete lowers the count, and a
+     * deleted document can't come back with its old update time - so the pair changes
+     * whenever the collection does, and is the same on every instance holding the same data.
+     */
+    private void updateVersion() {
+        Timestamp newest = maxUpdateTime != null ? maxUpdateTime : Timestamp.MIN_VALUE;
+        version = newest.getSeconds() + "." + newest.getNanos() + "-" + byId.size();
+    }
+
+    private Entry toEntry(DocumentSnapshot document) {
+        InvestmentResponse response = InvestmentMapper.mapToInvestmentResponse(document);
+        if (response == null) {
+            return null;
+        }
+        long createdAt = response.getCreatedAt() != null ? response.getCreatedAt() : 0L;
+        return new Entry(response, document.getString("influencerId"),
+                new SortKey(createdAt, document.getId()), document.getUpdateTime());
+    }
+
+    /**
+     * Whether the initial sync has completed and the listener is healthy
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Milliseconds since the listener last delivered a snapshot, or -1 before the first one
+     * Firestore only pushes snapshots on change, so a quiet collection also shows a growing value.
+     */
+    public long getStalenessMillis() {
+        return lastSnapshotAt == 0 ? -1 : System.currentTimeMillis() - lastSnapshotAt;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Version of the whole collection, which changes with every write; null until ready
+     * Read it before reading the data it versions.
+     */
+    public String getVersion() {
+        return ready ? version : null;
+    }
+
+    public List<InvestmentResponse> findAll() {
+        List<InvestmentResponse> investments = new ArrayList<>(byId.size());
+        for (Entry entry : ordered.values()) {
+            investments.add(entry.getResponse());
+        }
+        return investments;
+    }
+
+    /**
+     * Matching investments, newest first, as a live view over the index (no copy)
+     */
+    public Iterable<InvestmentResponse> findAll(InvestmentFilter filter) {
+        return () -> slice(ordered, null, filter).values().stream()
+                .filter(entry -> filter.matches(entry.getResponse(), entry.getInfluencerId()))
+                .map(Entry::getResponse)
+                .iterator();
+    }
+
+    public InvestmentResponse findById(String id) {
+        Entry entry = byId.get(id);
+        return entry != null ? entry.getResponse() : null;
+    }
+
+    Entry findEntry(String id) {
+        return byId.get(id);
+    }
+
+    public PaginatedResponse<InvestmentResponse> findPage(int page, int size, InvestmentFilter filter) {
+        long startIndex = (long) page * size;
+        long totalElements = 0;
+        List<InvestmentResponse> pageItems = new ArrayList<>();
+
+        for (Entry entry : slice(ordered, null, filter).values()) {
+            if (filter.matches(entry.getResponse(), entry.getInfluencerId())) {
+                if (totalElements >= startIndex && pageItems.size() < size) {
+                    pageItems.add(entry.getResponse());
+                }
+                totalElements++;
+            }
+        }
+
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        return PaginatedResponse.<InvestmentResponse>builder()
+                .data(pageItems)
+                .page(page)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages(totalPages)
+                .hasNext(page < totalPages - 1)
+                .hasPrevious(page > 0)
+                .build();
+    }
+
+    public PaginatedResponse<InvestmentResponse> findByCursor(CursorUtil.Position position, int size, InvestmentFilter filter) {
+        NavigableMap<SortKey, Entry> view = slice(ordered,
+                position != null ? new SortKey(position.getCreatedAt(), position.getId()) : null, filter);
+
+        List<InvestmentResponse> pageItems = new ArrayList<>();
+        boolean hasNext = false;
+        for (Entry entry : view.values()) {
+            if (filter.matches(entry.getResponse(), entry.getInfluencerId())) {
+                if (pageItems.size() == size) {
+                    hasNext = true;
+                    break;
+                }
+                pageItems.add(entry.getResponse());
+            }
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            InvestmentResponse lastItem = pageItems.get(pageItems.size() - 1);
+            nextCursor = CursorUtil.encode(lastItem.getCreatedAt(), lastItem.getId());
+        }
+
+        return PaginatedResponse.<InvestmentResponse>builder()
+                .data(pageItems)
+                .size(size)
+                .totalElements(-1)
+                .totalPages(-1)
+                .hasNext(hasNext)
+                .hasPrevious(position != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * The part of an index after a cursor position and inside the filter's createdAt range
+     * Within one createdAt, SortKey(createdAt, "") sorts last, so it bounds the whole millisecond.
+     *
+     * @param after Exclusive start (the cursor row), or null
+     */
+    static <V> NavigableMap<SortKey, V> slice(NavigableMap<SortKey, V> map, SortKey after, InvestmentFilter filter) {
+        if (map.isEmpty()) {
+            // Also covers Collections.emptyNavigableMap(), which can't compare SortKeys
+            return map;
+        }
+        SortKey start = after;
+        if (filter.getTo() != null) {
+            // Everything created at or after "to" sorts up to this key
+            SortKey rangeStart = new SortKey(filter.getTo(), "");
+            if (start == null || SORT_ORDER.compare(rangeStart, start) > 0) {
+                start = rangeStart;
+            }
+        }
+        SortKey end = filter.getFrom() != null ? new SortKey(filter.getFrom(), "") : null;
+
+        if (start != null && end != null) {
+            return SORT_ORDER.compare(start, end) > 0 ? Collections.emptyNavigableMap() : map.subMap(start, false, end, true);
+        }
+        if (start != null) {
+            return map.tailMap(start, false);
+        }
+        return end != null ? map.headMap(end, true) : map;
+    }
+
+    static final class Entry {
+        private final InvestmentResponse response;
+        private final String influencerId;
+        private final SortKey sortKey;
+        private final Timestamp updateTime;
+
+        Entry(InvestmentResponse response, String influencerId, SortKey sortKey, Timestamp updateTime) {
+            this.response = response;
+            this.influencerId = influencerId;
+            this.sortKey = sortKey;
+            this.updateTime = updateTime;
+        }
+
+        InvestmentResponse getResponse() {
+            return response;
+        }
+
+        String getInfluencerId() {
+            return influencerId;
+        }
+
+        SortKey getSortKey() {
+            return sortKey;
+        }
+
+        Timestamp getUpdateTime() {
+            return updateTime;
+        }
+    }
+
+    static final class SortKey {
+        private final long createdAt;
+        private final String id;
+
+        SortKey(long createdAt, String id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        long getCreatedAt() {
+            return createdAt;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SortKey)) {
+                return false;
+            }
+            SortKey other = (SortKey) o;
+            return createdAt == other.createdAt && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(createdAt) + id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.Investment.Investment.dto.InvestmentResponse;
+import com.Investment.Investment.dto.PaginatedResponse;
+import com.google.cloud.Timestamp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The investments store behind the public and admin endpoints
+ * {@link FirebaseService} keeps the data in Firestore (the default); with the in-memory
+ * profile {@link InMemoryInvestmentRepository} keeps it in this process, so the API can be
+ * run and load-tested without Google credentials or network access.
+ *
+ * Failures carry the gRPC status Firestore would use (NOT_FOUND, FAILED_PRECONDITION, ...),
+ * checked with {@link com.Investment.Investment.util.ApiFutureUtil#hasStatus}.
+ */
+public interface InvestmentRepository {
+
+    /**
+     * Save a registration unless it repeats an earlier one (same email and mobile, or same
+     * idempotency key), in which case the original ID is returned and nothing is written
+     *
+     * @param influencerId Optional referral code; must already be validated
+     * @param sendEmail Whether to send the reservation confirmation email
+     * @param idempotencyKey Optional client-supplied key (Idempotency-Key header)
+     */
+    CompletableFuture<Registration> registerInvestmentAsync(InvestmentRequest request, String influencerId,
+                                                            boolean sendEmail, String idempotencyKey);
+
+    /**
+     * A page of investments, newest first, with the total number of matches
+     *
+     * @param filter Name, influencer and createdAt filters
+     * @param projection Properties the caller will emit; others may be left null
+     */
+    CompletableFuture<PaginatedResponse<InvestmentResponse>> getAllInvestmentsPaginatedAsync(int page, int size, InvestmentFilter filter,
+                                                                                             FieldProjection projection);
+
+    /**
+     * A page of investments after a keyset cursor (createdAt, then ID, both descending)
+     *
+     * @param cursor Opaque cursor from a previous page's nextCursor; null or empty for the first page
+     * @throws IllegalArgumentException If the cursor is malformed (possibly through the future)
+     */
+    CompletableFuture<PaginatedResponse<InvestmentResponse>> getInvestmentsByCursorAsync(String cursor, int size, InvestmentFilter filter,
+                                                                                         FieldProjection projection);
+
+    /**
+     * Walk every investment matching the list filters, newest first, in chunks
+     *
+     * @param chunkConsumer Receives each chunk; may throw to abort the walk
+     */
+    void forEachInvestmentChunk(InvestmentFilter filter, int chunkSize, Consumer<List<InvestmentResponse>> chunkConsumer);
+
+    /**
+     * @return null if the investment does not exist
+     */
+    CompletableFuture<InvestmentVersion> getInvestmentVersionAsync(String id);
+
+    /**
+     * Version of the whole collection for ETags of list queries, or null if not known
+     * Read it before the list it versions.
+     */
+    String getInvestmentsVersion();
+
+    /**
+     * Write only the changed fields of an investment, and bump updatedAt
+     * Fails with NOT_FOUND if the investment doesn't exist, and with FAILED_PRECONDITION if
+     * expectedUpdateTime is given and the investment has changed since.
+     *
+     * @return The investment's new update time
+     */
+    CompletableFuture<Timestamp> updateInvestmentAsync(String id, Map<String, Object> changes, Timestamp expectedUpdateTime);
+
+    /**
+     * Completes with false if the investment does not exist
+     */
+    CompletableFuture<Boolean> deleteInvestmentAsync(String id);
+
+    /**
+     * Watch for new registrations
+     * onRegistration receives each investment registered from now on, with its influencerId;
+     * after onError nothing more is delivered, and the caller may subscribe again.
+     *
+     * @return Stops watching
+     */
+    Runnable subscribeToRegistrations(BiConsumer<InvestmentResponse, String> onRegistration, Consumer<Throwable> onError);
+
+    /**
+     * Outcome of {@link #registerInvestmentAsync}
+     */
+    final class Registration {
+        private final String id;
+        private final boolean replayed;
+
+        Registration(String id, boolean replayed) {
+            this.id = id;
+            this.replayed = replayed;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Whether the request repeated an earlier registration, which was returned instead
+         */
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    final class InvestmentVersion {
+        private final InvestmentResponse investment;
+        private final Timestamp updateTime;
+
+        InvestmentVersion(InvestmentResponse investment, Timestamp updateTime) {
+            this.investment = investment;
+            this.updateTime = updateTime;
+        }
+
+        public InvestmentResponse getInvestment() {
+            return investment;
+        }
+
+        public Timestamp getUpdateTime() {
+            return updateTime;
+        }
+    }
+}
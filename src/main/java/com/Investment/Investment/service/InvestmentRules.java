@@ -0,0 +1,53 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+
+/**
+ * Cross-field rules of a registration that bean validation on {@link InvestmentRequest} can't express
+ * Shared by the registration endpoint and the bulk import.
+ */
+public final class InvestmentRules {
+
+    private InvestmentRules() {
+    }
+
+    /**
+     * Check the "Other" free-text fields
+     *
+     * @return The first violated rule, or null if the request is valid
+     */
+    public static Violation checkOtherFields(InvestmentRequest request) {
+        if ("Other".equalsIgnoreCase(request.getProfession()) &&
+            (request.getProfessionOther() == null || request.getProfessionOther().trim().isEmpty())) {
+            return new Violation("professionOther is required when profession is 'Other'",
+                    "If profession is 'Other', you must provide a value for professionOther");
+        }
+
+        if (request.getCurrentInvestments() != null &&
+            request.getCurrentInvestments().stream().anyMatch(inv -> "Other".equalsIgnoreCase(inv)) &&
+            (request.getCurrentInvestmentsOther() == null || request.getCurrentInvestmentsOther().trim().isEmpty())) {
+            return new Violation("currentInvestmentsOther is required when currentInvestments contains 'Other'",
+                    "If currentInvestments contains 'Other', you must provide a value for currentInvestmentsOther");
+        }
+
+        return null;
+    }
+
+    public static final class Violation {
+        private final String error;
+        private final String message;
+
+        Violation(String error, String message) {
+            this.error = error;
+            this.message = message;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
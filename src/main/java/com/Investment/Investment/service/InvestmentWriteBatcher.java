@@ -0,0 +1,235 @@
+package com.Investment.Investment.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Group commit for registration writes
+ * Writes submitted within investments.group-commit.linger-ms of each other are coalesced
+ * into one WriteBatch (up to max-batch-size submissions and Firestore's 500 writes per commit),
+ * and each caller's future completes with its own document ID. Commits are pipelined: the
+ * next group is collected while the previous one is in flight.
+ *
+ * A WriteBatch is all-or-nothing, so if a group commit fails each submission is retried on
+ * its own and only the failing one sees the error.
+ *
+ * Enabled with investments.group-commit.enabled=true
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class InvestmentWriteBatcher {
+
+    // Firestore's limit of writes per commit
+    private static final int MAX_WRITES_PER_COMMIT = 500;
+
+    private final Firestore firestore;
+
+    @Value("${investments.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${investments.group-commit.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${investments.group-commit.linger-ms:5}")
+    private long lingerMs;
+
+    private final LinkedBlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    // Submitters check running and enqueue under the read lock, so once stop() has flipped it
+    // under the write lock nothing more is added to the queue
+    private final ReadWriteLock submission = new ReentrantReadWriteLock();
+    private volatile boolean running = false;
+    private Thread flusher;
+
+    @Autowired
+    public InvestmentWriteBatcher(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::run, "investment-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        submission.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            submission.writeLock().unlock();
+        }
+        if (flusher != null) {
+            // The flusher commits the group it is collecting before it exits
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Whatever is still queued gets committed one by one
+        PendingWrite pending;
+        while ((pending = queue.poll()) != null) {
+            commitAlone(pending);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue writes for the next group commit
+     *
+     * @param id The document ID the future completes with
+     * @param writes Adds this caller's writes to the shared batch
+     * @param writeCount Number of writes {@code writes} adds
+     */
+    public CompletableFuture<String> submit(String id, Consumer<WriteBatch> writes, int writeCount) {
+        PendingWrite pending = new PendingWrite(id, writes, writeCount);
+        boolean queued = false;
+        submission.readLock().lock();
+        try {
+            if (running) {
+                queue.add(pending);
+                queued = true;
+            }
+        } finally {
+            submission.readLock().unlock();
+        }
+        if (!queued) {
+            commitAlone(pending);
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        while (running) {
+            List<PendingWrite> group = new ArrayList<>();
+            try {
+                PendingWrite first = queue.take();
+                group.add(first);
+                int writes = first.writeCount;
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (group.size() < maxBatchSize) {
+                    PendingWrite next = queue.peek();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                    } else {
+                        queue.poll();
+                    }
+                    if (writes + next.writeCount > MAX_WRITES_PER_COMMIT) {
+                        // Doesn't fit - it starts the next group
+                        commitGroup(group);
+                        group = new ArrayList<>();
+                        writes = 0;
+                    }
+                    group.add(next);
+                    writes += next.writeCount;
+                }
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                // Stopping: the group collected so far still has callers waiting on it
+                if (!group.isEmpty()) {
+                    commitGroup(group);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void commitGroup(List<PendingWrite> group) {
+        if (group.size() == 1) {
+            commitAlone(group.get(0));
+            return;
+        }
+        WriteBatch batch = firestore.batch();
+        for (PendingWrite pending : group) {
+            pending.writes.accept(batch);
+        }
+        addCallback(batch.commit(), new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(List<WriteResult> results) {
+                for (PendingWrite pending : group) {
+                    pending.future.complete(pending.id);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                // Isolate the failing submission(s)
+                for (PendingWrite pending : group) {
+                    commitAlone(pending);
+                }
+            }
+        });
+    }
+
+    private void commitAlone(PendingWrite pending) {
+        WriteBatch batch = firestore.batch();
+        pending.writes.accept(batch);
+        addCallback(batch.commit(), new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(List<WriteResult> results) {
+                pending.future.complete(pending.id);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                pending.future.completeExceptionally(error);
+            }
+        });
+    }
+
+    private static void addCallback(ApiFuture<List<WriteResult>> future, ApiFutureCallback<List<WriteResult>> callback) {
+        ApiFutures.addCallback(future, callback, MoreExecutors.directExecutor());
+    }
+
+    private static final class PendingWrite {
+        private final String id;
+        private final Consumer<WriteBatch> writes;
+        private final int writeCount;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        PendingWrite(String id, Consumer<WriteBatch> writes, int writeCount) {
+            this.id = id;
+            this.writes = writes;
+            this.writeCount = writeCount;
+        }
+    }
+}
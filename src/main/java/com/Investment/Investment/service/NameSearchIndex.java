@@ -0,0 +1,354 @@
+package com.Investment.Investment.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram inverted index over normalized first/middle/last names
+ * Substring searches intersect the postings of the search term's trigrams and verify the
+ * few candidates instead of scanning every document.
+ *
+ * Fed by the read model's snapshot listener, which also covers writes from other instances
+ * and the console, plus this instance's own saves and deletes. It is only ready while that
+ * listener is synced; without the read model it could only see this instance's writes and
+ * would silently miss the rest, so it stays disabled.
+ *
+ * Enabled with investments.name-index.enabled=true (requires investments.read-model.enabled=true)
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class NameSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final String[] NAME_FIELDS = { "firstName", "middleName", "lastName" };
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Rough JVM object sizes used by estimatedMemoryBytes()
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    private static final long GRAM_OVERHEAD_BYTES = 150;
+    private static final long POSTING_BYTES = 40;
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparingLong(Entry::getCreatedAt).reversed()
+            .thenComparing(Entry::getId, Comparator.reverseOrder());
+
+    @Value("${investments.name-index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${investments.read-model.enabled:false}")
+    private boolean readModelEnabled;
+
+    private final Map<String, Entry> documents = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void checkSource() {
+        if (enabled && !readModelEnabled) {
+            System.err.println("Name search index disabled: it needs investments.read-model.enabled=true to stay in sync");
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Called by the read model once its initial snapshot has been indexed
+     */
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Called by the read model when its listener fails: searches fall back to Firestore
+     * until the next initial snapshot has been indexed
+     */
+    void markStale() {
+        ready = false;
+    }
+
+    /**
+     * Drop everything, e.g. before the read model rebuilds from a fresh snapshot
+     */
+    void clear() {
+        ready = false;
+        documents.clear();
+        postings.clear();
+    }
+
+    /**
+     * Index (or re-index) a document from its stored field map
+     */
+    public void put(String id, Map<String, Object> data) {
+        if (!enabled || data == null) {
+            return;
+        }
+        String[] names = new String[NAME_FIELDS.length];
+        for (int i = 0; i < NAME_FIELDS.length; i++) {
+            Object value = data.get(NAME_FIELDS[i]);
+            names[i] = value instanceof String ? normalize((String) value) : "";
+        }
+        Object createdAt = data.get("createdAt");
+        Entry entry = new Entry(id,
+                createdAt instanceof Long ? (Long) createdAt : 0L,
+                names,
+                (String) data.get("influencerId"),
+                data.get("referredBy") instanceof String ? ((String) data.get("referredBy")).replace("+", " ") : null);
+        index(entry);
+    }
+
+    /**
+     * Re-index the names of an indexed document after a partial update
+     *
+     * @param changes Updated fields; fields other than the names are ignored
+     */
+    public void updateNames(String id, Map<String, ?> changes) {
+        if (!enabled) {
+            return;
+        }
+        Entry current = documents.get(id);
+        if (current == null) {
+            return;
+        }
+        String[] names = current.getNames().clone();
+        boolean changed = false;
+        for (int i = 0; i < NAME_FIELDS.length; i++) {
+            if (changes.containsKey(NAME_FIELDS[i])) {
+                Object value = changes.get(NAME_FIELDS[i]);
+                names[i] = value instanceof String ? normalize((String) value) : "";
+                changed = true;
+            }
+        }
+        if (changed) {
+            index(new Entry(id, current.getCreatedAt(), names, current.getInfluencerId(), current.getReferredBy()));
+        }
+    }
+
+    private void index(Entry entry) {
+        String id = entry.getId();
+        Entry previous = documents.put(id, entry);
+        if (previous != null) {
+            removePostings(previous);
+        }
+        for (String gram : grams(entry.getNames())) {
+            postings.compute(gram, (key, ids) -> {
+                Set<String> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                target.add(id);
+                return target;
+            });
+        }
+    }
+
+    public Entry get(String id) {
+        return documents.get(id);
+    }
+
+    public void remove(String id) {
+        if (!enabled) {
+            return;
+        }
+        Entry previous = documents.remove(id);
+        if (previous != null) {
+            removePostings(previous);
+        }
+    }
+
+    private void removePostings(Entry entry) {
+        for (String gram : grams(entry.getNames())) {
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(entry.getId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Find documents whose first, middle or last name contains the search term
+     * Same semantics as the original contains() filter, on normalized text.
+     *
+     * @return Matching entries, newest first
+     */
+    public List<Entry> search(String name) {
+        // Replace + with space (URL encoding)
+        String term = normalize(name.replace("+", " "));
+        List<Entry> matches = new ArrayList<>();
+        if (term.isEmpty()) {
+            return matches;
+        }
+
+        if (term.length() < GRAM_SIZE) {
+            // Too short for a trigram lookup - scan the in-memory entries instead
+            for (Entry entry : documents.values()) {
+                if (entry.nameContains(term)) {
+                    matches.add(entry);
+                }
+            }
+        } else {
+            List<Set<String>> termPostings = new ArrayList<>();
+            for (String gram : grams(new String[] { term })) {
+                Set<String> ids = postings.get(gram);
+                if (ids == null) {
+                    return matches;
+                }
+                termPostings.add(ids);
+            }
+            // Walk the smallest postings list and probe the others
+            termPostings.sort(Comparator.comparingInt(Set::size));
+            Set<String> smallest = termPostings.get(0);
+            for (String id : smallest) {
+                boolean inAll = true;
+                for (int i = 1; i < termPostings.size() && inAll; i++) {
+                    inAll = termPostings.get(i).contains(id);
+                }
+                if (!inAll) {
+                    continue;
+                }
+                // Trigram intersection can over-match, so confirm on the full names
+                Entry entry = documents.get(id);
+                if (entry != null && entry.nameContains(term)) {
+                    matches.add(entry);
+                }
+            }
+        }
+
+        matches.sort(NEWEST_FIRST);
+        return matches;
+    }
+
+    public int documentCount() {
+        return documents.size();
+    }
+
+    public int gramCount() {
+        return postings.size();
+    }
+
+    /**
+     * Approximate heap used by the index, in bytes
+     */
+    public long estimatedMemoryBytes() {
+        long bytes = 0;
+        for (Entry entry : documents.values()) {
+            bytes += ENTRY_OVERHEAD_BYTES + STRING_OVERHEAD_BYTES + entry.getId().length();
+            for (String value : entry.getNames()) {
+                bytes += STRING_OVERHEAD_BYTES + value.length();
+            }
+        }
+        for (Set<String> ids : postings.values()) {
+            bytes += GRAM_OVERHEAD_BYTES + POSTING_BYTES * ids.size();
+        }
+        return bytes;
+    }
+
+    /**
+     * Lowercase, strip diacritics/harakat and fold Arabic letter variants
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        // NFKD splits hamza/madda carriers (أ إ آ ؤ ئ) and presentation forms into base letter + mark
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = stripped.charAt(i);
+            switch (c) {
+                case 'ـ': // Tatweel
+                    continue;
+                case 'ٱ': // Alef wasla
+                    c = 'ا';
+                    break;
+                case 'ى': // Alef maksura -> yeh
+                    c = 'ي';
+                    break;
+                case 'ة': // Teh marbuta -> heh
+                    c = 'ه';
+                    break;
+                default:
+                    break;
+            }
+            normalized.append(c);
+        }
+        return WHITESPACE.matcher(normalized.toString().toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static Set<String> grams(String[] values) {
+        Set<String> grams = new HashSet<>();
+        for (String value : values) {
+            for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+                grams.add(value.substring(i, i + GRAM_SIZE));
+            }
+        }
+        return grams;
+    }
+
+    public static final class Entry {
+        private final String id;
+        private final long createdAt;
+        private final String[] names;
+        private final String influencerId;
+        private final String referredBy;
+
+        Entry(String id, long createdAt, String[] names, String influencerId, String referredBy) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.names = names;
+            this.influencerId = influencerId;
+            this.referredBy = referredBy;
+        }
+
+        boolean nameContains(String term) {
+            for (String value : names) {
+                if (value.contains(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        String[] getNames() {
+            return names;
+        }
+
+        public String getInfluencerId() {
+            return influencerId;
+        }
+
+        public String getReferredBy() {
+            return referredBy;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.Investment.Investment.service;
+
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One-off backfill of referredByLower on investments written before that field existed
+ * Until it has run, the influencer filter matches those documents only by their exact
+ * referredBy, where it used to ignore case. Enabled with investments.backfill.referred-by-lower=true,
+ * it pages through the collection on startup and sets the field through a
+ * {@link ThrottledBulkWriter} wherever it is missing. Every update carries an update-time
+ * precondition, so a document changed meanwhile is skipped and picked up by the next run;
+ * once a run reports nothing left to update the flag can be removed.
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class ReferredByBackfill {
+
+    private static final String COLLECTION_NAME = "investments";
+
+    private final Firestore firestore;
+    private final RegistrationStatsService registrationStats;
+
+    @Value("${investments.backfill.referred-by-lower:false}")
+    private boolean enabled;
+
+    @Value("${investments.backfill.page-size:500}")
+    private int pageSize;
+
+    @Value("${investments.backfill.max-pending-writes:1000}")
+    private int maxPendingWrites;
+
+    @Value("${investments.backfill.initial-ops-per-second:100}")
+    private int initialOpsPerSecond;
+
+    @Value("${investments.backfill.max-ops-per-second:500}")
+    private int maxOpsPerSecond;
+
+    @Autowired
+    public ReferredByBackfill(Firestore firestore, RegistrationStatsService registrationStats) {
+        this.firestore = firestore;
+        this.registrationStats = registrationStats;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ThrottledBulkWriter.checkMaxPendingWrites("investments.backfill.max-pending-writes", maxPendingWrites);
+        Thread backfill = new Thread(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                // Documents updated so far keep the field; the next run continues with the rest
+                System.err.println("referredByLower backfill failed: " + e.getMessage());
+            }
+        }, "referred-by-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * @return Number of documents updated
+     */
+    long run() throws Exception {
+        Query query = firestore.collection(COLLECTION_NAME).select("referredBy", "referredByLower").orderBy(FieldPath.documentId());
+        AtomicLong updated = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long scanned = 0;
+        try (ThrottledBulkWriter writer = new ThrottledBulkWriter(firestore, registrationStats,
+                initialOpsPerSecond, maxOpsPerSecond, maxPendingWrites, "referredByLower backfill")) {
+            Query page = query.limit(pageSize);
+            List<QueryDocumentSnapshot> documents;
+            do {
+                documents = page.get().get().getDocuments();
+                for (QueryDocumentSnapshot document : documents) {
+                    String referredBy = document.getString("referredBy");
+                    if (referredBy == null) {
+                        continue;
+                    }
+                    String lower = referredBy.toLowerCase(Locale.ROOT);
+                    if (lower.equals(document.getString("referredByLower"))) {
+                        continue;
+                    }
+                    writer.submit(bulkWriter -> bulkWriter.update(document.getReference(),
+                                    Precondition.updatedAt(document.getUpdateTime()), "referredByLower", lower),
+                            (result, error) -> (error != null ? failed : updated).incrementAndGet());
+                }
+                scanned += documents.size();
+                if (!documents.isEmpty()) {
+                    page = query.startAfter(documents.get(documents.size() - 1)).limit(pageSize);
+                }
+            } while (documents.size() == pageSize);
+        }
+        System.out.println("referredByLower backfill: " + scanned + " scanned, " + updated.get() + " updated, "
+                + failed.get() + " failed");
+        return updated.get();
+    }
+}
@@ -0,0 +1,305 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.Investment.Investment.util.HashUtil;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Detects repeated registrations, so a retried form returns the original ID instead of
+ * writing (and emailing) a second time
+ * Every registration claims deterministic key documents in registrationKeys, created in the
+ * same commit as the investment: one for the natural key (normalized email + mobile) and one
+ * for the Idempotency-Key header if the client sent it. create() fails if a key is taken, so
+ * two concurrent submissions can't both win, on this instance or any other.
+ *
+ * A Bloom filter of known keys, warmed from Firestore at startup, answers "definitely new"
+ * for almost every registration without a read; only possible duplicates pay for a lookup
+ * of their key documents. Registrations made before key documents existed are confirmed by
+ * querying investments on email and mobile. Until the filter is warm every key is looked up.
+ *
+ * Idempotency keys carry an expiresAt field for a Firestore TTL policy; natural keys don't expire.
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class RegistrationDedupService {
+
+    public static final String KEYS_COLLECTION = "registrationKeys";
+    private static final String INVESTMENTS_COLLECTION = "investments";
+
+    static final String NATURAL_PREFIX = "nat_";
+    static final String IDEMPOTENCY_PREFIX = "idem_";
+    private static final String TYPE_NATURAL = "natural";
+    private static final String TYPE_IDEMPOTENCY = "idempotency";
+
+    private static final int WARM_UP_PAGE_SIZE = 1000;
+
+    private final Firestore firestore;
+    private final InvestmentReadModel readModel;
+
+    @Value("${registrations.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${registrations.dedup.expected-insertions:1000000}")
+    private int expectedInsertions;
+
+    @Value("${registrations.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${registrations.idempotency.ttl-hours:24}")
+    private long idempotencyTtlHours;
+
+    private BloomFilter<CharSequence> knownKeys;
+    private volatile boolean warm = false;
+
+    @Autowired
+    public RegistrationDedupService(Firestore firestore, InvestmentReadModel readModel) {
+        this.firestore = firestore;
+        this.readModel = readModel;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        // Guava's BloomFilter is safe for concurrent put and mightContain
+        knownKeys = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, falsePositiveRate);
+        Thread warmer = new Thread(() -> {
+            try {
+                long natural = warmFrom(firestore.collection(INVESTMENTS_COLLECTION).select("emailAddress", "mobileNumber"),
+                        document -> naturalKey(document.getString("emailAddress"), document.getString("mobileNumber")));
+                long idempotency = warmFrom(firestore.collection(KEYS_COLLECTION).whereEqualTo("type", TYPE_IDEMPOTENCY).select("type"),
+                        DocumentSnapshot::getId);
+                warm = true;
+                System.out.println("Registration dedup filter warmed: " + natural + " registrations, "
+                        + idempotency + " idempotency keys");
+            } catch (Exception e) {
+                // Stays cold: every key is looked up, which is slower but still correct
+                System.err.println("Error warming registration dedup filter: " + e.getMessage());
+            }
+        }, "registration-dedup-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    private long warmFrom(Query query, Function<QueryDocumentSnapshot, String> keyOf) throws Exception {
+        Query page = query.orderBy(FieldPath.documentId()).limit(WARM_UP_PAGE_SIZE);
+        long count = 0;
+        List<QueryDocumentSnapshot> documents;
+        do {
+            documents = page.get().get().getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                String key = keyOf.apply(document);
+                if (key != null) {
+                    knownKeys.put(key);
+                    count++;
+                }
+            }
+            if (!documents.isEmpty()) {
+                page = query.orderBy(FieldPath.documentId()).startAfter(documents.get(documents.size() - 1)).limit(WARM_UP_PAGE_SIZE);
+            }
+        } while (documents.size() == WARM_UP_PAGE_SIZE);
+        return count;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public long getApproximateKeyCount() {
+        return knownKeys != null ? knownKeys.approximateElementCount() : 0;
+    }
+
+    /**
+     * Key document IDs of a registration: the natural key, then the idempotency key if given
+     */
+    public List<String> keysFor(InvestmentRequest request, String idempotencyKey) {
+        List<String> keys = new ArrayList<>();
+        if (!enabled) {
+            return keys;
+        }
+        String natural = naturalKey(request.getEmailAddress(), request.getMobileNumber());
+        if (natural != null) {
+            keys.add(natural);
+        }
+        if (idempotencyKey != null && !idempotencyKey.trim().isEmpty()) {
+            keys.add(IDEMPOTENCY_PREFIX + HashUtil.sha256Hex(idempotencyKey.trim()));
+        }
+        return keys;
+    }
+
+    /**
+     * Find the registration a request repeats
+     *
+     * @param force Look up every key even if the Bloom filter has never seen it (after a lost create race)
+     * @return The original investment ID, or null if this is a new registration
+     */
+    public CompletableFuture<String> findExisting(InvestmentRequest request, List<String> keys, boolean force) {
+        List<DocumentReference> suspects = new ArrayList<>();
+        for (String key : keys) {
+            if (force || !warm || knownKeys.mightContain(key)) {
+                suspects.add(firestore.collection(KEYS_COLLECTION).document(key));
+            }
+        }
+        if (suspects.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return ApiFutureUtil.toCompletableFuture(firestore.getAll(suspects.toArray(new DocumentReference[0])))
+                .thenCompose(documents -> {
+                    boolean naturalSuspected = false;
+                    for (DocumentSnapshot document : documents) {
+                        if (document.exists() && document.getString("investmentId") != null) {
+                            return verify(document);
+                        }
+                        naturalSuspected |= document.getId().startsWith(NATURAL_PREFIX);
+                    }
+                    // No key document, but the filter may know it from a registration older than key documents
+                    return naturalSuspected && !force ? findLegacy(request) : CompletableFuture.completedFuture(null);
+                });
+    }
+
+    /**
+     * Claim the keys in the registration's commit; fails with ALREADY_EXISTS if one is taken
+     */
+    public void claimKeys(WriteBatch batch, List<String> keys, String investmentId, long now) {
+        for (String key : keys) {
+            Map<String, Object> keyData = new HashMap<>();
+            keyData.put("investmentId", investmentId);
+            keyData.put("createdAt", now);
+            if (key.startsWith(IDEMPOTENCY_PREFIX)) {
+                keyData.put("type", TYPE_IDEMPOTENCY);
+                keyData.put("expiresAt", Timestamp.ofTimeMicroseconds(
+                        TimeUnit.MILLISECONDS.toMicros(now) + TimeUnit.HOURS.toMicros(idempotencyTtlHours)));
+            } else {
+                keyData.put("type", TYPE_NATURAL);
+            }
+            batch.create(firestore.collection(KEYS_COLLECTION).document(key), keyData);
+        }
+    }
+
+    /**
+     * Move a registration's natural key along with a patch of its email or mobile number
+     * Adds the writes to the batch that updates the investment: the new key is created (the
+     * commit fails with ALREADY_EXISTS if another registration has that pair) and the old one
+     * is released if it still points at this investment.
+     *
+     * @param current The investment as read for the patch; the batch must be conditional on its update time
+     * @return The new key, or null if the patch leaves the natural key as it was
+     */
+    public CompletableFuture<String> moveNaturalKey(WriteBatch batch, DocumentSnapshot current,
+                                                    Map<String, Object> changes, long now) {
+        String oldKey = naturalKey(current.getString("emailAddress"), current.getString("mobileNumber"));
+        String newKey = naturalKey(
+                (String) changes.getOrDefault("emailAddress", current.getString("emailAddress")),
+                (String) changes.getOrDefault("mobileNumber", current.getString("mobileNumber")));
+        if (!enabled || Objects.equals(oldKey, newKey)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (newKey != null) {
+            claimKeys(batch, List.of(newKey), current.getId(), now);
+        }
+        if (oldKey == null) {
+            return CompletableFuture.completedFuture(newKey);
+        }
+        DocumentReference oldKeyRef = firestore.collection(KEYS_COLLECTION).document(oldKey);
+        return ApiFutureUtil.toCompletableFuture(oldKeyRef.get()).thenApply(oldKeyDocument -> {
+            if (current.getId().equals(oldKeyDocument.getString("investmentId"))) {
+                batch.delete(oldKeyRef, Precondition.updatedAt(oldKeyDocument.getUpdateTime()));
+            }
+            return newKey;
+        });
+    }
+
+    /**
+     * Record the keys of a committed registration
+     */
+    public void remember(List<String> keys) {
+        if (knownKeys == null) {
+            return;
+        }
+        for (String key : keys) {
+            knownKeys.put(key);
+        }
+    }
+
+    /**
+     * The key points at an investment; replay it unless that investment has since been deleted
+     */
+    private CompletableFuture<String> verify(DocumentSnapshot keyDocument) {
+        String investmentId = keyDocument.getString("investmentId");
+        if (readModel.isReady() && readModel.findById(investmentId) != null) {
+            return CompletableFuture.completedFuture(investmentId);
+        }
+        return ApiFutureUtil.toCompletableFuture(firestore.collection(INVESTMENTS_COLLECTION).document(investmentId).get())
+                .thenCompose(investment -> {
+                    if (investment.exists()) {
+                        return CompletableFuture.completedFuture(investmentId);
+                    }
+                    // Deleted by an admin: free the key so the person can register again
+                    return ApiFutureUtil.toCompletableFuture(keyDocument.getReference().delete(
+                                    Precondition.updatedAt(keyDocument.getUpdateTime())))
+                            .handle((result, error) -> (String) null);
+                });
+    }
+
+    private CompletableFuture<String> findLegacy(InvestmentRequest request) {
+        if (request.getEmailAddress() == null || request.getMobileNumber() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Query query = firestore.collection(INVESTMENTS_COLLECTION)
+                .whereEqualTo("emailAddress", request.getEmailAddress())
+                .whereEqualTo("mobileNumber", request.getMobileNumber())
+                .select("createdAt")
+                .limit(1);
+        return ApiFutureUtil.toCompletableFuture(query.get())
+                .thenApply(snapshot -> snapshot.isEmpty() ? null : snapshot.getDocuments().get(0).getId());
+    }
+
+    /**
+     * Natural key of a registration, or null without both an email and a mobile number
+     * Email is case-insensitive; the mobile number is compared on its digits only.
+     */
+    static String naturalKey(String emailAddress, String mobileNumber) {
+        if (emailAddress == null || mobileNumber == null) {
+            return null;
+        }
+        String email = emailAddress.trim().toLowerCase(Locale.ROOT);
+        String mobile = mobileNumber.replaceAll("[^0-9]", "");
+        if (email.isEmpty() || mobile.isEmpty()) {
+            return null;
+        }
+        return NATURAL_PREFIX + HashUtil.sha256Hex(email + "|" + mobile);
+    }
+}
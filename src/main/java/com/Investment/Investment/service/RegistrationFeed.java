@@ -0,0 +1,260 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live feed of new registrations for GET /api/investments/stream (Server-Sent Events)
+ * One repository subscription is shared by every connected client: it is opened with the
+ * first client and closed with the last, so N dashboards cost at most one Firestore listener. Each
+ * registration is serialized once and queued to the clients whose filter it matches.
+ *
+ * Every client has a bounded buffer drained by its own sender task, so a slow client never
+ * delays the listener or the others; a client whose buffer overflows is disconnected (its
+ * EventSource reconnects and can re-read the list). Heartbeat comments keep proxies from
+ * closing idle streams and also overflow the buffer of a client that stopped reading.
+ */
+@Service
+public class RegistrationFeed {
+
+    private static final String EVENT_NAME = "registration";
+    // Suggested to EventSource clients for reconnecting after a disconnect
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final InvestmentRepository investmentRepository;
+    private final JsonMapper jsonMapper;
+
+    @Value("${investments.stream.max-subscribers:100}")
+    private int maxSubscribers;
+
+    @Value("${investments.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${investments.stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${investments.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong droppedCount = new AtomicLong();
+    // The shared repository subscription, guarded by this
+    private Runnable unsubscribe;
+    private ExecutorService senders;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public RegistrationFeed(InvestmentRepository investmentRepository, JsonMapper jsonMapper) {
+        this.investmentRepository = investmentRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        // At most one sender per client is busy at a time, so threads are bounded by max-subscribers
+        senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "registration-feed-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "registration-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            if (unsubscribe != null) {
+                unsubscribe.run();
+                unsubscribe = null;
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+    }
+
+    /**
+     * Connect a client
+     *
+     * @param filter Name and influencer filters (createdAt bounds are ignored)
+     * @throws IllegalStateException If max-subscribers clients are already connected
+     */
+    public SseEmitter subscribe(InvestmentFilter filter) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new IllegalStateException("Too many live feed clients (" + maxSubscribers + ")");
+            }
+            subscribers.add(subscriber);
+            if (unsubscribe == null) {
+                unsubscribe = investmentRepository.subscribeToRegistrations(this::publish, this::onListenerError);
+            }
+        }
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        // Sends the response headers right away, so the client sees the stream as open
+        subscriber.offer(SseEmitter.event().comment("connected").reconnectTime(RECONNECT_DELAY_MS).build());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Clients disconnected because they fell behind, since startup
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void publish(InvestmentResponse response, String influencerId) {
+        Set<ResponseBodyEmitter.DataWithMediaType> event = null;
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.filter.matches(response, influencerId)) {
+                continue;
+            }
+            if (event == null) {
+                event = SseEmitter.event()
+                        .id(response.getId())
+                        .name(EVENT_NAME)
+                        .data(jsonMapper.writeValueAsString(response))
+                        .build();
+            }
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * The repository stops delivering after an error: disconnect everyone so the clients
+     * reconnect (and re-read what they missed); the first of them opens a new subscription
+     */
+    private void onListenerError(Throwable error) {
+        System.err.println("Registration feed listener failed: " + error.getMessage());
+        synchronized (this) {
+            unsubscribe = null;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+    }
+
+    private void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> event = SseEmitter.event().comment("keep-alive").build();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        synchronized (this) {
+            if (subscribers.remove(subscriber) && subscribers.isEmpty() && unsubscribe != null) {
+                unsubscribe.run();
+                unsubscribe = null;
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final InvestmentFilter filter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        // Set once the emitter is completed or broken, only by the (serialized) drain
+        private volatile boolean done;
+
+        Subscriber(SseEmitter emitter, InvestmentFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Queue an event without blocking; drops the client if its buffer is full
+         */
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                droppedCount.incrementAndGet();
+                System.out.println("Registration feed client dropped: " + bufferSize + " events behind");
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * Disconnect; the emitter is completed by a sender, as completing it waits for a send in progress
+         */
+        void close() {
+            closed = true;
+            remove(this);
+            buffer.clear();
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                while (!done && !closed && (event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+                if (!done && closed) {
+                    done = true;
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                // Client went away (IOException) or the emitter already completed
+                done = true;
+                closed = true;
+                remove(this);
+            } finally {
+                draining.set(false);
+            }
+            // An event or a close that arrived after the checks above but before draining was cleared
+            if (!done && (closed || !buffer.isEmpty())) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.HistogramBucket;
+import com.Investment.Investment.dto.InfluencerStats;
+import com.Investment.Investment.dto.RegistrationHistogramResponse;
+import com.Investment.Investment.dto.RegistrationStatsResponse;
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sharded registration counters per influencer, in total, per day and per hour
+ * Every registration increments one random shard of its influencer's total, daily and hourly
+ * counters, in the same batch as the investment itself. Spreading increments over
+ * stats.counters.shards documents keeps a hot influencer under Firestore's sustained write
+ * rate per document; reading the stats sums influencers x shards small documents instead of
+ * scanning the investments collection, and a histogram reads one bucket's shards per
+ * influencer instead of the investments in its range.
+ *
+ * Registrations saved before the counters existed are not included.
+ */
+@Service
+@Profile("!" + InMemoryInvestmentRepository.PROFILE)
+public class RegistrationStatsService {
+
+    public static final String COUNTERS_COLLECTION = "registrationCounters";
+
+    // Key for registrations without an influencer (e.g. an unknown ref that slipped through)
+    static final String UNATTRIBUTED = "UNATTRIBUTED";
+
+    // Firestore's limit of writes per commit
+    private static final int MAX_WRITES_PER_BATCH = 500;
+
+    private static final String TYPE_TOTAL = "total";
+    private static final String TYPE_DAY = "day";
+    private static final String TYPE_HOUR = "hour";
+
+    // Hour keys are UTC so they sort and step uniformly, e.g. 2026-10-17T14
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH").withZone(ZoneOffset.UTC);
+
+    public enum Bucket {
+        HOUR, DAY;
+
+        /**
+         * @throws IllegalArgumentException If the bucket is not hour or day
+         */
+        public static Bucket parse(String value) {
+            for (Bucket bucket : values()) {
+                if (bucket.name().equalsIgnoreCase(value.trim())) {
+                    return bucket;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported bucket: " + value + ", use hour or day");
+        }
+    }
+
+    private final Firestore firestore;
+    private final InfluencerRegistry influencerRegistry;
+
+    @Value("${stats.counters.shards:5}")
+    private int shards;
+
+    @Value("${stats.counters.zone:Africa/Cairo}")
+    private String zone;
+
+    @Value("${stats.histogram.max-buckets:1000}")
+    private int maxBuckets;
+
+    @Autowired
+    public RegistrationStatsService(Firestore firestore, InfluencerRegistry influencerRegistry) {
+        this.firestore = firestore;
+        this.influencerRegistry = influencerRegistry;
+    }
+
+    /**
+     * Number of writes {@link #increment} adds to a batch
+     */
+    public int writeCount() {
+        return 3;
+    }
+
+    /**
+     * Add the counter updates for one registration (delta 1) or deletion (delta -1) to a batch
+     *
+     * @param influencerId The investment's influencerId, or null
+     * @param referredBy The investment's referredBy, used when there is no influencerId (CCG)
+     * @param createdAt When the investment was created, which picks the daily and hourly counters
+     */
+    public void increment(WriteBatch batch, String influencerId, String referredBy, long createdAt, long delta) {
+        incrementKey(batch, influencerKey(influencerId, referredBy), createdAt, delta);
+    }
+
+    private void incrementKey(WriteBatch batch, String influencer, long createdAt, long delta) {
+        String day = dayOf(createdAt);
+        incrementTotal(batch, influencer, delta);
+        incrementDay(batch, influencer, day, delta);
+        incrementHour(batch, influencer, hourOf(createdAt), delta);
+    }
+
+    private void incrementTotal(WriteBatch batch, String influencer, long delta) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        batch.set(shardRef(TYPE_TOTAL + "_" + influencer + "_" + shard),
+                shardData(TYPE_TOTAL, influencer, null, shard, delta), SetOptions.merge());
+    }
+
+    private void incrementDay(WriteBatch batch, String influencer, String day, long delta) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        batch.set(shardRef(TYPE_DAY + "_" + day + "_" + influencer + "_" + shard),
+                shardData(TYPE_DAY, influencer, day, shard, delta), SetOptions.merge());
+    }
+
+    private void incrementHour(WriteBatch batch, String influencer, String hour, long delta) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        Map<String, Object> data = shardData(TYPE_HOUR, influencer, null, shard, delta);
+        // Not "day": the stats endpoint selects daily counters by that field
+        data.put("hour", hour);
+        batch.set(shardRef(TYPE_HOUR + "_" + hour + "_" + influencer + "_" + shard), data, SetOptions.merge());
+    }
+
+    /**
+     * Start collecting counter changes of many registrations or deletions, e.g. a bulk import
+     */
+    public Tally newTally() {
+        return new Tally();
+    }
+
+    /**
+     * Apply a tally: one write per influencer for the total, one per influencer and day and
+     * one per influencer and hour, instead of three writes per row
+     */
+    public CompletableFuture<Void> apply(Tally tally) {
+        List<CompletableFuture<?>> commits = new ArrayList<>();
+        WriteBatch batch = firestore.batch();
+        // A drained tally may hold an influencer's hours without its days, or the reverse
+        Set<String> influencers = new HashSet<>(tally.counts.keySet());
+        influencers.addAll(tally.hours.keySet());
+        for (String influencer : influencers) {
+            long total = 0;
+            for (Map.Entry<String, Long> day : tally.counts.getOrDefault(influencer, Map.of()).entrySet()) {
+                if (batch.getMutationsSize() >= MAX_WRITES_PER_BATCH) {
+                    commits.add(ApiFutureUtil.toCompletableFuture(batch.commit()));
+                    batch = firestore.batch();
+                }
+                incrementDay(batch, influencer, day.getKey(), day.getValue());
+                total += day.getValue();
+            }
+            for (Map.Entry<String, Long> hour : tally.hours.getOrDefault(influencer, Map.of()).entrySet()) {
+                if (batch.getMutationsSize() >= MAX_WRITES_PER_BATCH) {
+                    commits.add(ApiFutureUtil.toCompletableFuture(batch.commit()));
+                    batch = firestore.batch();
+                }
+                incrementHour(batch, influencer, hour.getKey(), hour.getValue());
+            }
+            if (total == 0) {
+                continue;
+            }
+            if (batch.getMutationsSize() >= MAX_WRITES_PER_BATCH) {
+                commits.add(ApiFutureUtil.toCompletableFuture(batch.commit()));
+                batch = firestore.batch();
+            }
+            incrementTotal(batch, influencer, total);
+        }
+        if (batch.getMutationsSize() > 0) {
+            commits.add(ApiFutureUtil.toCompletableFuture(batch.commit()));
+        }
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Sum the shards into per-influencer totals and counts for one day
+     *
+     * @param day yyyy-MM-dd, or null for today
+     */
+    public CompletableFuture<RegistrationStatsResponse> getStatsAsync(String day) {
+        String statsDay = day != null ? LocalDate.parse(day).toString() : LocalDate.now(ZoneId.of(zone)).toString();
+
+        CompletableFuture<QuerySnapshot> totals = ApiFutureUtil.toCompletableFuture(
+                firestore.collection(COUNTERS_COLLECTION).whereEqualTo("type", TYPE_TOTAL).get());
+        CompletableFuture<QuerySnapshot> daily = ApiFutureUtil.toCompletableFuture(
+                firestore.collection(COUNTERS_COLLECTION).whereEqualTo("day", statsDay).get());
+
+        return totals.thenCombine(daily, (totalSnapshot, daySnapshot) -> {
+            Map<String, long[]> counts = new HashMap<>();
+            sumShards(totalSnapshot, counts, 0);
+            sumShards(daySnapshot, counts, 1);
+
+            Map<String, String> names = influencerRegistry.getInfluencers();
+            List<InfluencerStats> influencers = new ArrayList<>();
+            long totalRegistrations = 0;
+            long dayRegistrations = 0;
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                long[] values = entry.getValue();
+                totalRegistrations += values[0];
+                dayRegistrations += values[1];
+                influencers.add(InfluencerStats.builder()
+                        .influencer(entry.getKey())
+                        .name(names.getOrDefault(entry.getKey(), entry.getKey()))
+                        .total(values[0])
+                        .day(values[1])
+                        .build());
+            }
+            influencers.sort(Comparator.comparingLong(InfluencerStats::getTotal).reversed()
+                    .thenComparing(InfluencerStats::getInfluencer));
+
+            return RegistrationStatsResponse.builder()
+                    .day(statsDay)
+                    .totalRegistrations(totalRegistrations)
+                    .dayRegistrations(dayRegistrations)
+                    .influencers(influencers)
+                    .build();
+        });
+    }
+
+    /**
+     * Registration counts per hour or day in [from, to), zero-filled, from the counters
+     * The range is widened to whole buckets: hours in UTC, days in the counters' zone.
+     *
+     * @param influencer Optional influencer - an ID, a code, a name, or a referredBy such as CCG
+     * @throws IllegalArgumentException If the range spans more than stats.histogram.max-buckets buckets
+     */
+    public CompletableFuture<RegistrationHistogramResponse> getHistogramAsync(Bucket bucket, long from, long to,
+                                                                              String influencer) {
+        ZoneId statsZone = ZoneId.of(zone);
+        List<String> keys = new ArrayList<>();
+        List<ZonedDateTime> starts = new ArrayList<>();
+        ZonedDateTime start = bucket == Bucket.HOUR
+                ? Instant.ofEpochMilli(from).truncatedTo(ChronoUnit.HOURS).atZone(statsZone)
+                : Instant.ofEpochMilli(from).atZone(statsZone).toLocalDate().atStartOfDay(statsZone);
+        while (start.toInstant().toEpochMilli() < to) {
+            if (keys.size() == maxBuckets) {
+                throw new IllegalArgumentException("The range spans more than " + maxBuckets + " " +
+                        bucket.name().toLowerCase() + " buckets");
+            }
+            starts.add(start);
+            keys.add(bucket == Bucket.HOUR ? HOUR_FORMAT.format(start) : start.toLocalDate().toString());
+            start = bucket == Bucket.HOUR
+                    ? start.plusHours(1)
+                    : start.toLocalDate().plusDays(1).atStartOfDay(statsZone);
+        }
+        long end = start.toInstant().toEpochMilli();
+
+        String field = bucket == Bucket.HOUR ? TYPE_HOUR : TYPE_DAY;
+        String influencerKey = counterKey(influencer);
+        Query query = firestore.collection(COUNTERS_COLLECTION);
+        if (influencerKey != null) {
+            query = query.whereEqualTo("influencer", influencerKey);
+        }
+        query = query.whereGreaterThanOrEqualTo(field, keys.get(0))
+                .whereLessThanOrEqualTo(field, keys.get(keys.size() - 1));
+
+        return ApiFutureUtil.toCompletableFuture(query.get()).thenApply(snapshot -> {
+            Map<String, Long> counts = new HashMap<>();
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                String key = document.getString(field);
+                Long count = document.getLong("count");
+                if (key != null && count != null) {
+                    counts.merge(key, count, Long::sum);
+                }
+            }
+
+            List<HistogramBucket> buckets = new ArrayList<>(keys.size());
+            long total = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                long count = counts.getOrDefault(keys.get(i), 0L);
+                total += count;
+                buckets.add(HistogramBucket.builder()
+                        .start(starts.get(i).toOffsetDateTime().toString())
+                        .startMillis(starts.get(i).toInstant().toEpochMilli())
+                        .count(count)
+                        .build());
+            }
+            return RegistrationHistogramResponse.builder()
+                    .bucket(field)
+                    .zone(zone)
+                    .influencer(influencerKey)
+                    .from(starts.get(0).toInstant().toEpochMilli())
+                    .to(end)
+                    .total(total)
+                    .buckets(buckets)
+                    .build();
+        });
+    }
+
+    /**
+     * The counter key for an influencer filter, resolved like the list endpoint's filter
+     *
+     * @return null for no filter
+     */
+    String counterKey(String influencer) {
+        if (influencer == null || influencer.trim().isEmpty()) {
+            return null;
+        }
+        String value = influencer.replace("+", " ").trim();
+        if ("CCG".equalsIgnoreCase(value)) {
+            return "CCG";
+        }
+        if (influencerRegistry.resolve(value) != null) {
+            return value.toUpperCase();
+        }
+        String id = influencerRegistry.findIdByName(value);
+        return id != null ? id : influencerKey(null, value);
+    }
+
+    /**
+     * The counter key of an investment: its influencerId, else its referredBy (CCG)
+     */
+    public static String influencerKey(String influencerId, String referredBy) {
+        if (influencerId != null && !influencerId.isEmpty()) {
+            return influencerId;
+        }
+        if (referredBy != null && !referredBy.isEmpty()) {
+            // Document IDs can't contain '/'
+            return referredBy.replace("/", "_");
+        }
+        return UNATTRIBUTED;
+    }
+
+    private String dayOf(long createdAt) {
+        return Instant.ofEpochMilli(createdAt).atZone(ZoneId.of(zone)).toLocalDate().toString();
+    }
+
+    private static String hourOf(long createdAt) {
+        return HOUR_FORMAT.format(Instant.ofEpochMilli(createdAt));
+    }
+
+    private DocumentReference shardRef(String id) {
+        return firestore.collection(COUNTERS_COLLECTION).document(id);
+    }
+
+    private static Map<String, Object> shardData(String type, String influencer, String day, int shard, long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", type);
+        data.put("influencer", influencer);
+        if (day != null) {
+            data.put("day", day);
+        }
+        data.put("shard", shard);
+        data.put("count", FieldValue.increment(delta));
+        return data;
+    }
+
+    /**
+     * Counter changes aggregated per influencer, day and hour; safe to add to from several threads
+     */
+    public final class Tally {
+        // influencer key -> day -> delta
+        private final Map<String, Map<String, Long>> counts = new ConcurrentHashMap<>();
+        // influencer key -> hour -> delta
+        private final Map<String, Map<String, Long>> hours = new ConcurrentHashMap<>();
+
+        private Tally() {
+        }
+
+        public void add(String influencerId, String referredBy, long createdAt, long delta) {
+            String influencer = influencerKey(influencerId, referredBy);
+            counts.computeIfAbsent(influencer, key -> new ConcurrentHashMap<>())
+                    .merge(dayOf(createdAt), delta, Long::sum);
+            hours.computeIfAbsent(influencer, key -> new ConcurrentHashMap<>())
+                    .merge(hourOf(createdAt), delta, Long::sum);
+        }
+
+        /**
+         * Move the changes collected so far to a new tally, to apply them while more are added
+         * Each delta is removed atomically, so a concurrent add lands in one tally or the other.
+         */
+        public Tally drain() {
+            Tally drained = new Tally();
+            drainInto(counts, drained.counts);
+            drainInto(hours, drained.hours);
+            return drained;
+        }
+
+        private void drainInto(Map<String, Map<String, Long>> from, Map<String, Map<String, Long>> to) {
+            for (Map.Entry<String, Map<String, Long>> influencer : from.entrySet()) {
+                for (String bucket : influencer.getValue().keySet()) {
+                    Long delta = influencer.getValue().remove(bucket);
+                    if (delta != null && delta != 0) {
+                        to.computeIfAbsent(influencer.getKey(), key -> new ConcurrentHashMap<>()).put(bucket, delta);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void sumShards(QuerySnapshot snapshot, Map<String, long[]> counts, int slot) {
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            String influencer = document.getString("influencer");
+            Long count = document.getLong("count");
+            if (influencer == null || count == null) {
+                continue;
+            }
+            counts.computeIfAbsent(influencer, key -> new long[2])[slot] += count;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.Investment.Investment.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for SendGrid so the email outbox can be exercised offline
+ * Enabled with email.sender=stub
+ */
+@Service
+@ConditionalOnProperty(name = "email.sender", havingValue = "stub")
+public class StubEmailSender implements EmailSender {
+
+    private final AtomicLong sentCount = new AtomicLong();
+
+    @Override
+    public void sendReservationEmail(String to, String name) {
+        sentCount.incrementAndGet();
+        System.out.println("Stub email sender: reservation email to " + to);
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+}
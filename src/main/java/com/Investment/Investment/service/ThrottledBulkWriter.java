@@ -0,0 +1,116 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteResult;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A rate-ramping {@link BulkWriter} for the import and bulk delete, with at most
+ * max-pending-writes operations in flight so an unbounded stream of writes is never buffered
+ * Write callbacks record their registration counter changes in {@link #getTally()};
+ * {@link #flushCounters()} applies the ones confirmed so far, and {@link #close()} waits for
+ * every write and callback before applying the rest.
+ */
+final class ThrottledBulkWriter implements AutoCloseable {
+
+    // BulkWriter sends writes in batches of 20; with fewer in flight it would wait forever for a full one
+    static final int MIN_PENDING_WRITES = 20;
+
+    private final BulkWriter bulkWriter;
+    private final RegistrationStatsService registrationStats;
+    private final RegistrationStatsService.Tally tally;
+    private final Semaphore pending;
+    private final int maxPendingWrites;
+    // Names the job in log messages, e.g. "import"
+    private final String job;
+
+    ThrottledBulkWriter(Firestore firestore, RegistrationStatsService registrationStats,
+                        int initialOpsPerSecond, int maxOpsPerSecond, int maxPendingWrites, String job) {
+        this.bulkWriter = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(initialOpsPerSecond)
+                .setMaxOpsPerSecond(maxOpsPerSecond)
+                .build());
+        this.registrationStats = registrationStats;
+        this.tally = registrationStats.newTally();
+        this.pending = new Semaphore(maxPendingWrites);
+        this.maxPendingWrites = maxPendingWrites;
+        this.job = job;
+    }
+
+    /**
+     * @throws IllegalStateException If maxPendingWrites is too small for the writer to ever send a batch
+     */
+    static void checkMaxPendingWrites(String property, int maxPendingWrites) {
+        if (maxPendingWrites < MIN_PENDING_WRITES) {
+            throw new IllegalStateException(property + " must be at least " + MIN_PENDING_WRITES + ", was " + maxPendingWrites);
+        }
+    }
+
+    /**
+     * Hand a write to the writer, waiting while max-pending-writes are in flight
+     *
+     * @param write Issues the write on the given writer
+     * @param callback Called with the result or the error once the write completes
+     */
+    void submit(Function<BulkWriter, ApiFuture<WriteResult>> write,
+                BiConsumer<WriteResult, Throwable> callback) {
+        pending.acquireUninterruptibly();
+        ApiFuture<WriteResult> result;
+        try {
+            result = write.apply(bulkWriter);
+        } catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+        ApiFutureUtil.toCompletableFuture(result).whenComplete((written, error) -> {
+            try {
+                callback.accept(written, error);
+            } finally {
+                pending.release();
+            }
+        });
+    }
+
+    RegistrationStatsService.Tally getTally() {
+        return tally;
+    }
+
+    /**
+     * Apply the counter changes confirmed so far; the rest stay in the tally
+     */
+    void flushCounters() {
+        applyCounters(tally.drain());
+    }
+
+    /**
+     * Flush the writer, wait for every callback and apply the remaining counter changes
+     */
+    @Override
+    public void close() {
+        try {
+            bulkWriter.close();
+        } catch (Exception e) {
+            // Individual failures are reported by the write callbacks
+            System.err.println("Bulk writer flush failed for " + job + ": " + e.getMessage());
+        }
+        // Every callback has run once all permits are back
+        pending.acquireUninterruptibly(maxPendingWrites);
+        pending.release(maxPendingWrites);
+        applyCounters(tally);
+    }
+
+    private void applyCounters(RegistrationStatsService.Tally changes) {
+        try {
+            registrationStats.apply(changes).join();
+        } catch (Exception e) {
+            System.err.println("Error updating registration counters for " + job + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.Investment.Investment.util;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adapts the Firestore client's ApiFuture to CompletableFuture without blocking a thread,
+ * and inspects the errors it completes with
+ */
+public final class ApiFutureUtil {
+
+    private ApiFutureUtil() {
+    }
+
+    public static <T> CompletableFuture<T> toCompletableFuture(ApiFuture<T> apiFuture) {
+        CompletableFuture<T> future = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                apiFuture.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        // Callbacks are cheap, so run them on the thread that completes the RPC
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                future.completeExceptionally(error);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Whether a Firestore call failed with the given gRPC status, looking through wrapping exceptions
+     */
+    public static boolean hasStatus(Throwable error, StatusCode.Code code) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof ApiException && ((ApiException) e).getStatusCode().getCode() == code) {
+                return true;
+            }
+            if (e instanceof FirestoreException && ((FirestoreException) e).getStatus() != null
+                    && ((FirestoreException) e).getStatus().getCode().name().equals(code.name())) {
+                return true;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * gRPC status name a Firestore call failed with, or the error's class name if it carries none
+     */
+    public static String statusName(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof ApiException) {
+                return ((ApiException) e).getStatusCode().getCode().name();
+            }
+            if (e instanceof FirestoreException && ((FirestoreException) e).getStatus() != null) {
+                return ((FirestoreException) e).getStatus().getCode().name();
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    /**
+     * An error carrying the status Firestore would report, so callers handle it like Firestore's own
+     */
+    public static ApiException failure(Status.Code code, String message) {
+        return ApiExceptionFactory.createException(message, null, GrpcStatusCode.of(code), false);
+    }
+}
@@ -0,0 +1,59 @@
+package com.Investment.Investment.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque keyset cursors used by cursor-based pagination.
+ * A cursor carries the (createdAt, documentId) of the last row of the previous page.
+ */
+public final class CursorUtil {
+
+    private static final char SEPARATOR = ':';
+
+    private CursorUtil() {
+    }
+
+    public static String encode(long createdAt, String id) {
+        String raw = createdAt + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode(long, String)}
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex <= 0 || separatorIndex == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            long createdAt = Long.parseLong(raw.substring(0, separatorIndex));
+            String id = raw.substring(separatorIndex + 1);
+            return new Position(createdAt, id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public static final class Position {
+        private final long createdAt;
+        private final String id;
+
+        public Position(long createdAt, String id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+}
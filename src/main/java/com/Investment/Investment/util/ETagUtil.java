@@ -0,0 +1,81 @@
+package com.Investment.Investment.util;
+
+import com.google.cloud.Timestamp;
+
+/**
+ * Strong ETags for investments
+ * A document's ETag is its Firestore update time ("seconds.nanos"): Firestore bumps it on
+ * every write, so it identifies a version of the document and can be handed back as an
+ * update-time precondition. A list's ETag hashes the collection version with the query.
+ */
+public final class ETagUtil {
+
+    /**
+     * Request attribute marking a handler that writes its own Cache-Control, so Spring
+     * Security does not add a second one before the async result
+     */
+    public static final String CACHE_CONTROL_SET = ETagUtil.class.getName() + ".CACHE_CONTROL_SET";
+
+    private ETagUtil() {
+    }
+
+    public static String fromUpdateTime(Timestamp updateTime) {
+        return "\"" + updateTime.getSeconds() + "." + String.format("%09d", updateTime.getNanos()) + "\"";
+    }
+
+    /**
+     * Parse the ETag of an If-Match header back into an update time
+     *
+     * @throws IllegalArgumentException If the value is not an ETag issued by {@link #fromUpdateTime}
+     */
+    public static Timestamp toUpdateTime(String etag) {
+        String value = etag == null ? "" : etag.trim();
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            throw new IllegalArgumentException("Not a strong ETag: " + etag);
+        }
+        String[] parts = value.substring(1, value.length() - 1).split("\\.", -1);
+        if (parts.length != 2 || parts[1].length() != 9) {
+            throw new IllegalArgumentException("Not a strong ETag: " + etag);
+        }
+        try {
+            return Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a strong ETag: " + etag, e);
+        }
+    }
+
+    /**
+     * ETag of a query result, from the version of the data and the query parameters
+     */
+    public static String forQuery(String dataVersion, Object... parameters) {
+        StringBuilder key = new StringBuilder(dataVersion);
+        for (Object parameter : parameters) {
+            // Keeps null and "null" apart
+            key.append('|').append(parameter == null ? "" : "=" + parameter);
+        }
+        // The first 128 bits are plenty to tell versions apart
+        return "\"" + HashUtil.sha256Hex(key.toString()).substring(0, 32) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the current ETag (weak comparison, as RFC 9110 requires)
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
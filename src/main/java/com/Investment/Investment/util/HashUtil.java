@@ -0,0 +1,28 @@
+package com.Investment.Investment.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digests for ETags, cache keys and duplicate-detection keys
+ */
+public final class HashUtil {
+
+    private HashUtil() {
+    }
+
+    /**
+     * SHA-256 of the UTF-8 bytes of a string, as 64 lowercase hex digits
+     */
+    public static String sha256Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
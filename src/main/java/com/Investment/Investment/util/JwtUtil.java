@@ -2,12 +2,15 @@ package com.Investment.Investment.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
@@ -18,9 +21,23 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 hours default
     private Long expiration;
 
-    private SecretKey getSigningKey() {
+    // Recently verified tokens, so polling clients skip the HMAC check and claims parsing
+    @Value("${jwt.cache.max-entries:1000}")
+    private int cacheMaxEntries;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // SHA-256 of the token -> verified claims; an entry is only served until the token expires
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     public String generateToken(String subject) {
@@ -31,33 +48,81 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verify a token and return its subject and expiry in one pass
+     *
+     * @return The verified token, or null if it is invalid or expired
+     */
+    public VerifiedToken parseVerified(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String key = HashUtil.sha256Hex(token);
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.getExpiresAt() > now) {
+                return cached;
+            }
+            verifiedTokens.remove(key);
+            return null;
+        }
+
+        VerifiedToken verified;
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Date expiresAt = claims.getExpiration();
+            verified = new VerifiedToken(claims.getSubject(), expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            // Invalid tokens are not cached - anyone can mint those
+            return null;
         }
+
+        if (verifiedTokens.size() >= cacheMaxEntries) {
+            verifiedTokens.values().removeIf(entry -> entry.getExpiresAt() <= now);
+            if (verifiedTokens.size() >= cacheMaxEntries) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    public boolean validateToken(String token) {
+        return parseVerified(token) != null;
     }
 
     public String getSubjectFromToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return claims.getSubject();
-        } catch (JwtException | IllegalArgumentException e) {
-            throw new RuntimeException("Invalid token", e);
+        VerifiedToken verified = parseVerified(token);
+        if (verified == null) {
+            throw new RuntimeException("Invalid token");
         }
+        return verified.getSubject();
     }
-}
 
+    int cacheSize() {
+        return verifiedTokens.size();
+    }
+
+    public static final class VerifiedToken {
+        private final String subject;
+        private final long expiresAt;
+
+        VerifiedToken(String subject, long expiresAt) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.Investment.Investment.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * Parses the from/to query parameters of the list, export and histogram endpoints.
+ * A bound is epoch millis, an ISO-8601 instant or offset date-time, or a local date-time or date
+ * (start of day) interpreted in the given zone. Ranges are from-inclusive and to-exclusive.
+ */
+public final class TimeRangeUtil {
+
+    private TimeRangeUtil() {
+    }
+
+    /**
+     * Parse one bound of a range
+     *
+     * @return epoch millis, or null when the value is null or blank
+     * @throws IllegalArgumentException if the value is not in one of the accepted formats
+     */
+    public static Long parse(String value, ZoneId zone) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.chars().allMatch(Character::isDigit)) {
+            try {
+                return Long.parseLong(trimmed);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid time: " + value);
+            }
+        }
+        try {
+            if (trimmed.length() == 10) {
+                return LocalDate.parse(trimmed).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+            if (trimmed.endsWith("Z") || trimmed.endsWith("z")) {
+                return Instant.parse(trimmed.toUpperCase()).toEpochMilli();
+            }
+            if (hasOffset(trimmed)) {
+                return OffsetDateTime.parse(trimmed).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.parse(trimmed).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid time: " + value);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if both bounds are set and from is not before to
+     */
+    public static void requireOrdered(Long from, Long to) {
+        if (from != null && to != null && from >= to) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+    }
+
+    private static boolean hasOffset(String value) {
+        int timeStart = value.indexOf('T');
+        return timeStart >= 0 && (value.indexOf('+', timeStart) > 0 || value.indexOf('-', timeStart) > 0);
+    }
+}
@@ -0,0 +1,117 @@
+package com.Investment.Investment.controller;
+
+import com.Investment.Investment.config.SecurityConfig;
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.Investment.Investment.service.InMemoryInfluencerRepository;
+import com.Investment.Investment.service.InMemoryInvestmentRepository;
+import com.Investment.Investment.service.InfluencerRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+class InvestmentControllerTest {
+
+    private InMemoryInvestmentRepository repository;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        InfluencerRegistry influencerRegistry = new InfluencerRegistry(new InMemoryInfluencerRepository());
+        repository = new InMemoryInvestmentRepository(influencerRegistry, (to, name) -> { });
+        InvestmentController controller = new InvestmentController();
+        ReflectionTestUtils.setField(controller, "investmentRepository", repository);
+        ReflectionTestUtils.setField(controller, "influencerRegistry", influencerRegistry);
+        ReflectionTestUtils.setField(controller, "statsZone", "Africa/Cairo");
+        ReflectionTestUtils.setField(controller, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        // Security's header writer runs on the first dispatch, before the async result is written
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addFilters(new HeaderWriterFilter(List.of(SecurityConfig.cacheControlHeaderWriter())))
+                .build();
+    }
+
+    @Test
+    void etagResponsesCarryOneCacheControl() throws Exception {
+        String id = repository.registerInvestmentAsync(request(), null, false, null).get().getId();
+
+        MockHttpServletResponse list = perform(get("/api/investments"));
+        assertEquals(200, list.getStatus());
+        assertNotNull(list.getHeader(HttpHeaders.ETAG));
+        assertEquals(List.of("no-cache, private"), list.getHeaders(HttpHeaders.CACHE_CONTROL));
+
+        MockHttpServletResponse detail = perform(get("/api/investments/" + id));
+        assertEquals(200, detail.getStatus());
+        assertEquals(List.of("no-cache, private"), detail.getHeaders(HttpHeaders.CACHE_CONTROL));
+
+        MockHttpServletResponse notModified = perform(get("/api/investments/" + id)
+                .header(HttpHeaders.IF_NONE_MATCH, detail.getHeader(HttpHeaders.ETAG)));
+        assertEquals(304, notModified.getStatus());
+        assertEquals(List.of("no-cache, private"), notModified.getHeaders(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void responsesWithoutAnEtagAreNotStored() throws Exception {
+        MockHttpServletResponse missing = perform(get("/api/investments/missing"));
+        assertEquals(404, missing.getStatus());
+        assertEquals(List.of("no-cache, no-store, max-age=0, must-revalidate"), missing.getHeaders(HttpHeaders.CACHE_CONTROL));
+
+        MockHttpServletResponse invalid = perform(get("/api/investments").param("from", "yesterday"));
+        assertEquals(400, invalid.getStatus());
+        assertEquals(List.of("no-cache, no-store, max-age=0, must-revalidate"), invalid.getHeaders(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void updatesRequireIfMatch() throws Exception {
+        String id = repository.registerInvestmentAsync(request(), null, false, null).get().getId();
+        String etag = perform(get("/api/investments/" + id)).getHeader(HttpHeaders.ETAG);
+        String body = "{\"middleName\":\"Amin\"}";
+
+        assertEquals(428, perform(patch("/api/investments/" + id).contentType(MediaType.APPLICATION_JSON).content(body)).getStatus());
+
+        MockHttpServletResponse updated = perform(patch("/api/investments/" + id).contentType(MediaType.APPLICATION_JSON).content(body)
+                .header(HttpHeaders.IF_MATCH, etag));
+        assertEquals(200, updated.getStatus());
+        // The ETag read before the first update is stale now
+        assertEquals(412, perform(patch("/api/investments/" + id).contentType(MediaType.APPLICATION_JSON).content(body)
+                .header(HttpHeaders.IF_MATCH, etag)).getStatus());
+        assertEquals(200, perform(patch("/api/investments/" + id).contentType(MediaType.APPLICATION_JSON).content(body)
+                .header(HttpHeaders.IF_MATCH, "*")).getStatus());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result.getResponse();
+    }
+
+    private static InvestmentRequest request() {
+        InvestmentRequest request = new InvestmentRequest();
+        request.setFirstName("Farah");
+        request.setLastName("Nofal");
+        request.setAge("30");
+        request.setMobileNumber("+201001234567");
+        request.setEmailAddress("farah@example.com");
+        request.setProfession("Engineer");
+        request.setCurrentInvestments(List.of("Stocks"));
+        request.setMostInterestedIn("Stocks");
+        return request;
+    }
+}
@@ -0,0 +1,38 @@
+package com.Investment.Investment.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+
+    @Test
+    void ignoresForwardedForUnlessProxiesAreConfigured() {
+        RateLimitFilter filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "forwardedForHops", 0);
+
+        assertEquals("10.0.0.7", filter.clientAddress(request("10.0.0.7", "203.0.113.9")));
+    }
+
+    @Test
+    void countsProxyHopsFromTheRight() {
+        RateLimitFilter filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "forwardedForHops", 2);
+
+        assertEquals("198.51.100.4", filter.clientAddress(request("10.0.0.7", "203.0.113.9, 198.51.100.4, 10.0.0.2")));
+        // Too few entries: the header skipped a proxy, so its entries are the client's own
+        assertEquals("10.0.0.7", filter.clientAddress(request("10.0.0.7", "203.0.113.9")));
+        assertEquals("10.0.0.7", filter.clientAddress(request("10.0.0.7", null)));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/investments");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,56 @@
+package com.Investment.Investment.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsEvenly() {
+        RateLimiter limiter = new RateLimiter(3, 3 * SECOND);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("1.2.3.4", now));
+        assertEquals(0, limiter.tryAcquire("1.2.3.4", now));
+        assertEquals(0, limiter.tryAcquire("1.2.3.4", now));
+        assertEquals(SECOND, limiter.tryAcquire("1.2.3.4", now));
+        // Other clients have their own bucket
+        assertEquals(0, limiter.tryAcquire("5.6.7.8", now));
+
+        assertEquals(0, limiter.tryAcquire("1.2.3.4", now + SECOND));
+        assertTrue(limiter.tryAcquire("1.2.3.4", now + SECOND) > 0);
+    }
+
+    @Test
+    void evictsOnlyFullBuckets() {
+        RateLimiter limiter = new RateLimiter(2, 2 * SECOND);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("a", now);
+        limiter.tryAcquire("b", now);
+        limiter.tryAcquire("b", now);
+
+        assertEquals(1, limiter.evictIdle(now + SECOND));
+        assertEquals(1, limiter.size());
+        assertEquals(1, limiter.evictIdle(now + 2 * SECOND));
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void parsesRouteConfig() {
+        List<RateLimitFilter.Route> routes = RateLimitFilter.parseRoutes(
+                "POST /api/investments=20/minute, GET /api/investments/**=5/second");
+
+        assertEquals(2, routes.size());
+        assertEquals("POST", routes.get(0).getMethod());
+        assertEquals("/api/investments/**", routes.get(1).getPattern());
+        assertThrows(IllegalArgumentException.class, () -> RateLimitFilter.parseRoutes("POST /api/investments=20"));
+    }
+}
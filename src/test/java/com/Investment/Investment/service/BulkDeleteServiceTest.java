@@ -0,0 +1,173 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.BulkDeleteRequest;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkDeleteServiceTest {
+
+    private Firestore firestore;
+    private BulkWriter bulkWriter;
+    private RegistrationStatsService stats;
+    private BulkDeleteService service;
+    // What the job did, in order: "read" for every page, "apply N" for every counter update of N days
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        firestore = mock(Firestore.class);
+        CollectionReference investments = mock(CollectionReference.class);
+        when(firestore.collection("investments")).thenReturn(investments);
+        when(investments.document(anyString())).thenAnswer(document -> {
+            DocumentReference reference = mock(DocumentReference.class);
+            when(reference.getId()).thenReturn(document.getArgument(0));
+            return reference;
+        });
+        bulkWriter = mock(BulkWriter.class);
+        when(firestore.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriter);
+        when(bulkWriter.delete(any(DocumentReference.class), any(Precondition.class)))
+                .thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+
+        RegistrationStatsService tallies = new RegistrationStatsService(firestore, mock(InfluencerRegistry.class));
+        ReflectionTestUtils.setField(tallies, "zone", "Africa/Cairo");
+        stats = mock(RegistrationStatsService.class);
+        when(stats.newTally()).thenAnswer(newTally -> tallies.newTally());
+        when(stats.apply(any())).thenAnswer(apply -> {
+            // Influencer -> day -> delta; a drained influencer keeps its (empty) day map
+            Map<?, ?> counts = (Map<?, ?>) ReflectionTestUtils.getField((Object) apply.getArgument(0), "counts");
+            events.add("apply " + counts.values().stream().mapToInt(days -> ((Map<?, ?>) days).size()).sum());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        service = new BulkDeleteService(firestore, mock(FirebaseService.class), stats, mock(NameSearchIndex.class));
+        ReflectionTestUtils.setField(service, "pageSize", 2);
+        ReflectionTestUtils.setField(service, "maxPendingWrites", 20);
+        ReflectionTestUtils.setField(service, "initialOpsPerSecond", 100);
+        ReflectionTestUtils.setField(service, "maxOpsPerSecond", 500);
+        ReflectionTestUtils.setField(service, "maxJobsRetained", 50);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void countersAreDecrementedAfterEveryPage() throws Exception {
+        when(firestore.getAll(any(DocumentReference[].class), any(FieldMask.class))).thenAnswer(getAll -> {
+            events.add("read");
+            return ApiFutures.immediateFuture(documents(getAll.getArgument(0)));
+        });
+
+        BulkDeleteJob job = finished(service.submit(ids("inv-1", "inv-2", "inv-3")));
+
+        assertEquals(BulkDeleteJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getDeleted());
+        // Each page's deletes are counted before the next page is read; nothing is left for the end
+        assertEquals(List.of("read", "apply 1", "read", "apply 1", "apply 0"), events);
+    }
+
+    @Test
+    void cancelledJobStopsAfterTheDeletesAlreadyQueued() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(firestore.getAll(any(DocumentReference[].class), any(FieldMask.class))).thenAnswer(getAll -> {
+            reading.countDown();
+            cancelled.await(5, TimeUnit.SECONDS);
+            return ApiFutures.immediateFuture(documents(getAll.getArgument(0)));
+        });
+
+        BulkDeleteJob job = service.submit(ids("inv-1", "inv-2", "inv-3"));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        service.cancel(job.getId());
+        cancelled.countDown();
+
+        assertEquals(BulkDeleteJob.Status.CANCELLED, finished(job).getStatus());
+        assertEquals(0, job.getDeleted());
+        verify(bulkWriter, never()).delete(any(DocumentReference.class), any(Precondition.class));
+    }
+
+    @Test
+    void emptyOrMixedCriteriaAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.submit(new BulkDeleteRequest()));
+
+        BulkDeleteRequest emptyIds = new BulkDeleteRequest();
+        emptyIds.setIds(List.of());
+        emptyIds.setInfluencer(" ");
+        assertThrows(IllegalArgumentException.class, () -> service.submit(emptyIds));
+
+        BulkDeleteRequest mixed = ids("inv-1");
+        mixed.setInfluencer("FN6C4T9R1VXZ");
+        assertThrows(IllegalArgumentException.class, () -> service.submit(mixed));
+
+        BulkDeleteRequest backwards = new BulkDeleteRequest();
+        backwards.setFrom(2000L);
+        backwards.setTo(1000L);
+        assertThrows(IllegalArgumentException.class, () -> service.submit(backwards));
+
+        assertTrue(service.getJobs().isEmpty());
+    }
+
+    private static BulkDeleteRequest ids(String... ids) {
+        BulkDeleteRequest request = new BulkDeleteRequest();
+        request.setIds(List.of(ids));
+        return request;
+    }
+
+    private static List<DocumentSnapshot> documents(DocumentReference[] refs) {
+        List<DocumentSnapshot> documents = new ArrayList<>();
+        for (DocumentReference ref : refs) {
+            String id = ref.getId();
+            DocumentSnapshot document = mock(DocumentSnapshot.class);
+            when(document.exists()).thenReturn(true);
+            when(document.getId()).thenReturn(id);
+            when(document.getReference()).thenReturn(ref);
+            when(document.getString("influencerId")).thenReturn("FN6C4T9R1VXZ");
+            when(document.getLong("createdAt")).thenReturn(0L);
+            when(document.getUpdateTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(1, 0));
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    private static BulkDeleteJob finished(BulkDeleteJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished());
+        return job;
+    }
+}
@@ -0,0 +1,105 @@
+package com.Investment.Investment.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sendgrid.Request;
+import com.sendgrid.Response;
+import com.sendgrid.SendGrid;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailServiceTest {
+
+    @Test
+    void buildsOnePersonalizationPerRecipient() throws Exception {
+        EmailService emailService = new EmailService();
+        emailService.initialize();
+
+        String payload = emailService.buildPayload(List.of("a@example.com", "b\"@example.com"));
+        JsonNode json = new ObjectMapper().readTree(payload);
+
+        assertEquals("register@egxmoneymadesimplebyccg.com", json.get("from").get("email").asText());
+        assertEquals("Registration Confirmation - Money Made Simple", json.get("subject").asText());
+        assertTrue(json.get("content").get(0).get("value").asText().contains("Money Made Simple"));
+        assertEquals(2, json.get("personalizations").size());
+        assertEquals("a@example.com", json.get("personalizations").get(0).get("to").get(0).get("email").asText());
+        assertEquals("b\"@example.com", json.get("personalizations").get(1).get("to").get(0).get("email").asText());
+    }
+
+    @Test
+    void throttlingFailsTheBatchOnceAndHonorsRetryAfter() throws Exception {
+        SendGrid sendGrid = mock(SendGrid.class);
+        when(sendGrid.api(any(Request.class))).thenReturn(new Response(429, "", Map.of("retry-after", "30")));
+        EmailService emailService = batchingService(sendGrid);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(emailService.sendReservationEmailAsync("user" + i + "@example.com", "User"));
+        }
+        ReflectionTestUtils.invokeMethod(emailService, "flush");
+
+        // One call for the whole batch, no recipient-by-recipient retry
+        verify(sendGrid, times(1)).api(any(Request.class));
+        for (CompletableFuture<Void> future : futures) {
+            ExecutionException error = assertThrows(ExecutionException.class, future::get);
+            EmailSender.ThrottledException throttled = assertInstanceOf(EmailSender.ThrottledException.class, error.getCause());
+            assertTrue(throttled.getRetryAfterMillis() > 29_000);
+        }
+        // Still throttled: fails without calling SendGrid
+        assertThrows(EmailSender.ThrottledException.class, () -> emailService.sendBatch(List.of("late@example.com")));
+        verify(sendGrid, times(1)).api(any(Request.class));
+    }
+
+    @Test
+    void rejectedBatchesAreRetriedOneRecipientAtATime() throws Exception {
+        SendGrid sendGrid = mock(SendGrid.class);
+        when(sendGrid.api(any(Request.class))).thenAnswer(invocation -> {
+            String body = ((Request) invocation.getArgument(0)).getBody();
+            return body.contains("bad@") ? new Response(400, "invalid email", Map.of()) : new Response(202, "", Map.of());
+        });
+        EmailService emailService = batchingService(sendGrid);
+
+        CompletableFuture<Void> good = emailService.sendReservationEmailAsync("good@example.com", "Good");
+        CompletableFuture<Void> bad = emailService.sendReservationEmailAsync("bad@example.com", "Bad");
+        ReflectionTestUtils.invokeMethod(emailService, "flush");
+
+        assertNull(good.get());
+        assertThrows(ExecutionException.class, bad::get);
+        verify(sendGrid, times(3)).api(any(Request.class));
+    }
+
+    @Test
+    void readsRetryAfterOrTheRateLimitReset() {
+        long now = 1_700_000_000_000L;
+        assertEquals(30_000, EmailService.retryAfterMillis(Map.of("Retry-After", "30"), now));
+        assertEquals(5_000, EmailService.retryAfterMillis(Map.of("X-RateLimit-Reset", "1700000005"), now));
+        assertEquals(60_000, EmailService.retryAfterMillis(Map.of(), now));
+    }
+
+    private static EmailService batchingService(SendGrid sendGrid) throws Exception {
+        EmailService emailService = new EmailService();
+        // The scheduled flush never runs during the test; flush() is called directly
+        ReflectionTestUtils.setField(emailService, "batchWindowMs", 3_600_000L);
+        emailService.initialize();
+        ReflectionTestUtils.setField(emailService, "sendGrid", sendGrid);
+        ReflectionTestUtils.setField(emailService, "metrics", mock(InvestmentMetrics.class));
+        return emailService;
+    }
+}
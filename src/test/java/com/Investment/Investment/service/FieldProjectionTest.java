@@ -0,0 +1,45 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldProjectionTest {
+
+    @Test
+    void projectsOnlyRequestedPropertiesInResponseOrder() {
+        FieldProjection projection = FieldProjection.parse(" lastName,id ,");
+        InvestmentResponse investment = InvestmentResponse.builder()
+                .id("abc").firstName("Farah").lastName("Nofal").emailAddress("farah@example.com").build();
+
+        List<?> rows = projection.project(List.of(investment));
+
+        assertEquals(List.of(Map.of("id", "abc", "lastName", "Nofal")), rows);
+        assertEquals(List.of("id", "lastName"), List.copyOf(((Map<?, ?>) rows.get(0)).keySet()));
+    }
+
+    @Test
+    void selectsFieldsTheQueryNeedsWithoutEmittingThem() {
+        FieldProjection projection = FieldProjection.parse("emailAddress");
+
+        List<String> selected = List.of(projection.selectedFields(InvestmentFilter.of("farah", null)));
+
+        assertTrue(selected.containsAll(List.of("emailAddress", "createdAt", "influencerId", "firstName", "lastName")));
+        assertTrue(FieldProjection.parse(null).isAll());
+        assertNull(FieldProjection.ALL.selectedFields(InvestmentFilter.of(null, null)));
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> FieldProjection.parse("firstName,password"));
+        assertEquals("Unknown field: password", e.getMessage());
+    }
+}
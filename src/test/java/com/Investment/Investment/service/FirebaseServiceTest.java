@@ -0,0 +1,84 @@
+package com.Investment.Investment.service;
+
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import io.grpc.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FirebaseServiceTest {
+
+    private Firestore firestore;
+    private DocumentReference investmentRef;
+    private DocumentSnapshot document;
+    private WriteBatch batch;
+    private FirebaseService service;
+
+    @BeforeEach
+    void setUp() {
+        firestore = mock(Firestore.class);
+        CollectionReference investments = mock(CollectionReference.class);
+        investmentRef = mock(DocumentReference.class);
+        when(firestore.collection("investments")).thenReturn(investments);
+        when(investments.document("inv-1")).thenReturn(investmentRef);
+        document = mock(DocumentSnapshot.class);
+        when(document.exists()).thenReturn(true);
+        when(document.getUpdateTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(1, 0));
+        when(investmentRef.get()).thenReturn(ApiFutures.immediateFuture(document));
+        batch = mock(WriteBatch.class, RETURNS_SELF);
+        when(firestore.batch()).thenReturn(batch);
+
+        InvestmentMetrics metrics = mock(InvestmentMetrics.class);
+        when(metrics.firestore(anyString(), any())).thenAnswer(call -> call.getArgument(1));
+        service = new FirebaseService(firestore, mock(InvestmentReadModel.class), mock(NameSearchIndex.class),
+                mock(EmailOutboxService.class), mock(InvestmentWriteBatcher.class), (Executor) Runnable::run,
+                mock(InfluencerRegistry.class), mock(RegistrationStatsService.class), mock(RegistrationDedupService.class),
+                metrics);
+    }
+
+    @Test
+    void deleteIsRetriedOnlyWhenTheInvestmentChanged() throws Exception {
+        // Changed between the read and the commit, then gone on the second read
+        when(batch.commit()).thenReturn(ApiFutures.immediateFailedFuture(failure(Status.Code.FAILED_PRECONDITION)));
+        DocumentSnapshot gone = mock(DocumentSnapshot.class);
+        when(investmentRef.get())
+                .thenReturn(ApiFutures.immediateFuture(document))
+                .thenReturn(ApiFutures.immediateFuture(gone));
+        assertFalse(service.deleteInvestmentAsync("inv-1").get());
+        verify(investmentRef, times(2)).get();
+    }
+
+    @Test
+    void otherDeleteFailuresAreNotRetried() {
+        when(batch.commit()).thenReturn(ApiFutures.immediateFailedFuture(failure(Status.Code.UNAVAILABLE)));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> service.deleteInvestmentAsync("inv-1").get());
+        assertTrue(error.getMessage().contains("unavailable"));
+        verify(investmentRef, times(1)).get();
+    }
+
+    private static Exception failure(Status.Code code) {
+        return ApiExceptionFactory.createException(new RuntimeException(code.name().toLowerCase()), GrpcStatusCode.of(code), false);
+    }
+}
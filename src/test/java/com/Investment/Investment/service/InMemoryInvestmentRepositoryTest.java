@@ -0,0 +1,205 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.Investment.Investment.dto.InvestmentResponse;
+import com.Investment.Investment.dto.PaginatedResponse;
+import com.Investment.Investment.util.ApiFutureUtil;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryInvestmentRepositoryTest {
+
+    private InMemoryInvestmentRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        InfluencerRegistry influencerRegistry = new InfluencerRegistry(new InMemoryInfluencerRepository());
+        repository = new InMemoryInvestmentRepository(influencerRegistry, (to, name) -> { });
+        ReflectionTestUtils.setField(repository, "dedupEnabled", true);
+        ReflectionTestUtils.setField(repository, "idempotencyTtlHours", 24L);
+    }
+
+    @Test
+    void pagesAndCursorsFollowTheInfluencerIndexes() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            register("Farah" + i, i % 2 == 0 ? "FN6C4T9R1VXZ" : null);
+        }
+
+        PaginatedResponse<InvestmentResponse> all = repository.getAllInvestmentsPaginatedAsync(1, 3, InvestmentFilter.of(null, null), FieldProjection.ALL).get();
+        assertEquals(7, all.getTotalElements());
+        assertEquals(3, all.getTotalPages());
+        assertEquals(List.of("Farah3", "Farah2", "Farah1"), firstNames(all));
+
+        PaginatedResponse<InvestmentResponse> byCode = repository.getAllInvestmentsPaginatedAsync(0, 10, InvestmentFilter.of(null, "fn6c4t9r1vxz"), FieldProjection.ALL).get();
+        PaginatedResponse<InvestmentResponse> byName = repository.getAllInvestmentsPaginatedAsync(0, 10, InvestmentFilter.of(null, "Farah+nofal"), FieldProjection.ALL).get();
+        assertEquals(List.of("Farah6", "Farah4", "Farah2", "Farah0"), firstNames(byCode));
+        assertEquals(firstNames(byCode), firstNames(byName));
+
+        PaginatedResponse<InvestmentResponse> ccg = repository.getAllInvestmentsPaginatedAsync(0, 10, InvestmentFilter.of("farah5", "CCG"), FieldProjection.ALL).get();
+        assertEquals(List.of("Farah5"), firstNames(ccg));
+        assertEquals(1, ccg.getTotalElements());
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginatedResponse<InvestmentResponse> page = repository.getInvestmentsByCursorAsync(cursor, 2, InvestmentFilter.of(null, "CCG"), FieldProjection.ALL).get();
+            walked.addAll(firstNames(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("Farah5", "Farah3", "Farah1"), walked);
+    }
+
+    @Test
+    void pagesPastTheEndAreEmptyEvenWhenTheOffsetOverflowsAnInt() throws Exception {
+        register("Farah", null);
+        register("Amira", null);
+
+        // 300000000 * 100 wraps around to a negative int
+        PaginatedResponse<InvestmentResponse> farPage = repository.getAllInvestmentsPaginatedAsync(300000000, 100, InvestmentFilter.of(null, null), FieldProjection.ALL).get();
+        assertTrue(farPage.getData().isEmpty());
+        assertEquals(2, farPage.getTotalElements());
+        assertFalse(farPage.isHasNext());
+    }
+
+    @Test
+    void createdRangesAreFromInclusiveAndToExclusive() throws Exception {
+        List<Long> createdAt = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String id = register("Farah" + i, i % 2 == 0 ? "FN6C4T9R1VXZ" : null);
+            createdAt.add(repository.getInvestmentVersionAsync(id).get().getInvestment().getCreatedAt());
+        }
+
+        InvestmentFilter range = InvestmentFilter.of(null, null).createdBetween(createdAt.get(1), createdAt.get(4));
+        PaginatedResponse<InvestmentResponse> page = repository.getAllInvestmentsPaginatedAsync(0, 10, range, FieldProjection.ALL).get();
+        assertEquals(List.of("Farah3", "Farah2", "Farah1"), firstNames(page));
+        assertEquals(3, page.getTotalElements());
+
+        InvestmentFilter influencerRange = InvestmentFilter.of(null, "FN6C4T9R1VXZ").createdBetween(createdAt.get(1), null);
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginatedResponse<InvestmentResponse> next = repository.getInvestmentsByCursorAsync(cursor, 1, influencerRange, FieldProjection.ALL).get();
+            walked.addAll(firstNames(next));
+            cursor = next.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("Farah4", "Farah2"), walked);
+
+        InvestmentFilter empty = InvestmentFilter.of(null, null).createdBetween(createdAt.get(4) + 1, null);
+        assertEquals(0, repository.getAllInvestmentsPaginatedAsync(0, 10, empty, FieldProjection.ALL).get().getTotalElements());
+    }
+
+    @Test
+    void repeatedRegistrationsReturnTheOriginal() throws Exception {
+        InvestmentRepository.Registration first = repository.registerInvestmentAsync(request("Farah", "farah@example.com"), null, false, "key-1").get();
+        InvestmentRepository.Registration sameKey = repository.registerInvestmentAsync(request("Other", "other@example.com"), null, false, "key-1").get();
+        InvestmentRepository.Registration samePerson = repository.registerInvestmentAsync(request("Farah", "FARAH@example.com"), null, false, null).get();
+
+        assertFalse(first.isReplayed());
+        assertTrue(sameKey.isReplayed());
+        assertEquals(first.getId(), sameKey.getId());
+        assertEquals(first.getId(), samePerson.getId());
+        assertEquals(1, repository.size());
+
+        // Deleting frees the keys
+        assertTrue(repository.deleteInvestmentAsync(first.getId()).get());
+        assertFalse(repository.deleteInvestmentAsync(first.getId()).get());
+        assertFalse(repository.registerInvestmentAsync(request("Farah", "farah@example.com"), null, false, "key-1").get().isReplayed());
+    }
+
+    @Test
+    void editingTheEmailMovesTheRegistrationKey() throws Exception {
+        String farah = repository.registerInvestmentAsync(request("Farah", "farah@example.com"), null, false, null).get().getId();
+        String amira = repository.registerInvestmentAsync(request("Amira", "amira@example.com"), null, false, null).get().getId();
+
+        repository.updateInvestmentAsync(farah, Map.of("emailAddress", "farah.nofal@example.com"), null).get();
+
+        // The new pair is a repeat of the edited registration; the old pair is free again
+        assertEquals(farah, repository.registerInvestmentAsync(request("Farah", "farah.nofal@example.com"), null, false, null).get().getId());
+        assertFalse(repository.registerInvestmentAsync(request("Farah", "farah@example.com"), null, false, null).get().isReplayed());
+
+        ExecutionException taken = assertThrows(ExecutionException.class,
+                () -> repository.updateInvestmentAsync(amira, Map.of("emailAddress", "farah.nofal@example.com"), null).get());
+        assertTrue(ApiFutureUtil.hasStatus(taken, StatusCode.Code.ALREADY_EXISTS));
+        assertEquals("amira@example.com", repository.getInvestmentVersionAsync(amira).get().getInvestment().getEmailAddress());
+    }
+
+    @Test
+    void updatesAreConditionalOnTheLastUpdateTime() throws Exception {
+        String id = register("Farah", null);
+        String version = repository.getInvestmentsVersion();
+        Timestamp seen = repository.getInvestmentVersionAsync(id).get().getUpdateTime();
+
+        Timestamp updated = repository.updateInvestmentAsync(id, Map.of("lastName", "Hamdy"), seen).get();
+        assertTrue(updated.compareTo(seen) > 0);
+        assertNotEquals(version, repository.getInvestmentsVersion());
+        assertEquals("Hamdy", repository.getInvestmentVersionAsync(id).get().getInvestment().getLastName());
+
+        ExecutionException stale = assertThrows(ExecutionException.class,
+                () -> repository.updateInvestmentAsync(id, Map.of("lastName", "Rasmy"), seen).get());
+        assertTrue(ApiFutureUtil.hasStatus(stale, StatusCode.Code.FAILED_PRECONDITION));
+        ExecutionException missing = assertThrows(ExecutionException.class,
+                () -> repository.updateInvestmentAsync("missing", Map.of("lastName", "Rasmy"), null).get());
+        assertTrue(ApiFutureUtil.hasStatus(missing, StatusCode.Code.NOT_FOUND));
+        assertNull(repository.getInvestmentVersionAsync("missing").get());
+    }
+
+    @Test
+    void watchersSeeNewRegistrationsUntilTheyUnsubscribe() throws Exception {
+        List<String> seen = new ArrayList<>();
+        Runnable unsubscribe = repository.subscribeToRegistrations(
+                (investment, influencerId) -> seen.add(investment.getFirstName() + "/" + influencerId), error -> { });
+
+        register("Farah", "FN6C4T9R1VXZ");
+        register("Amira", null);
+        // A replayed registration stores nothing and is not announced
+        repository.registerInvestmentAsync(request("Other", "farah@example.com"), null, false, null).get();
+        unsubscribe.run();
+        register("Later", null);
+
+        assertEquals(List.of("Farah/FN6C4T9R1VXZ", "Amira/null"), seen);
+    }
+
+    private String register(String firstName, String ref) throws Exception {
+        String id = repository.registerInvestmentAsync(request(firstName, firstName.toLowerCase() + "@example.com"), ref, false, null)
+                .get().getId();
+        // Distinct createdAt values keep the expected order independent of the random IDs
+        Thread.sleep(2);
+        return id;
+    }
+
+    private static InvestmentRequest request(String firstName, String emailAddress) {
+        InvestmentRequest request = new InvestmentRequest();
+        request.setFirstName(firstName);
+        request.setLastName("Nofal");
+        request.setAge("30");
+        request.setMobileNumber("+201001234567");
+        request.setEmailAddress(emailAddress);
+        request.setProfession("Engineer");
+        request.setCurrentInvestments(List.of("Stocks"));
+        request.setMostInterestedIn("Stocks");
+        return request;
+    }
+
+    private static List<String> firstNames(PaginatedResponse<InvestmentResponse> page) {
+        List<String> names = new ArrayList<>();
+        for (InvestmentResponse investment : page.getData()) {
+            names.add(investment.getFirstName());
+        }
+        return names;
+    }
+}
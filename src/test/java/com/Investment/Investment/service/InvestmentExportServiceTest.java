@@ -0,0 +1,46 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvestmentExportServiceTest {
+
+    @Test
+    void escapesCsvValues() {
+        assertEquals("", InvestmentExportService.escapeCsv(null));
+        assertEquals("Sherine", InvestmentExportService.escapeCsv("Sherine"));
+        assertEquals("\"Hamdy, Jr\"", InvestmentExportService.escapeCsv("Hamdy, Jr"));
+        assertEquals("\"say \"\"hi\"\"\"", InvestmentExportService.escapeCsv("say \"hi\""));
+        // Phone numbers stay as they are, formulas are neutralized
+        assertEquals("+201001234567", InvestmentExportService.escapeCsv("+201001234567"));
+        assertEquals("'=SUM(A1:A9)", InvestmentExportService.escapeCsv("=SUM(A1:A9)"));
+        assertEquals("'-cmd", InvestmentExportService.escapeCsv("-cmd"));
+        assertEquals("+20 100 123-4567", InvestmentExportService.escapeCsv("+20 100 123-4567"));
+        // A digit after the sign is not enough
+        assertEquals("'-2+3+cmd|' /C calc'!A0", InvestmentExportService.escapeCsv("-2+3+cmd|' /C calc'!A0"));
+        assertEquals("\"'+1+HYPERLINK(\"\"x\"\")\"", InvestmentExportService.escapeCsv("+1+HYPERLINK(\"x\")"));
+    }
+
+    @Test
+    void writesOneRowPerInvestment() throws IOException {
+        InvestmentResponse investment = InvestmentResponse.builder()
+                .id("abc")
+                .firstName("Farah")
+                .lastName("Nofal")
+                .currentInvestments(List.of("Stocks", "Gold"))
+                .referredBy("CCG")
+                .createdAt(1700000000000L)
+                .build();
+
+        StringWriter writer = new StringWriter();
+        InvestmentExportService.writeCsvRow(writer, InvestmentExportService.toCsvRow(investment));
+
+        assertEquals("abc,Farah,,Nofal,,,,,,Stocks;Gold,,,CCG,1700000000000,\r\n", writer.toString());
+    }
+}
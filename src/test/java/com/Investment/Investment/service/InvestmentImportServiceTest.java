@@ -0,0 +1,91 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.ImportReport;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteResult;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InvestmentImportServiceTest {
+
+    private static final String LINE = "{\"firstName\":\"Farah\",\"lastName\":\"Nofal\",\"age\":\"30\","
+            + "\"mobileNumber\":\"+201001234567\",\"emailAddress\":\"farah@example.com\",\"profession\":\"Engineer\","
+            + "\"currentInvestments\":[\"Stocks\"],\"mostInterestedIn\":\"Stocks\"}\n";
+
+    @Test
+    void uploadCutOffMidwayStillGetsItsReport() {
+        InputStream cutOff = new SequenceInputStream(
+                new ByteArrayInputStream((LINE + "{\"firstName\":").getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+
+        ImportReport report = service().importInvestments(cutOff, InvestmentImportService.Format.NDJSON, null, false);
+
+        assertEquals(1, report.getTotal());
+        assertEquals(1, report.getCreated());
+        assertTrue(report.isTruncated());
+        assertTrue(report.getError().contains("Connection reset"));
+
+        ImportReport complete = service().importInvestments(new ByteArrayInputStream(LINE.getBytes(StandardCharsets.UTF_8)),
+                InvestmentImportService.Format.NDJSON, null, false);
+        assertEquals(1, complete.getCreated());
+        assertNull(complete.getError());
+    }
+
+    private static InvestmentImportService service() {
+        Firestore firestore = mock(Firestore.class);
+        BulkWriter bulkWriter = mock(BulkWriter.class);
+        when(firestore.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriter);
+        when(bulkWriter.create(any(DocumentReference.class), anyMap()))
+                .thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+
+        FirebaseService firebaseService = mock(FirebaseService.class);
+        DocumentReference investmentRef = mock(DocumentReference.class);
+        when(investmentRef.getId()).thenReturn("inv-1");
+        when(firebaseService.newInvestmentRef()).thenReturn(investmentRef);
+        when(firebaseService.toInvestmentData(any(), any(), anyLong())).thenReturn(Map.of("influencerId", "CCG"));
+
+        RegistrationStatsService tallies = new RegistrationStatsService(firestore, mock(InfluencerRegistry.class));
+        ReflectionTestUtils.setField(tallies, "zone", "Africa/Cairo");
+        RegistrationStatsService stats = mock(RegistrationStatsService.class);
+        when(stats.newTally()).thenReturn(tallies.newTally());
+        when(stats.apply(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        InvestmentImportService service = new InvestmentImportService(firestore, firebaseService,
+                mock(InfluencerRegistry.class), stats, mock(EmailOutboxService.class), mock(NameSearchIndex.class),
+                Validation.buildDefaultValidatorFactory().getValidator(), JsonMapper.builder().build());
+        ReflectionTestUtils.setField(service, "maxLines", 100);
+        ReflectionTestUtils.setField(service, "maxPendingWrites", 20);
+        ReflectionTestUtils.setField(service, "counterFlushLines", 1000);
+        ReflectionTestUtils.setField(service, "initialOpsPerSecond", 500);
+        ReflectionTestUtils.setField(service, "maxOpsPerSecond", 5000);
+        return service;
+    }
+}
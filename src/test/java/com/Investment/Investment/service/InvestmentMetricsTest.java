@@ -0,0 +1,40 @@
+package com.Investment.Investment.service;
+
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvestmentMetricsTest {
+
+    @Test
+    void tagsFirestoreCallsWithTheirStatus() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InvestmentMetrics metrics = new InvestmentMetrics(registry);
+
+        metrics.firestore("get", ApiFutures.immediateFuture("ok"));
+        metrics.firestore("get", ApiFutures.immediateFailedFuture(ApiExceptionFactory.createException(
+                new RuntimeException("gone"), GrpcStatusCode.of(Status.Code.NOT_FOUND), false)));
+        metrics.firestore("get", ApiFutures.immediateFuture("ok"));
+
+        assertEquals(2, registry.get("firestore.requests").tags("operation", "get", "status", "OK").timer().count());
+        assertEquals(1, registry.get("firestore.requests").tags("operation", "get", "status", "NOT_FOUND").timer().count());
+    }
+
+    @Test
+    void recordsFilterSelectivityAsAShareOfScannedDocuments() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InvestmentMetrics metrics = new InvestmentMetrics(registry);
+
+        metrics.recordFilter("list.scan", 200, 50);
+        metrics.recordFilter("list.scan", 0, 0);
+
+        assertEquals(1, registry.get("investments.filter.selectivity").summary().count());
+        assertEquals(0.25, registry.get("investments.filter.selectivity").summary().mean(), 1e-9);
+        assertEquals(200, registry.get("investments.filter.scanned").counter().count(), 1e-9);
+    }
+}
@@ -0,0 +1,76 @@
+package com.Investment.Investment.service;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvestmentPatchTest {
+
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUp() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @Test
+    void onlyFormFieldsCanBeUpdated() {
+        InvestmentPatch patch = InvestmentPatch.of(Map.of("createdAt", 0, "influencerId", "FN6C4T9R1VXZ"), validator);
+
+        assertFalse(patch.isValid());
+        assertTrue(patch.getErrors().contains("createdAt can't be updated"));
+        assertTrue(patch.getErrors().contains("influencerId can't be updated"));
+        assertFalse(InvestmentPatch.of(Map.of(), validator).isValid());
+    }
+
+    @Test
+    void valuesMustHaveTheFieldsType() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("age", 30);
+        body.put("currentInvestments", List.of("Stocks", 1));
+        InvestmentPatch patch = InvestmentPatch.of(body, validator);
+
+        assertEquals(List.of("age must be a string", "currentInvestments must be a list of strings"), patch.getErrors());
+    }
+
+    @Test
+    void valuesAreCheckedAgainstTheFormConstraints() {
+        InvestmentPatch patch = InvestmentPatch.of(Map.of("emailAddress", "not-an-email"), validator);
+
+        assertEquals(List.of("Email must be valid"), patch.getErrors());
+    }
+
+    @Test
+    void nullClearsOnlyOptionalFields() {
+        Map<String, Object> optional = new HashMap<>();
+        optional.put("middleName", null);
+        InvestmentPatch cleared = InvestmentPatch.of(optional, validator);
+        assertTrue(cleared.isValid());
+        assertTrue(cleared.getChanges().containsKey("middleName"));
+        assertNull(cleared.getChanges().get("middleName"));
+
+        Map<String, Object> required = new HashMap<>();
+        required.put("firstName", null);
+        assertEquals(List.of("First name is required"), InvestmentPatch.of(required, validator).getErrors());
+    }
+
+    @Test
+    void otherRulesApplyWithinThePatch() {
+        assertEquals(List.of("professionOther is required when profession is 'Other'"),
+                InvestmentPatch.of(Map.of("profession", "Other"), validator).getErrors());
+        assertTrue(InvestmentPatch.of(Map.of("profession", "Other", "professionOther", "Pilot"), validator).isValid());
+        assertEquals(List.of("currentInvestmentsOther is required when currentInvestments contains 'Other'"),
+                InvestmentPatch.of(Map.of("currentInvestments", List.of("Other")), validator).getErrors());
+    }
+}
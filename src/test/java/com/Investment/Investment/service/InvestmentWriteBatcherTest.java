@@ -0,0 +1,49 @@
+package com.Investment.Investment.service;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InvestmentWriteBatcherTest {
+
+    @Test
+    void stoppingCompletesEverySubmission() throws Exception {
+        Firestore firestore = mock(Firestore.class);
+        when(firestore.batch()).thenAnswer(invocation -> {
+            WriteBatch batch = mock(WriteBatch.class);
+            when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+            return batch;
+        });
+        InvestmentWriteBatcher batcher = new InvestmentWriteBatcher(firestore);
+        ReflectionTestUtils.setField(batcher, "enabled", true);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 1000);
+        // Long enough that the flusher is still collecting its group when stop() interrupts it
+        ReflectionTestUtils.setField(batcher, "lingerMs", 60_000L);
+        batcher.start();
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(batcher.submit("id-" + i, batch -> { }, 1));
+        }
+        Thread.sleep(50);
+        batcher.stop();
+        // Submissions after stop are committed on their own
+        futures.add(batcher.submit("late", batch -> { }, 1));
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("id-" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("late", futures.get(50).get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,94 @@
+package com.Investment.Investment.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameSearchIndexTest {
+
+    private NameSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameSearchIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    void staysDisabledWithoutTheReadModel() {
+        NameSearchIndex standalone = new NameSearchIndex();
+        ReflectionTestUtils.setField(standalone, "enabled", true);
+        ReflectionTestUtils.setField(standalone, "readModelEnabled", false);
+        standalone.checkSource();
+
+        standalone.put("a", investment("Sherine", null, "Hamdy", 1L));
+        standalone.markReady();
+        assertFalse(standalone.isEnabled());
+        assertFalse(standalone.isReady());
+        assertTrue(standalone.search("sher").isEmpty());
+    }
+
+    @Test
+    void findsSubstringsNewestFirst() {
+        index.put("a", investment("Sherine", null, "Hamdy", 1L));
+        index.put("b", investment("Ahmed", "Sherif", "Talaat", 2L));
+        index.put("c", investment("Farah", null, "Nofal", 3L));
+
+        assertEquals(List.of("b", "a"), ids(index.search("SHER")));
+        assertEquals(List.of("c"), ids(index.search("nof")));
+        assertEquals(List.of("c"), ids(index.search("fa")));
+        assertTrue(index.search("xyz").isEmpty());
+    }
+
+    @Test
+    void verifiesCandidatesAgainstFullName() {
+        // Contains every trigram of "abcab" but not the substring itself
+        index.put("a", investment("abca", null, "bcab", 1L));
+
+        assertTrue(index.search("abcab").isEmpty());
+    }
+
+    @Test
+    void normalizesArabicVariants() {
+        index.put("a", investment("أحمد", null, "فاطمة", 1L));
+
+        assertEquals(List.of("a"), ids(index.search("احمد")));
+        assertEquals(List.of("a"), ids(index.search("فاطمه")));
+        assertEquals(List.of("a"), ids(index.search("أَحْمَد")));
+    }
+
+    @Test
+    void reindexesAndRemoves() {
+        index.put("a", investment("Hazem", null, "Rasmy", 1L));
+        index.put("a", investment("Khaled", null, "Rasmy", 1L));
+
+        assertTrue(index.search("hazem").isEmpty());
+        assertEquals(List.of("a"), ids(index.search("khaled")));
+
+        index.remove("a");
+        assertTrue(index.search("rasmy").isEmpty());
+        assertEquals(0, index.gramCount());
+    }
+
+    private static Map<String, Object> investment(String firstName, String middleName, String lastName, long createdAt) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("firstName", firstName);
+        data.put("middleName", middleName);
+        data.put("lastName", lastName);
+        data.put("createdAt", createdAt);
+        return data;
+    }
+
+    private static List<String> ids(List<NameSearchIndex.Entry> entries) {
+        return entries.stream().map(NameSearchIndex.Entry::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,80 @@
+package com.Investment.Investment.service;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReferredByBackfillTest {
+
+    @Test
+    void onlyDocumentsWithoutTheLowercaseFieldAreUpdated() throws Exception {
+        Firestore firestore = mock(Firestore.class);
+        CollectionReference investments = mock(CollectionReference.class, RETURNS_SELF);
+        when(firestore.collection("investments")).thenReturn(investments);
+        QueryDocumentSnapshot legacy = document("inv-1", "Farah Nofal", null);
+        QueryDocumentSnapshot current = document("inv-2", "Farah Nofal", "farah nofal");
+        QueryDocumentSnapshot renamed = document("inv-3", "CCG", "farah nofal");
+        QueryDocumentSnapshot unattributed = document("inv-4", null, null);
+        QuerySnapshot firstPage = snapshot(legacy, current);
+        QuerySnapshot secondPage = snapshot(renamed, unattributed);
+        QuerySnapshot lastPage = snapshot();
+        when(investments.get()).thenReturn(ApiFutures.immediateFuture(firstPage),
+                ApiFutures.immediateFuture(secondPage), ApiFutures.immediateFuture(lastPage));
+        BulkWriter bulkWriter = mock(BulkWriter.class);
+        when(firestore.bulkWriter(any(BulkWriterOptions.class))).thenReturn(bulkWriter);
+        when(bulkWriter.update(any(DocumentReference.class), any(Precondition.class), eq("referredByLower"), any()))
+                .thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+        RegistrationStatsService stats = mock(RegistrationStatsService.class);
+        when(stats.apply(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        ReferredByBackfill backfill = new ReferredByBackfill(firestore, stats);
+        ReflectionTestUtils.setField(backfill, "pageSize", 2);
+        ReflectionTestUtils.setField(backfill, "maxPendingWrites", 20);
+        ReflectionTestUtils.setField(backfill, "initialOpsPerSecond", 100);
+        ReflectionTestUtils.setField(backfill, "maxOpsPerSecond", 500);
+
+        assertEquals(2, backfill.run());
+        verify(bulkWriter).update(eq(legacy.getReference()), any(Precondition.class), eq("referredByLower"), eq("farah nofal"));
+        verify(bulkWriter).update(eq(renamed.getReference()), any(Precondition.class), eq("referredByLower"), eq("ccg"));
+        verify(bulkWriter, never()).update(eq(current.getReference()), any(Precondition.class), eq("referredByLower"), any());
+    }
+
+    private static QueryDocumentSnapshot document(String id, String referredBy, String referredByLower) {
+        DocumentReference reference = mock(DocumentReference.class);
+        QueryDocumentSnapshot document = mock(QueryDocumentSnapshot.class);
+        when(document.getId()).thenReturn(id);
+        when(document.getReference()).thenReturn(reference);
+        when(document.getString("referredBy")).thenReturn(referredBy);
+        when(document.getString("referredByLower")).thenReturn(referredByLower);
+        when(document.getUpdateTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(1, 0));
+        return document;
+    }
+
+    private static QuerySnapshot snapshot(QueryDocumentSnapshot... documents) {
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getDocuments()).thenReturn(List.of(documents));
+        return snapshot;
+    }
+}
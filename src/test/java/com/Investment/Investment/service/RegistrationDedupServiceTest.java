@@ -0,0 +1,186 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentRequest;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.grpc.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RegistrationDedupServiceTest {
+
+    private Firestore firestore;
+    private CollectionReference investments;
+    private RegistrationDedupService dedup;
+    private InvestmentRequest request;
+    private String naturalKey;
+    private DocumentReference keyRef;
+
+    @BeforeEach
+    void setUp() {
+        firestore = mock(Firestore.class);
+        CollectionReference keys = mock(CollectionReference.class);
+        investments = mock(CollectionReference.class);
+        when(firestore.collection(RegistrationDedupService.KEYS_COLLECTION)).thenReturn(keys);
+        when(firestore.collection("investments")).thenReturn(investments);
+
+        dedup = new RegistrationDedupService(firestore, mock(InvestmentReadModel.class));
+        ReflectionTestUtils.setField(dedup, "enabled", true);
+
+        request = new InvestmentRequest();
+        request.setFirstName("Farah");
+        request.setEmailAddress("farah@example.com");
+        request.setMobileNumber("+201001234567");
+        naturalKey = dedup.keysFor(request, null).get(0);
+        keyRef = mock(DocumentReference.class);
+        when(keys.document(naturalKey)).thenReturn(keyRef);
+    }
+
+    @Test
+    void naturalKeyIgnoresEmailCaseAndMobileFormatting() {
+        String key = RegistrationDedupService.naturalKey("Farah.Nofal@Example.com ", "+20 100-123-4567");
+
+        assertTrue(key.startsWith(RegistrationDedupService.NATURAL_PREFIX));
+        assertEquals(key, RegistrationDedupService.naturalKey("farah.nofal@example.com", "201001234567"));
+        assertNotEquals(key, RegistrationDedupService.naturalKey("farah.nofal@example.com", "201001234568"));
+        assertNull(RegistrationDedupService.naturalKey("farah.nofal@example.com", " - "));
+    }
+
+    @Test
+    void repeatedRegistrationReplaysTheOriginal() throws Exception {
+        keyDocument("inv-1");
+        investment("inv-1", true);
+
+        assertEquals("inv-1", dedup.findExisting(request, List.of(naturalKey), false).get());
+        verify(keyRef, never()).delete(any(Precondition.class));
+    }
+
+    @Test
+    void lostRaceLooksUpKeysTheFilterHasNotSeen() throws Exception {
+        // Warm filter that has never seen the key: a normal lookup skips Firestore
+        ReflectionTestUtils.setField(dedup, "knownKeys", BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), 100, 0.01));
+        ReflectionTestUtils.setField(dedup, "warm", true);
+        keyDocument("inv-winner");
+        investment("inv-winner", true);
+
+        assertNull(dedup.findExisting(request, List.of(naturalKey), false).get());
+        assertEquals("inv-winner", dedup.findExisting(request, List.of(naturalKey), true).get());
+    }
+
+    @Test
+    void keyOfADeletedRegistrationIsReleased() throws Exception {
+        keyDocument("inv-deleted");
+        investment("inv-deleted", false);
+        when(keyRef.delete(any(Precondition.class))).thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+
+        assertNull(dedup.findExisting(request, List.of(naturalKey), true).get());
+        verify(keyRef).delete(any(Precondition.class));
+    }
+
+    @Test
+    void registrationIsSavedAgainOnceItsStaleKeyIsReleased() throws Exception {
+        RegistrationDedupService keys = mock(RegistrationDedupService.class);
+        when(keys.keysFor(request, null)).thenReturn(List.of(naturalKey));
+        // The first lookup misses the stale key; the one after the failed commit releases it
+        when(keys.findExisting(eq(request), eq(List.of(naturalKey)), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        InvestmentWriteBatcher writeBatcher = mock(InvestmentWriteBatcher.class);
+        when(writeBatcher.isEnabled()).thenReturn(true);
+        when(writeBatcher.submit(anyString(), any(), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(ApiExceptionFactory.createException(
+                        new RuntimeException("key taken"), GrpcStatusCode.of(Status.Code.ALREADY_EXISTS), false)))
+                .thenReturn(CompletableFuture.completedFuture("inv-2"));
+        DocumentReference newRef = mock(DocumentReference.class);
+        when(newRef.getId()).thenReturn("inv-2");
+        when(investments.document()).thenReturn(newRef);
+        FirebaseService service = new FirebaseService(firestore, mock(InvestmentReadModel.class), mock(NameSearchIndex.class),
+                mock(EmailOutboxService.class), writeBatcher, (Executor) Runnable::run, mock(InfluencerRegistry.class),
+                mock(RegistrationStatsService.class), keys, mock(InvestmentMetrics.class));
+
+        InvestmentRepository.Registration registration = service.registerInvestmentAsync(request, null, false, null).get();
+
+        assertEquals("inv-2", registration.getId());
+        assertFalse(registration.isReplayed());
+        verify(keys).findExisting(request, List.of(naturalKey), true);
+        verify(writeBatcher, times(2)).submit(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void editedContactMovesTheNaturalKey() throws Exception {
+        DocumentSnapshot current = mock(DocumentSnapshot.class);
+        when(current.getId()).thenReturn("inv-1");
+        when(current.getString("emailAddress")).thenReturn("farah@example.com");
+        when(current.getString("mobileNumber")).thenReturn("+201001234567");
+        DocumentSnapshot oldKeyDocument = mock(DocumentSnapshot.class);
+        when(oldKeyDocument.getString("investmentId")).thenReturn("inv-1");
+        when(oldKeyDocument.getUpdateTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(1, 0));
+        when(keyRef.get()).thenReturn(ApiFutures.immediateFuture(oldKeyDocument));
+        String newKey = RegistrationDedupService.naturalKey("farah.nofal@example.com", "+201001234567");
+        DocumentReference newKeyRef = mock(DocumentReference.class);
+        when(firestore.collection(RegistrationDedupService.KEYS_COLLECTION).document(newKey)).thenReturn(newKeyRef);
+        WriteBatch batch = mock(WriteBatch.class);
+
+        assertEquals(newKey, dedup.moveNaturalKey(batch, current, Map.of("emailAddress", "farah.nofal@example.com"), 0L).get());
+        verify(batch).create(eq(newKeyRef), anyMap());
+        verify(batch).delete(eq(keyRef), any(Precondition.class));
+
+        // Same pair after normalization: nothing to move
+        WriteBatch unchanged = mock(WriteBatch.class);
+        assertNull(dedup.moveNaturalKey(unchanged, current, Map.of("emailAddress", "FARAH@example.com"), 0L).get());
+        verifyNoInteractions(unchanged);
+    }
+
+    private void keyDocument(String investmentId) {
+        DocumentSnapshot document = mock(DocumentSnapshot.class);
+        when(document.exists()).thenReturn(true);
+        when(document.getId()).thenReturn(naturalKey);
+        when(document.getString("investmentId")).thenReturn(investmentId);
+        when(document.getReference()).thenReturn(keyRef);
+        when(document.getUpdateTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(1, 0));
+        when(firestore.getAll(keyRef)).thenReturn(ApiFutures.immediateFuture(List.of(document)));
+    }
+
+    private void investment(String id, boolean exists) {
+        DocumentSnapshot document = mock(DocumentSnapshot.class);
+        when(document.exists()).thenReturn(exists);
+        DocumentReference reference = mock(DocumentReference.class);
+        when(reference.get()).thenReturn(ApiFutures.immediateFuture(document));
+        when(investments.document(id)).thenReturn(reference);
+    }
+}
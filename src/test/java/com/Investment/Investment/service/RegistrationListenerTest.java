@@ -0,0 +1,121 @@
+package com.Investment.Investment.service;
+
+import com.Investment.Investment.dto.InvestmentResponse;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RegistrationListenerTest {
+
+    private Firestore firestore;
+    private InvestmentReadModel readModel;
+    private FirebaseService service;
+    private final List<EventListener<QuerySnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final List<ListenerRegistration> registrations = new CopyOnWriteArrayList<>();
+    private final List<Long> lowerBounds = new CopyOnWriteArrayList<>();
+    private final List<String> announced = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        firestore = mock(Firestore.class);
+        CollectionReference investments = mock(CollectionReference.class);
+        when(firestore.collection("investments")).thenReturn(investments);
+        when(investments.whereGreaterThanOrEqualTo(eq("createdAt"), anyLong())).thenAnswer(where -> {
+            lowerBounds.add(where.getArgument(1));
+            Query query = mock(Query.class);
+            when(query.addSnapshotListener(any(EventListener.class))).thenAnswer(add -> {
+                listeners.add(add.getArgument(0));
+                ListenerRegistration registration = mock(ListenerRegistration.class);
+                registrations.add(registration);
+                return registration;
+            });
+            return query;
+        });
+        readModel = mock(InvestmentReadModel.class);
+        service = new FirebaseService(firestore, readModel, mock(NameSearchIndex.class), mock(EmailOutboxService.class),
+                mock(InvestmentWriteBatcher.class), (Executor) Runnable::run, mock(InfluencerRegistry.class),
+                mock(RegistrationStatsService.class), mock(RegistrationDedupService.class), mock(InvestmentMetrics.class));
+        ReflectionTestUtils.setField(service, "streamClockSkewMs", 60000L);
+    }
+
+    @Test
+    void queryIsReanchoredWithoutRepeatingRegistrations() {
+        ReflectionTestUtils.setField(service, "streamReanchorMs", 50L);
+        long before = System.currentTimeMillis();
+        Runnable unsubscribe = service.subscribeToRegistrations((response, influencerId) -> announce(response), error -> { });
+
+        // Registrations from before the subscription only fill the dedup window
+        listeners.get(0).onEvent(snapshot("inv-old"), null);
+        listeners.get(0).onEvent(snapshot("inv-1"), null);
+        assertTrue(lowerBounds.get(0) >= before - 60000 && lowerBounds.get(0) <= System.currentTimeMillis() - 60000);
+
+        verify(registrations.get(0), timeout(2000)).remove();
+        // The new query's first snapshot repeats what the old one delivered, plus what it missed
+        listeners.get(1).onEvent(snapshot("inv-old", "inv-1", "inv-2"), null);
+        assertTrue(lowerBounds.get(1) > lowerBounds.get(0));
+
+        unsubscribe.run();
+        verify(registrations.get(registrations.size() - 1), timeout(2000)).remove();
+        synchronized (announced) {
+            assertEquals(List.of("inv-1", "inv-2"), announced);
+        }
+    }
+
+    @Test
+    void readModelFeedsTheStreamWhenEnabled() {
+        when(readModel.isEnabled()).thenReturn(true);
+        Runnable unsubscribe = () -> { };
+        when(readModel.addRegistrationWatcher(any())).thenReturn(unsubscribe);
+
+        assertEquals(unsubscribe, service.subscribeToRegistrations((response, influencerId) -> { }, error -> { }));
+        verifyNoInteractions(firestore);
+    }
+
+    private void announce(InvestmentResponse response) {
+        synchronized (announced) {
+            announced.add(response.getId());
+        }
+    }
+
+    private static QuerySnapshot snapshot(String... ids) {
+        List<DocumentChange> changes = new ArrayList<>();
+        for (String id : ids) {
+            QueryDocumentSnapshot document = mock(QueryDocumentSnapshot.class);
+            when(document.exists()).thenReturn(true);
+            when(document.getId()).thenReturn(id);
+            when(document.getLong("createdAt")).thenReturn(System.currentTimeMillis());
+            DocumentChange change = mock(DocumentChange.class);
+            when(change.getType()).thenReturn(DocumentChange.Type.ADDED);
+            when(change.getDocument()).thenReturn(document);
+            changes.add(change);
+        }
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getDocumentChanges()).thenReturn(changes);
+        return snapshot;
+    }
+}
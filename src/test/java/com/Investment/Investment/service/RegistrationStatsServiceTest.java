@@ -0,0 +1,56 @@
+package com.Investment.Investment.service;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RegistrationStatsServiceTest {
+
+    @Test
+    void drainedChangesAreAppliedOnce() {
+        List<Map<String, Object>> written = new ArrayList<>();
+        Firestore firestore = mock(Firestore.class, RETURNS_DEEP_STUBS);
+        when(firestore.batch()).thenAnswer(invocation -> {
+            WriteBatch batch = mock(WriteBatch.class);
+            when(batch.set(any(DocumentReference.class), anyMap(), any(SetOptions.class))).thenAnswer(set -> {
+                written.add(set.getArgument(1));
+                return batch;
+            });
+            when(batch.getMutationsSize()).thenAnswer(size -> written.size());
+            when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+            return batch;
+        });
+        RegistrationStatsService stats = new RegistrationStatsService(firestore, mock(InfluencerRegistry.class));
+        ReflectionTestUtils.setField(stats, "shards", 5);
+        ReflectionTestUtils.setField(stats, "zone", "Africa/Cairo");
+
+        RegistrationStatsService.Tally tally = stats.newTally();
+        tally.add("FN6C4T9R1VXZ", "Farah Nofal", 0L, 1);
+        tally.add("FN6C4T9R1VXZ", "Farah Nofal", 0L, 1);
+        stats.apply(tally.drain()).join();
+        // Total, day and hour of the one influencer
+        assertEquals(3, written.size());
+
+        written.clear();
+        tally.add(null, "CCG", 0L, 1);
+        stats.apply(tally).join();
+        // Only the change added after the drain
+        assertEquals(3, written.size());
+        assertEquals("CCG", written.get(0).get("influencer"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.Investment.Investment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAcrossLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "firstName,lastName,note\r\n" +
+                "Farah,\"Nofal, Jr\",\"said \"\"hi\"\"\nthen left\"\r\n" +
+                "Ahmed,,\n"));
+
+        assertEquals(List.of("firstName", "lastName", "note"), reader.readRecord());
+        assertEquals(List.of("Farah", "Nofal, Jr", "said \"hi\"\nthen left"), reader.readRecord());
+        assertEquals(2, reader.getRecordLine());
+        assertEquals(List.of("Ahmed", "", ""), reader.readRecord());
+        assertEquals(4, reader.getRecordLine());
+        assertNull(reader.readRecord());
+    }
+}
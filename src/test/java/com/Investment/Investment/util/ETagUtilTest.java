@@ -0,0 +1,42 @@
+package com.Investment.Investment.util;
+
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ETagUtilTest {
+
+    @Test
+    void roundTripsUpdateTime() {
+        Timestamp updateTime = Timestamp.ofTimeSecondsAndNanos(1760000000L, 1500);
+
+        String etag = ETagUtil.fromUpdateTime(updateTime);
+
+        assertEquals("\"1760000000.000001500\"", etag);
+        assertEquals(updateTime, ETagUtil.toUpdateTime(etag));
+    }
+
+    @Test
+    void rejectsWeakAndForeignTags() {
+        assertThrows(IllegalArgumentException.class, () -> ETagUtil.toUpdateTime("W/\"1760000000.000001500\""));
+        assertThrows(IllegalArgumentException.class, () -> ETagUtil.toUpdateTime("\"abc\""));
+        assertThrows(IllegalArgumentException.class, () -> ETagUtil.toUpdateTime("1760000000.000001500"));
+    }
+
+    @Test
+    void queryTagsDependOnVersionAndParameters() {
+        String etag = ETagUtil.forQuery("1760000000.0-42", 0, 10, null, "CCG");
+
+        assertEquals(etag, ETagUtil.forQuery("1760000000.0-42", 0, 10, null, "CCG"));
+        assertNotEquals(etag, ETagUtil.forQuery("1760000000.0-41", 0, 10, null, "CCG"));
+        assertNotEquals(etag, ETagUtil.forQuery("1760000000.0-42", 0, 10, "null", "CCG"));
+        assertTrue(ETagUtil.matches("\"other\", W/" + etag, etag));
+        assertTrue(ETagUtil.matches("*", etag));
+        assertFalse(ETagUtil.matches("\"other\"", etag));
+    }
+}
@@ -0,0 +1,13 @@
+package com.Investment.Investment.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HashUtilTest {
+
+    @Test
+    void sha256HexMatchesTheStandardTestVector() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", HashUtil.sha256Hex("abc"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.Investment.Investment.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-key-that-is-at-least-256-bits-long-for-hmac");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", 2);
+        jwtUtil.init();
+    }
+
+    @Test
+    void verifiesOnceAndServesRepeatsFromCache() {
+        String token = jwtUtil.generateToken("admin");
+
+        JwtUtil.VerifiedToken first = jwtUtil.parseVerified(token);
+        assertNotNull(first);
+        assertEquals("admin", first.getSubject());
+        assertSame(first, jwtUtil.parseVerified(token));
+        assertEquals(1, jwtUtil.cacheSize());
+    }
+
+    @Test
+    void rejectsTamperedTokensWithoutCachingThem() {
+        String token = jwtUtil.generateToken("admin");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(jwtUtil.parseVerified(tampered));
+        assertNull(jwtUtil.parseVerified("not-a-jwt"));
+        assertEquals(0, jwtUtil.cacheSize());
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(jwtUtil.parseVerified(jwtUtil.generateToken("user" + i)));
+        }
+        assertTrue(jwtUtil.cacheSize() <= 2);
+    }
+}
@@ -0,0 +1,42 @@
+package com.Investment.Investment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimeRangeUtilTest {
+
+    private static final ZoneId CAIRO = ZoneId.of("Africa/Cairo");
+
+    @Test
+    void acceptsMillisInstantsOffsetsAndDates() {
+        // 2026-10-17T00:00Z
+        long midnightUtc = 1792195200000L;
+
+        assertEquals(midnightUtc, TimeRangeUtil.parse("1792195200000", CAIRO));
+        assertEquals(midnightUtc, TimeRangeUtil.parse("2026-10-17T00:00:00Z", CAIRO));
+        assertEquals(midnightUtc, TimeRangeUtil.parse("2026-10-17T03:00+03:00", CAIRO));
+        assertEquals(midnightUtc, TimeRangeUtil.parse(" 2026-10-16T21:00-03:00 ", CAIRO));
+        // Dates and local date-times are in the given zone (Cairo is UTC+3 on that day)
+        assertEquals(midnightUtc - 3 * 3600_000L, TimeRangeUtil.parse("2026-10-17", CAIRO));
+        assertEquals(midnightUtc, TimeRangeUtil.parse("2026-10-17T03:00", CAIRO));
+        assertNull(TimeRangeUtil.parse(" ", CAIRO));
+        assertNull(TimeRangeUtil.parse(null, CAIRO));
+    }
+
+    @Test
+    void rejectsMalformedValuesAndEmptyRanges() {
+        assertThrows(IllegalArgumentException.class, () -> TimeRangeUtil.parse("yesterday", CAIRO));
+        assertThrows(IllegalArgumentException.class, () -> TimeRangeUtil.parse("2026-13-01", CAIRO));
+        assertThrows(IllegalArgumentException.class, () -> TimeRangeUtil.parse("99999999999999999999", CAIRO));
+
+        assertThrows(IllegalArgumentException.class, () -> TimeRangeUtil.requireOrdered(10L, 10L));
+        assertDoesNotThrow(() -> TimeRangeUtil.requireOrdered(10L, 11L));
+        assertDoesNotThrow(() -> TimeRangeUtil.requireOrdered(null, 10L));
+    }
+}